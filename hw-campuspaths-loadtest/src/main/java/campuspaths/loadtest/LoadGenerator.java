@@ -0,0 +1,273 @@
+package campuspaths.loadtest;
+
+import campuspaths.SparkServer;
+import pathfinder.CampusMap;
+import spark.Spark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Starts the campus paths server in this process and replays a mix of /buildings and
+ * /find-path requests against it over loopback from many client threads, then reports the
+ * throughput and the latency distribution that the clients saw.
+ * <p>
+ * The run is configured with the following system properties, all of which are optional. Any
+ * campuspaths.* property that the server reads, such as the thread pool sizes, can be passed
+ * the same way.
+ * <ul>
+ * <li>{@code campuspaths.loadtest.clients}: the number of client threads</li>
+ * <li>{@code campuspaths.loadtest.requests}: the number of measured requests, over all clients</li>
+ * <li>{@code campuspaths.loadtest.warmup}: the number of unmeasured requests sent first</li>
+ * <li>{@code campuspaths.loadtest.buildingsPercent}: the percentage of requests sent to /buildings</li>
+ * <li>{@code campuspaths.loadtest.routes}: how many distinct building pairs the routes are drawn
+ * from, where fewer pairs means more identical requests in flight at once</li>
+ * <li>{@code campuspaths.loadtest.format}: the format parameter sent to /find-path, if any</li>
+ * <li>{@code campuspaths.loadtest.seed}: the seed for choosing requests</li>
+ * </ul>
+ */
+public class LoadGenerator {
+
+    // This class does not represent an ADT.
+
+    /**
+     * The port the server is started on if campuspaths.port is not set
+     */
+    private static final int DEFAULT_PORT = 4577;
+
+    /**
+     * The longest a single request may take before it is counted as failed
+     */
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Starts the server, runs the warmup and measured phases, and prints the report
+     *
+     * @param args unused
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int clients = Integer.getInteger("campuspaths.loadtest.clients", 32);
+        int requests = Integer.getInteger("campuspaths.loadtest.requests", 20000);
+        int warmup = Integer.getInteger("campuspaths.loadtest.warmup", 2000);
+        int buildingsPercent = Integer.getInteger("campuspaths.loadtest.buildingsPercent", 10);
+        int routes = Integer.getInteger("campuspaths.loadtest.routes", 200);
+        if (clients <= 0 || requests < 0 || warmup < 0 || routes <= 0
+                || buildingsPercent < 0 || buildingsPercent > 100) {
+            throw new IllegalArgumentException("Invalid load test settings");
+        }
+        String format = System.getProperty("campuspaths.loadtest.format", "");
+        long seed = Long.getLong("campuspaths.loadtest.seed", 331L);
+        if (System.getProperty("campuspaths.port") == null) {
+            System.setProperty("campuspaths.port", Integer.toString(DEFAULT_PORT));
+        }
+        String base = "http://localhost:" + Integer.getInteger("campuspaths.port");
+
+        SparkServer.main(new String[0]);
+        Spark.awaitInitialization();
+
+        List<URI> mix = requestMix(base, buildingsPercent, routes, format, new Random(seed));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        System.out.println("Load test: " + clients + " clients, " + requests + " requests, "
+                + warmup + " warmup requests, " + buildingsPercent + "% /buildings, "
+                + routes + " distinct routes");
+
+        run(client, mix, clients, warmup, seed + 1);
+        Result result = run(client, mix, clients, requests, seed + 2);
+        result.print();
+
+        Spark.stop();
+        System.exit(0);
+    }
+
+    /**
+     * Builds the list of requests that the clients pick from, with the given share of /buildings
+     * requests and the rest spread over randomly chosen pairs of buildings
+     *
+     * @param base the URL of the server, without a trailing slash
+     * @param buildingsPercent the percentage of requests sent to /buildings
+     * @param routes the number of /find-path requests in the mix
+     * @param format the format parameter for /find-path, or "" for none
+     * @param random the source of randomness for choosing building pairs
+     * @return the requests that the clients pick from
+     */
+    private static List<URI> requestMix(String base, int buildingsPercent, int routes, String format,
+                                        Random random) {
+        List<String> names = new ArrayList<>(new TreeMap<>(new CampusMap().buildingNames()).keySet());
+        List<URI> mix = new ArrayList<>();
+        for (int i = 0; buildingsPercent < 100 && i < routes; i++) {
+            String start = names.get(random.nextInt(names.size()));
+            String end = names.get(random.nextInt(names.size()));
+            String uri = base + "/find-path?start=" + URLEncoder.encode(start, UTF_8)
+                    + "&end=" + URLEncoder.encode(end, UTF_8);
+            if (!format.isEmpty()) {
+                uri += "&format=" + URLEncoder.encode(format, UTF_8);
+            }
+            mix.add(URI.create(uri));
+        }
+        // Enough /buildings entries that picking uniformly from the mix gives the wanted share
+        int buildings = buildingsPercent >= 100 ? 1 : routes * buildingsPercent / (100 - buildingsPercent);
+        for (int i = 0; i < buildings; i++) {
+            mix.add(URI.create(base + "/buildings"));
+        }
+        return mix;
+    }
+
+    /**
+     * Sends the given number of requests, drawn uniformly from the mix, split evenly between the
+     * given number of client threads, and records how long each one took
+     *
+     * @param client the HTTP client to send the requests with
+     * @param mix the requests to pick from
+     * @param clients the number of client threads
+     * @param requests the total number of requests to send
+     * @param seed the seed for picking requests
+     * @return the latencies and status codes seen by the clients
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    private static Result run(HttpClient client, List<URI> mix, int clients, int requests, long seed)
+            throws InterruptedException {
+        long[][] latencies = new long[clients][];
+        int[][] statuses = new int[clients][];
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            int index = c;
+            int count = requests / clients + (c < requests % clients ? 1 : 0);
+            threads.execute(() -> {
+                Random random = new Random(seed + index);
+                long[] times = new long[count];
+                int[] codes = new int[count];
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    HttpRequest request = HttpRequest.newBuilder(mix.get(random.nextInt(mix.size())))
+                            .timeout(REQUEST_TIMEOUT)
+                            .header("Accept-Encoding", "gzip")
+                            .GET()
+                            .build();
+                    long begin = System.nanoTime();
+                    try {
+                        codes[i] = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        codes[i] = -1;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        codes[i] = -1;
+                    }
+                    times[i] = System.nanoTime() - begin;
+                }
+                latencies[index] = times;
+                statuses[index] = codes;
+            });
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        go.countDown();
+        threads.shutdown();
+        threads.awaitTermination(1, TimeUnit.DAYS);
+        long elapsed = System.nanoTime() - begin;
+        return new Result(latencies, statuses, elapsed);
+    }
+
+    /**
+     * The latencies and status codes collected from one phase of the load test
+     */
+    private static class Result {
+
+        /**
+         * The latency of every request in nanoseconds, in increasing order
+         */
+        private final long[] latencies;
+
+        /**
+         * The number of responses seen with each status code, where -1 means the request failed
+         */
+        private final Map<Integer, Integer> statusCounts = new TreeMap<>();
+
+        /**
+         * The wall-clock time the phase took, in nanoseconds
+         */
+        private final long elapsed;
+
+        /**
+         * Merges the per-client measurements into one result
+         *
+         * @param latencies the latencies recorded by each client
+         * @param statuses the status codes recorded by each client
+         * @param elapsed the wall-clock time the phase took, in nanoseconds
+         */
+        private Result(long[][] latencies, int[][] statuses, long elapsed) {
+            int total = 0;
+            for (long[] times : latencies) {
+                total += times == null ? 0 : times.length;
+            }
+            this.latencies = new long[total];
+            int next = 0;
+            for (int c = 0; c < latencies.length; c++) {
+                if (latencies[c] == null) {
+                    continue;
+                }
+                System.arraycopy(latencies[c], 0, this.latencies, next, latencies[c].length);
+                next += latencies[c].length;
+                for (int code : statuses[c]) {
+                    statusCounts.merge(code, 1, Integer::sum);
+                }
+            }
+            Arrays.sort(this.latencies);
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * Returns the latency below which the given fraction of requests finished
+         *
+         * @param fraction the fraction of requests, between 0 and 1
+         * @return the latency at that percentile, in milliseconds
+         */
+        private double percentile(double fraction) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(fraction * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1e6;
+        }
+
+        /**
+         * Prints the throughput, latency percentiles and status code counts
+         */
+        private void print() {
+            double seconds = elapsed / 1e9;
+            System.out.printf("Requests:   %d in %.2f s%n", latencies.length, seconds);
+            System.out.printf("Throughput: %.1f requests/s%n", latencies.length / seconds);
+            System.out.printf("Latency:    p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms%n",
+                    percentile(0.50), percentile(0.99), percentile(0.999), percentile(1.0));
+            System.out.println("Statuses:   " + statusCounts);
+        }
+    }
+}
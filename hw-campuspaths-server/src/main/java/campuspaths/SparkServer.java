@@ -12,32 +12,64 @@
 package campuspaths;
 
 import campuspaths.utils.CORSFilter;
+import campuspaths.utils.CompactRoute;
+import campuspaths.utils.FullRoute;
+import campuspaths.utils.PathQueryExecutor;
+import campuspaths.utils.RequestCoalescer;
 import com.google.gson.Gson;
 import pathfinder.CampusMap;
 import pathfinder.datastructures.Path;
 import pathfinder.datastructures.Point;
+import pathfinder.textInterface.CoordinateProperties;
+import pathfinder.textInterface.Directions;
+import spark.Request;
+import spark.Response;
 import spark.Spark;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 public class SparkServer {
 
+    /**
+     * The port the server listens on unless campuspaths.port says otherwise
+     */
+    public static final int DEFAULT_PORT = 4567;
+
+    /**
+     * The number of milliseconds an idle Spark request thread is kept alive for
+     */
+    private static final int REQUEST_THREAD_IDLE_MILLIS = 30000;
+
     public static void main(String[] args) {
+        // Picks the port and sizes Spark's request threads from campuspaths.requestThreads, so
+        // it has to happen before any filter or route is set up
+        Spark.port(Integer.getInteger("campuspaths.port", DEFAULT_PORT));
+        int requestThreads = Integer.getInteger("campuspaths.requestThreads",
+                Math.max(8, 2 * Runtime.getRuntime().availableProcessors()));
+        // Jetty needs a few threads for itself on top of the ones that answer requests
+        Spark.threadPool(requestThreads + 4, Math.min(requestThreads + 4, 8), REQUEST_THREAD_IDLE_MILLIS);
+        PathQueryExecutor queries = PathQueryExecutor.fromSystemProperties();
+
         CORSFilter corsFilter = new CORSFilter();
         corsFilter.apply();
         // The above two lines help set up some settings that allow the
         // React application to make requests to the Spark server, even though it
         // comes from a different server.
-        // You should leave these two lines at the very beginning of main().
+        // You should leave these two lines at the very beginning of main(), after the
+        // thread pool has been configured.
 
         // TODO: Create all the Spark Java routes you need here.
 
         // A field for the CampusMap object
         CampusMap map = new CampusMap();
 
+        // Identical route requests that arrive together share one search
+        RequestCoalescer<List<String>, Path<Point>> routes = new RequestCoalescer<>();
+
         // Returns a list of the buildings in shortname: longname form in JSON
         Spark.get("/buildings", (request, response) -> {
             Gson gson = new Gson();
@@ -46,19 +78,45 @@ public class SparkServer {
             for (String building : buildings.keySet()) {
                 buildingsArr.add(new String[]{building, buildings.get(building)});
             }
+            gzipIfAccepted(request, response);
             return gson.toJson(buildingsArr);
         });
 
-        // Returns a path between 2 buildings in JSON
+        // Returns a path between 2 buildings in JSON. With format=compact, the path is sent
+        // as a CompactRoute instead of a list of segments, and with format=directions, it is
+        // sent as walking directions
         Spark.get("/find-path", (request, response) -> {
             Gson gson = new Gson();
             String start = request.queryParams("start");
             String end = request.queryParams("end");
-            if (Objects.equals(start, "") || Objects.equals(end, "")) {
+            if (start == null || end == null || Objects.equals(start, "") || Objects.equals(end, "")) {
                 Spark.halt(400, "Must have start and end names");
             }
-            Path<Point> path = map.findShortestPath(start, end);
-            return gson.toJson(path);
+            // Dijkstra runs on the compute threads, and is turned away with a 503 under overload
+            Path<Point> path = routes.call(List.of(start, end),
+                    () -> queries.call(() -> map.findShortestPath(start, end)));
+            gzipIfAccepted(request, response);
+            if (path != null && Objects.equals(request.queryParams("format"), "compact")) {
+                return gson.toJson(new CompactRoute(path, CompactRoute.DEFAULT_PRECISION));
+            }
+            if (path != null && Objects.equals(request.queryParams("format"), "directions")) {
+                // Made from the route just found, so no search runs outside the compute threads
+                return gson.toJson(Directions.of(path, CoordinateProperties.INCREASING_DOWN_RIGHT));
+            }
+            return gson.toJson(path == null ? null : new FullRoute(path));
         });
     }
+
+    /**
+     * Asks Spark to gzip the response body if the client says it accepts gzip
+     *
+     * @param request the request being answered
+     * @param response the response to compress
+     */
+    private static void gzipIfAccepted(Request request, Response response) {
+        String accepted = request.headers("Accept-Encoding");
+        if (accepted != null && accepted.contains("gzip")) {
+            response.header("Content-Encoding", "gzip");
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package campuspaths.utils;
+
+import pathfinder.datastructures.PackedPath;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+/**
+ * A CompactRoute is the compact JSON form of a {@code Path<Point>} sent back by /find-path when
+ * the client asks for {@code format=compact}. Instead of repeating both end points of every
+ * segment, the route is sent as the list of points it passes through, starting from the start
+ * of the path, plus the cost of each segment.
+ * <p>
+ * Both lists are written as strings in the encoded polyline format: every value is rounded to
+ * {@code precision} decimal places and turned into an integer, the points are stored as the
+ * difference from the previous point, and each integer is written in 5-bit groups as printable
+ * ASCII characters. Point i is the end of segment i - 1, so there is always one more point than
+ * there are costs.
+ *
+ * @spec.specfield cost: double // the total cost of the route
+ * @spec.specfield points: String // the encoded x, y pairs of every point along the route
+ * @spec.specfield costs: String // the encoded cost of every segment along the route
+ */
+public class CompactRoute {
+
+    // Representation Invariant:
+    // points != null, costs != null, precision >= 0, segments >= 0
+
+    // Abstraction Function:
+    // A CompactRoute r represents the path through the points decoded from r.points, where the
+    // i-th segment goes from point i to point i + 1 and costs the i-th value decoded from r.costs,
+    // and the total cost of the path is r.cost
+
+    /**
+     * The number of decimal places kept for coordinates and costs
+     */
+    public static final int DEFAULT_PRECISION = 2;
+
+    /**
+     * The total cost of the route
+     */
+    private final double cost;
+
+    /**
+     * The number of decimal places kept for coordinates and costs
+     */
+    private final int precision;
+
+    /**
+     * The number of segments in the route
+     */
+    private final int segments;
+
+    /**
+     * The encoded x, y pairs of every point along the route, each stored as the difference from
+     * the point before it
+     */
+    private final String points;
+
+    /**
+     * The encoded cost of every segment along the route
+     */
+    private final String costs;
+
+    /**
+     * Creates the compact form of the given path
+     *
+     * @param path the path to encode
+     * @param precision the number of decimal places to keep for coordinates and costs
+     * @spec.requires path != null, 0 <= precision <= 6
+     * @spec.effects constructs a CompactRoute representing path
+     */
+    public CompactRoute(Path<Point> path, int precision) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        if (precision < 0 || precision > 6) {
+            throw new IllegalArgumentException("Precision must be between 0 and 6");
+        }
+        double scale = Math.pow(10, precision);
+        PackedPath packed = PackedPath.of(path);
+        int count = packed.size();
+        StringBuilder pointChars = new StringBuilder(8 * (count + 1));
+        StringBuilder costChars = new StringBuilder(4 * count);
+        long lastX = 0;
+        long lastY = 0;
+        for (int i = 0; i <= count; i++) {
+            long x = Math.round(packed.getX(i) * scale);
+            long y = Math.round(packed.getY(i) * scale);
+            encode(x - lastX, pointChars);
+            encode(y - lastY, pointChars);
+            lastX = x;
+            lastY = y;
+        }
+        for (int i = 0; i < count; i++) {
+            encode(Math.round(packed.getSegmentCost(i) * scale), costChars);
+        }
+        this.cost = path.getCost();
+        this.precision = precision;
+        this.segments = count;
+        this.points = pointChars.toString();
+        this.costs = costChars.toString();
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert (points != null) : "points == null";
+        assert (costs != null) : "costs == null";
+        assert (precision >= 0) : "precision < 0";
+        assert (segments >= 0) : "segments < 0";
+    }
+
+    /**
+     * Returns the total cost of the route
+     *
+     * @return the total cost of the route
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns the number of segments in the route
+     *
+     * @return the number of segments in the route
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * Returns the encoded points of the route
+     *
+     * @return the encoded x, y pairs of every point along the route
+     */
+    public String getPoints() {
+        return points;
+    }
+
+    /**
+     * Returns the encoded segment costs of the route
+     *
+     * @return the encoded cost of every segment along the route
+     */
+    public String getCosts() {
+        return costs;
+    }
+
+    /**
+     * Appends a signed value to the given buffer in the encoded polyline format. The value is
+     * zig-zag encoded so small negative values stay short, then written 5 bits at a time,
+     * lowest bits first, with 0x20 set on every group but the last, offset by 63 so every
+     * character is printable.
+     *
+     * @param value the value to encode
+     * @param out the buffer to append to
+     * @spec.requires out != null
+     * @spec.modifies out
+     * @spec.effects appends the encoding of value to out
+     */
+    private static void encode(long value, StringBuilder out) {
+        long bits = (value << 1) ^ (value >> 63);
+        while (bits >= 0x20) {
+            out.append((char) ((0x20 | (bits & 0x1f)) + 63));
+            bits >>>= 5;
+        }
+        out.append((char) (bits + 63));
+    }
+}
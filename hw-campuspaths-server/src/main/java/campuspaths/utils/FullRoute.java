@@ -0,0 +1,107 @@
+package campuspaths.utils;
+
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A FullRoute is the default JSON form of a {@code Path<Point>} sent back by /find-path: the
+ * total cost, the start point, and the list of every segment with its start point, end point
+ * and cost. This spells out the shape the React client reads, so that it does not depend on
+ * how Path happens to store its segments.
+ *
+ * @spec.specfield cost: double // the total cost of the route
+ * @spec.specfield start: Point // the point the route starts at
+ * @spec.specfield path: {@code List<Step>} // every segment of the route, in order
+ */
+public class FullRoute {
+
+    // Representation Invariant:
+    // start != null, path != null, no element of path is null
+
+    // Abstraction Function:
+    // A FullRoute r represents the path from r.start whose segments are the elements of r.path,
+    // in order, with a total cost of r.cost
+
+    /**
+     * The total cost of the route
+     */
+    private final double cost;
+
+    /**
+     * The point the route starts at
+     */
+    private final Point start;
+
+    /**
+     * Every segment of the route, in order
+     */
+    private final List<Step> path;
+
+    /**
+     * Creates the JSON form of the given path
+     *
+     * @param route the path to convert
+     * @spec.requires route != null
+     * @spec.effects constructs a FullRoute representing route
+     */
+    public FullRoute(Path<Point> route) {
+        if (route == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        this.cost = route.getCost();
+        this.start = route.getStart();
+        this.path = new ArrayList<>();
+        for (Path<Point>.Segment segment : route) {
+            path.add(new Step(segment.getStart(), segment.getEnd(), segment.getCost()));
+        }
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert (start != null) : "start == null";
+        assert (path != null) : "path == null";
+        for (Step step : path) {
+            assert (step != null) : "step == null";
+        }
+    }
+
+    /**
+     * A single segment of a FullRoute, from start to end with the given cost
+     */
+    private static class Step {
+
+        /**
+         * The point the segment starts at
+         */
+        private final Point start;
+
+        /**
+         * The point the segment ends at
+         */
+        private final Point end;
+
+        /**
+         * The cost of the segment
+         */
+        private final double cost;
+
+        /**
+         * Creates a segment going from start to end with the given cost
+         *
+         * @param start the point the segment starts at
+         * @param end the point the segment ends at
+         * @param cost the cost of the segment
+         */
+        private Step(Point start, Point end, double cost) {
+            this.start = start;
+            this.end = end;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package campuspaths.utils;
+
+import spark.Spark;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The PathQueryExecutor runs expensive path queries on a pool of compute threads that is
+ * separate from the threads Spark uses to accept and answer requests. The number of queries
+ * that may be running or waiting at once is bounded, and any query beyond that bound is
+ * rejected straight away so that the server can answer with a 503 instead of falling behind.
+ * <p>
+ * The executor is configured with the following system properties, all of which are optional:
+ * <ul>
+ * <li>{@code campuspaths.computeThreads}: the number of threads that run path queries</li>
+ * <li>{@code campuspaths.queueLimit}: the number of queries that may wait for a compute thread</li>
+ * </ul>
+ */
+public class PathQueryExecutor {
+
+    // This class does not represent an ADT.
+
+    /**
+     * The HTTP status code sent back when a query is rejected because the server is overloaded
+     */
+    public static final int OVERLOADED_STATUS = 503;
+
+    /**
+     * The pool of compute threads that the path queries are run on
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Limits the number of queries that are running or waiting to run at once
+     */
+    private final Semaphore admission;
+
+    /**
+     * The number of threads that run path queries
+     */
+    private final int computeThreads;
+
+    /**
+     * The number of queries that may wait for a compute thread
+     */
+    private final int queueLimit;
+
+    /**
+     * Creates an executor that runs path queries with the given limits
+     *
+     * @param computeThreads the number of threads that run path queries
+     * @param queueLimit the number of queries that may wait for a compute thread
+     * @spec.requires computeThreads > 0, queueLimit >= 0
+     * @spec.effects constructs a PathQueryExecutor
+     */
+    public PathQueryExecutor(int computeThreads, int queueLimit) {
+        if (computeThreads <= 0 || queueLimit < 0) {
+            throw new IllegalArgumentException("computeThreads must be positive and queueLimit cannot be negative");
+        }
+        this.computeThreads = computeThreads;
+        this.queueLimit = queueLimit;
+        this.admission = new Semaphore(computeThreads + queueLimit);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(computeThreads, computeThreads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueLimit)),
+                task -> {
+                    Thread thread = new Thread(task, "path-query-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Creates an executor configured from the campuspaths.* system properties described above
+     *
+     * @return a PathQueryExecutor configured from the system properties
+     */
+    public static PathQueryExecutor fromSystemProperties() {
+        int computeThreads = Integer.getInteger("campuspaths.computeThreads",
+                Runtime.getRuntime().availableProcessors());
+        int queueLimit = Integer.getInteger("campuspaths.queueLimit", 4 * computeThreads);
+        return new PathQueryExecutor(computeThreads, queueLimit);
+    }
+
+    /**
+     * Runs the given query on the compute threads and waits for its result. If the server
+     * already has as many queries in flight as it is allowed, the query is not run and the
+     * request is halted with a 503 response instead.
+     *
+     * @param query the query to run
+     * @param <V> the type of the query's result
+     * @spec.requires query != null
+     * @return the result of the query
+     * @throws spark.HaltException if the server is overloaded
+     * @throws RuntimeException the same exception the query threw, if it threw one
+     */
+    public <V> V call(Callable<V> query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (!admission.tryAcquire()) {
+            throw Spark.halt(OVERLOADED_STATUS, "Server is overloaded, please try again later");
+        }
+        // Whichever of the compute thread and the caller claims the query first releases its
+        // slot: the compute thread once the query has finished, or the caller if it gives up
+        // before the query started, so a query keeps its slot for as long as it runs
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<V> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return query.call();
+                } finally {
+                    admission.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            throw Spark.halt(OVERLOADED_STATUS, "Server is overloaded, please try again later");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // A running query may ignore the interrupt, and then it still holds its slot
+            future.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                executor.remove((Runnable) future);
+                admission.release();
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a path query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Path query failed", cause);
+        }
+    }
+
+    /**
+     * Returns the number of queries that could currently be admitted before the server is
+     * considered overloaded
+     *
+     * @return the number of free query slots
+     */
+    public int availableSlots() {
+        return admission.availablePermits();
+    }
+
+    /**
+     * Stops accepting queries and releases the compute threads
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "PathQueryExecutor[" + computeThreads + " threads, queue limit " + queueLimit + "]";
+    }
+}
@@ -0,0 +1,79 @@
+package campuspaths.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The RequestCoalescer lets concurrent requests for the same key share a single computation.
+ * The first request for a key runs the computation, and every request for that key that arrives
+ * while it is still running waits for, and returns, the same result instead of computing its own.
+ * Once the computation finishes the key is forgotten, so results are never cached for later
+ * requests.
+ * <p>
+ * This class is generic over the type of key that identifies a computation and the type of
+ * value that it produces.
+ *
+ * @param <K> represents the type of key that identifies identical requests
+ * @param <V> represents the type of value computed for a request
+ */
+public class RequestCoalescer<K, V> {
+
+    // This class does not represent an ADT.
+
+    /**
+     * Holds the result of every computation that is still running, by key
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the result of the computation for the given key, running it on the calling thread
+     * only if no identical request is already in flight. If the shared computation throws an
+     * exception, every request waiting on it throws that same exception.
+     *
+     * @param key the key that identifies the request
+     * @param computation computes the result for the key
+     * @spec.requires key != null, computation != null
+     * @return the result of the computation for the given key, which may be shared with other callers
+     */
+    public V call(K key, Supplier<V> computation) {
+        if (key == null || computation == null) {
+            throw new IllegalArgumentException("Key and computation cannot be null");
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            V result = computation.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Returns the number of distinct computations that are currently running
+     *
+     * @return the number of keys with a computation in flight
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,107 @@
+package campuspaths.junitTests;
+
+import campuspaths.utils.CompactRoute;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompactRouteTest {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    // Decodes a string of encoded polyline values, as the client does
+    private static List<Long> decode(String encoded) {
+        List<Long> values = new ArrayList<>();
+        int i = 0;
+        while (i < encoded.length()) {
+            long bits = 0;
+            int shift = 0;
+            int group;
+            do {
+                group = encoded.charAt(i++) - 63;
+                bits |= (long) (group & 0x1f) << shift;
+                shift += 5;
+            } while (group >= 0x20);
+            values.add((bits >>> 1) ^ -(bits & 1));
+        }
+        return values;
+    }
+
+    // Decodes the points of route, undoing the differences, in units of 10^-precision
+    private static List<Long> decodePoints(CompactRoute route) {
+        List<Long> points = decode(route.getPoints());
+        for (int i = 2; i < points.size(); i++) {
+            points.set(i, points.get(i) + points.get(i - 2));
+        }
+        return points;
+    }
+
+    // Makes a path through the given x, y pairs, each segment costing its length
+    private static Path<Point> path(double... coordinates) {
+        Point last = new Point(coordinates[0], coordinates[1]);
+        Path<Point> path = new Path<>(last);
+        for (int i = 2; i < coordinates.length; i += 2) {
+            Point next = new Point(coordinates[i], coordinates[i + 1]);
+            path = path.extend(next, Math.hypot(next.getX() - last.getX(), next.getY() - last.getY()));
+            last = next;
+        }
+        return path;
+    }
+
+    @Test
+    public void testKnownEncoding() {
+        // The example from the description of the encoded polyline format, x standing for latitude
+        CompactRoute route = new CompactRoute(path(38.5, -120.2, 40.7, -120.95, 43.252, -126.453), 5);
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", route.getPoints());
+    }
+
+    @Test
+    public void testRoundTripWithNegativeDeltas() {
+        Path<Point> path = path(0, 0, 1.25, 5.75, -3.5, 2, -3.5, -7.5, 1000000.25, 0.5);
+        CompactRoute route = new CompactRoute(path, 2);
+        assertEquals(4, route.getSegments());
+        assertEquals(path.getCost(), route.getCost(), EPSILON);
+        assertEquals(List.of(0L, 0L, 125L, 575L, -350L, 200L, -350L, -750L, 100000025L, 50L),
+                decodePoints(route));
+        List<Long> costs = decode(route.getCosts());
+        int i = 0;
+        for (Path<Point>.Segment segment : path) {
+            assertEquals(Math.round(segment.getCost() * 100), (long) costs.get(i++));
+        }
+        assertEquals(4, i);
+    }
+
+    @Test
+    public void testPrecisionRounding() {
+        Path<Point> path = path(1.236, -1.234, 1.004, -0.004);
+        assertEquals(List.of(124L, -123L, 100L, 0L), decodePoints(new CompactRoute(path, 2)));
+        assertEquals(List.of(1L, -1L, 1L, 0L), decodePoints(new CompactRoute(path, 0)));
+        assertEquals(List.of(1236000L, -1234000L, 1004000L, -4000L),
+                decodePoints(new CompactRoute(path, 6)));
+        // The one segment costs about 1.2517, kept as 1.25 and 1
+        assertEquals(List.of(125L), decode(new CompactRoute(path, 2).getCosts()));
+        assertEquals(List.of(1L), decode(new CompactRoute(path, 0).getCosts()));
+    }
+
+    @Test
+    public void testSinglePointRoute() {
+        CompactRoute route = new CompactRoute(path(-2.5, 3.25), 2);
+        assertEquals(0, route.getSegments());
+        assertEquals("", route.getCosts());
+        assertEquals(List.of(-250L, 325L), decodePoints(route));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrecisionTooLarge() {
+        new CompactRoute(path(0, 0), 7);
+    }
+}
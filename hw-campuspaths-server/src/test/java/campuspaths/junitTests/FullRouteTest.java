@@ -0,0 +1,36 @@
+package campuspaths.junitTests;
+
+import campuspaths.utils.FullRoute;
+import com.google.gson.Gson;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.datastructures.PackedPath;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import static org.junit.Assert.assertEquals;
+
+public class FullRouteTest {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void testPointJsonHasOnlyCoordinates() {
+        assertEquals("{\"x\":1.5,\"y\":2.5}", gson.toJson(new Point(1.5, 2.5)));
+    }
+
+    @Test
+    public void testFullRouteJsonShape() {
+        Point a = new Point(1.5, 2.5);
+        Point b = new Point(4.5, 6.5);
+        Path<Point> path = new Path<>(a).extend(a, 0).extend(b, 5);
+        String expected = "{\"cost\":5.0,\"start\":{\"x\":1.5,\"y\":2.5},\"path\":["
+                + "{\"start\":{\"x\":1.5,\"y\":2.5},\"end\":{\"x\":1.5,\"y\":2.5},\"cost\":0.0},"
+                + "{\"start\":{\"x\":1.5,\"y\":2.5},\"end\":{\"x\":4.5,\"y\":6.5},\"cost\":5.0}]}";
+        assertEquals(expected, gson.toJson(new FullRoute(path)));
+        assertEquals(expected, gson.toJson(new FullRoute(PackedPath.of(path))));
+    }
+}
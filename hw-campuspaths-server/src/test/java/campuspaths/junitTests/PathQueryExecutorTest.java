@@ -0,0 +1,147 @@
+package campuspaths.junitTests;
+
+import campuspaths.utils.PathQueryExecutor;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import spark.HaltException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PathQueryExecutorTest {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private final PathQueryExecutor queries = new PathQueryExecutor(1, 1);
+
+    @After
+    public void shutdown() {
+        queries.shutdown();
+    }
+
+    // Waits until the executor has the given number of free slots
+    private void awaitSlots(int slots) throws InterruptedException {
+        while (queries.availableSlots() != slots) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testRunsQueryOnComputeThread() {
+        String thread = queries.call(() -> Thread.currentThread().getName());
+        assertTrue(thread, thread.startsWith("path-query-"));
+        assertEquals(2, queries.availableSlots());
+    }
+
+    @Test
+    public void testQueryExceptionReachesCallerAndReleasesSlot() {
+        try {
+            queries.call(() -> {
+                throw new IllegalStateException("no such building");
+            });
+            fail("the query's exception was not thrown");
+        } catch (IllegalStateException e) {
+            assertEquals("no such building", e.getMessage());
+        }
+        assertEquals(2, queries.availableSlots());
+        assertEquals(Integer.valueOf(7), queries.call(() -> 7));
+    }
+
+    @Test
+    public void testOverloadIsRejectedWith503() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> callers = new ArrayList<>();
+        // One query runs and one waits, which is all computeThreads + queueLimit allows
+        for (int i = 0; i < 2; i++) {
+            Thread caller = new Thread(() -> queries.call(() -> {
+                release.await();
+                return null;
+            }));
+            caller.start();
+            callers.add(caller);
+        }
+        awaitSlots(0);
+        try {
+            queries.call(() -> 1);
+            fail("a query beyond the limit was admitted");
+        } catch (HaltException e) {
+            assertEquals(PathQueryExecutor.OVERLOADED_STATUS, e.statusCode());
+        }
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        assertEquals(2, queries.availableSlots());
+        assertEquals(Integer.valueOf(1), queries.call(() -> 1));
+    }
+
+    @Test
+    public void testInterruptedCallerLeavesSlotWithRunningQuery() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            try {
+                queries.call(() -> {
+                    started.countDown();
+                    // Ignores interrupts, as a search that never checks for them does
+                    while (release.getCount() > 0) {
+                        Thread.onSpinWait();
+                    }
+                    return null;
+                });
+            } catch (IllegalStateException e) {
+                // The caller gives up once interrupted
+            }
+        });
+        caller.start();
+        started.await();
+        caller.interrupt();
+        caller.join();
+        assertEquals(1, queries.availableSlots());
+        release.countDown();
+        awaitSlots(2);
+    }
+
+    @Test
+    public void testInterruptedCallerReleasesSlotOfWaitingQuery() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread running = new Thread(() -> queries.call(() -> {
+            release.await();
+            return null;
+        }));
+        running.start();
+        awaitSlots(1);
+        Thread waiting = new Thread(() -> {
+            try {
+                queries.call(() -> 1);
+            } catch (IllegalStateException e) {
+                // The caller gives up once interrupted
+            }
+        });
+        waiting.start();
+        awaitSlots(0);
+        waiting.interrupt();
+        waiting.join();
+        assertEquals(1, queries.availableSlots());
+        release.countDown();
+        running.join();
+        awaitSlots(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullQuery() {
+        queries.call(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoComputeThreads() {
+        new PathQueryExecutor(0, 1);
+    }
+}
@@ -0,0 +1,158 @@
+package campuspaths.junitTests;
+
+import campuspaths.utils.RequestCoalescer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import spark.HaltException;
+import spark.Spark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescerTest {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private static final int FOLLOWERS = 4;
+
+    private final RequestCoalescer<String, Object> coalescer = new RequestCoalescer<>();
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // Starts one leader running the given computation for "key", then FOLLOWERS more callers for
+    // the same key once they are all waiting on the leader. Each caller stores what it returned
+    // or threw in outcomes.
+    private List<Thread> startCallers(RuntimeException failure, AtomicReferenceArray<Object> outcomes)
+            throws InterruptedException {
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i <= FOLLOWERS; i++) {
+            int caller = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    outcomes.set(caller, coalescer.call("key", () -> {
+                        computations.incrementAndGet();
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        if (failure != null) {
+                            throw failure;
+                        }
+                        return new Object();
+                    }));
+                } catch (RuntimeException e) {
+                    outcomes.set(caller, e);
+                }
+            });
+            callers.add(thread);
+            thread.start();
+            if (i == 0) {
+                started.await();
+            }
+        }
+        // The followers are parked on the leader's result, not computing their own
+        for (Thread follower : callers.subList(1, callers.size())) {
+            while (follower.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+        return callers;
+    }
+
+    private static void joinAll(List<Thread> callers) throws InterruptedException {
+        for (Thread caller : callers) {
+            caller.join();
+        }
+    }
+
+    @Test
+    public void testIdenticalKeysShareOneComputation() throws InterruptedException {
+        AtomicReferenceArray<Object> outcomes = new AtomicReferenceArray<>(FOLLOWERS + 1);
+        List<Thread> callers = startCallers(null, outcomes);
+        assertEquals(1, coalescer.inFlightCount());
+        release.countDown();
+        joinAll(callers);
+        assertEquals(1, computations.get());
+        for (int i = 1; i <= FOLLOWERS; i++) {
+            assertSame(outcomes.get(0), outcomes.get(i));
+        }
+    }
+
+    @Test
+    public void testLeaderExceptionReachesEveryFollower() throws InterruptedException {
+        AtomicReferenceArray<Object> outcomes = new AtomicReferenceArray<>(FOLLOWERS + 1);
+        IllegalStateException failure = new IllegalStateException("search failed");
+        List<Thread> callers = startCallers(failure, outcomes);
+        release.countDown();
+        joinAll(callers);
+        assertEquals(1, computations.get());
+        for (int i = 0; i <= FOLLOWERS; i++) {
+            assertSame(failure, outcomes.get(i));
+        }
+        assertEquals(0, coalescer.inFlightCount());
+    }
+
+    @Test
+    public void testLeaderHaltReachesEveryFollower() throws InterruptedException {
+        HaltException halt;
+        try {
+            throw Spark.halt(503, "Server is overloaded, please try again later");
+        } catch (HaltException e) {
+            halt = e;
+        }
+        AtomicReferenceArray<Object> outcomes = new AtomicReferenceArray<>(FOLLOWERS + 1);
+        List<Thread> callers = startCallers(halt, outcomes);
+        release.countDown();
+        joinAll(callers);
+        for (int i = 0; i <= FOLLOWERS; i++) {
+            assertSame(halt, outcomes.get(i));
+        }
+    }
+
+    @Test
+    public void testFinishedKeyIsComputedAgain() {
+        assertEquals("first", coalescer.call("key", () -> {
+            computations.incrementAndGet();
+            return "first";
+        }));
+        assertEquals(0, coalescer.inFlightCount());
+        assertEquals("second", coalescer.call("key", () -> {
+            computations.incrementAndGet();
+            return "second";
+        }));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void testFailedKeyIsComputedAgain() {
+        try {
+            coalescer.call("key", () -> {
+                throw new IllegalStateException("search failed");
+            });
+            fail("the computation's exception was not thrown");
+        } catch (IllegalStateException e) {
+            assertEquals("search failed", e.getMessage());
+        }
+        assertEquals(0, coalescer.inFlightCount());
+        assertEquals("retried", coalescer.call("key", () -> "retried"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        coalescer.call(null, () -> "value");
+    }
+}
@@ -0,0 +1,156 @@
+package pathfinder;
+
+import graph.LabeledDGraph;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares {@link ContractionHierarchy} against {@link DijkstraAlg} on the campus path graph,
+ * reporting how long the hierarchy takes to build and the query latency of each. Every route is
+ * checked to cost no more than Dijkstra's. It also times finding the 3 shortest routes with
+ * {@link DijkstraAlg#kShortestPaths}, against finding just the shortest with Dijkstra's algorithm.
+ * <p>
+ * The run is configured with the following system properties, all of which are optional.
+ * <ul>
+ * <li>{@code pathfinder.benchmark.queries}: the number of random node pairs to route between</li>
+ * <li>{@code pathfinder.benchmark.builds}: the number of times each is built</li>
+ * <li>{@code pathfinder.benchmark.seed}: the seed for choosing node pairs</li>
+ * </ul>
+ */
+public class RoutingBenchmark {
+
+    // This class does not represent an ADT.
+
+    /**
+     * The largest difference in cost at which two routes are considered equally short
+     */
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * The number of routes found when timing the search for alternative routes
+     */
+    private static final int ALTERNATIVES = 3;
+
+    /**
+     * Loads the campus graph, runs both searches over the same node pairs, and prints the report
+     *
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        int queries = Integer.getInteger("pathfinder.benchmark.queries", 2000);
+        int builds = Integer.getInteger("pathfinder.benchmark.builds", 5);
+        long seed = Long.getLong("pathfinder.benchmark.seed", 331L);
+        if (queries <= 0 || builds <= 0) {
+            throw new IllegalArgumentException("Invalid benchmark settings");
+        }
+        CampusMap map = new CampusMap();
+        LabeledDGraph<Point, Double> graph = map.paths();
+        List<Point> points = new ArrayList<>(graph.getNodes());
+
+        long[] buildNanos = new long[builds];
+        ContractionHierarchy<Point> hierarchy = null;
+        for (int i = 0; i < builds; i++) {
+            long begin = System.nanoTime();
+            hierarchy = new ContractionHierarchy<>(graph);
+            buildNanos[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(buildNanos);
+        System.out.printf("graph: %d nodes, %d shortcuts added%n",
+                hierarchy.size(), hierarchy.shortcutCount());
+        System.out.printf("hierarchy preprocessing: median %.1f ms, min %.1f ms over %d builds%n",
+                buildNanos[builds / 2] / 1e6, buildNanos[0] / 1e6, builds);
+
+        Random random = new Random(seed);
+        Point[] starts = new Point[queries];
+        Point[] ends = new Point[queries];
+        for (int i = 0; i < queries; i++) {
+            starts[i] = points.get(random.nextInt(points.size()));
+            ends[i] = points.get(random.nextInt(points.size()));
+        }
+        // One unmeasured pass over every pair, so both are compiled before being timed
+        run(graph, null, starts, ends);
+        run(graph, hierarchy, starts, ends);
+        long dijkstra = run(graph, null, starts, ends);
+        long contracted = run(graph, hierarchy, starts, ends);
+        report("dijkstra", dijkstra, queries);
+        report("hierarchy", contracted, queries);
+        System.out.printf("speedup: %.1fx%n", (double) dijkstra / contracted);
+
+        CompactGraph<Point> compact = new CompactGraph<>(graph);
+        long alternatives = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                DijkstraAlg.kShortestPaths(starts[i], ends[i], compact, ALTERNATIVES);
+            }
+            alternatives = System.nanoTime() - begin;
+        }
+        System.out.printf("%d shortest: %.1f us per query, %.2fx one dijkstra%n", ALTERNATIVES,
+                alternatives / 1e3 / queries, (double) alternatives / dijkstra);
+
+        // DijkstraAlg only follows one of several equally labeled edges out of a node, so it can
+        // miss the shortest route; the hierarchy should never find a longer one
+        int shorter = 0;
+        int longer = 0;
+        for (int i = 0; i < queries; i++) {
+            double expected = cost(DijkstraAlg.dijkstra(starts[i], ends[i], graph));
+            double actual = cost(hierarchy.query(starts[i], ends[i]));
+            if (actual < expected - EPSILON) {
+                shorter++;
+            } else if (actual > expected + EPSILON) {
+                longer++;
+            }
+        }
+        System.out.printf("hierarchy routes shorter than dijkstra: %d, longer: %d, of %d%n",
+                shorter, longer, queries);
+    }
+
+    /**
+     * Returns the cost of a route, where a missing route costs infinitely much
+     *
+     * @param path the route, or null if there is none
+     * @return the cost of path, or infinity if it is null
+     */
+    private static double cost(Path<Point> path) {
+        return path == null ? Double.POSITIVE_INFINITY : path.getCost();
+    }
+
+    /**
+     * Routes between every pair of nodes given, with the hierarchy if it is given and with
+     * Dijkstra's algorithm if not
+     *
+     * @param graph the graph to route over
+     * @param hierarchy the hierarchy built from graph, or null
+     * @param starts the start of every route
+     * @param ends the end of every route
+     * @return the total time taken in nanoseconds
+     */
+    private static long run(LabeledDGraph<Point, Double> graph, ContractionHierarchy<Point> hierarchy,
+                            Point[] starts, Point[] ends) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < starts.length; i++) {
+            if (hierarchy != null) {
+                hierarchy.query(starts[i], ends[i]);
+            } else {
+                DijkstraAlg.dijkstra(starts[i], ends[i], graph);
+            }
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Prints the average latency per query of one run
+     *
+     * @param name the name of the search that was run
+     * @param nanos the total time returned by run
+     * @param queries the number of queries in the run
+     */
+    private static void report(String name, long nanos, int queries) {
+        System.out.printf("%s: %.1f us per query%n", name, nanos / 1e3 / queries);
+    }
+}
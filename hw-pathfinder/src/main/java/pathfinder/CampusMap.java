@@ -12,18 +12,22 @@
 package pathfinder;
 
 import graph.LabeledDGraph;
+import pathfinder.datastructures.PackedPath;
 import pathfinder.datastructures.Path;
 import pathfinder.datastructures.Point;
+import pathfinder.datastructures.PointIndex;
+import pathfinder.datastructures.PointPool;
 import pathfinder.parser.CampusBuilding;
 import pathfinder.parser.CampusPath;
 import pathfinder.parser.CampusPathsParser;
+import pathfinder.textInterface.CoordinateProperties;
+import pathfinder.textInterface.Directions;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static pathfinder.parser.CampusPathsParser.parseCampusBuildings;
-
 /**
  * This class implements the ModelAPI interface in order to represent a map of a campus.
  *
@@ -34,46 +38,128 @@ import static pathfinder.parser.CampusPathsParser.parseCampusBuildings;
 public class CampusMap implements ModelAPI {
 
     // Representation Invariant:
-    // paths != null. buildings != null. Point values != null.
+    // buildings != null. entrances != null. Point values != null.
     // Buildings and their abbreviated names cannot be null
+    // entrances has exactly the keys of buildings, and maps each to the point at that building
+    // paths is either null, before the first route query, or the graph of every campus path
+    // paths != null ==> nodes != null and nodes indexes exactly the nodes of paths
+    // paths != null ==> hierarchy != null and hierarchy was built from paths
+    // paths != null ==> compact != null and compact is a snapshot of paths
+    // paths != null ==> undirected is true iff every edge of paths has a reverse edge of the same cost
+    // routes != null, and every path it holds for [start, end] is a shortest path between them
+    // directions != null, and every value it holds for [start, end] is the directions for the
+    //      route routes holds or held for [start, end]
+    // trees != null, and every tree it holds for a short name starts at that building's entrance
 
     // Abstraction Function:
     // AF(this):
     //      A CampusMap c represents a map that contains buildings and the paths connecting said buildings.
-    //      This is such that all the paths in c are represented by the directed graph this.paths,
+    //      This is such that all the paths in c are represented by the directed graph this.paths
+    //      (read from campus_paths.csv on the first route query),
     //      and all the buildings and their abbreviated names in c are represented by the map this.buildings.
 
     /**
-     * Stores the paths between all given points in the campus
+     * Stores the paths between all given points in the campus. This is only built the first time
+     * a route is asked for, so callers that only look up buildings never pay for it.
+     */
+    private volatile LabeledDGraph<Point, Double> paths;
+
+    /**
+     * Indexes every point in paths by location. This is built along with paths, and is set
+     * before it, so it is ready whenever paths is.
+     */
+    private volatile PointIndex nodes;
+
+    /**
+     * Answers route queries over paths. This is built along with paths, and is set before it,
+     * so it is ready whenever paths is.
+     */
+    private volatile ContractionHierarchy<Point> hierarchy;
+
+    /**
+     * Holds a snapshot of paths numbered for fast searching, which the searches that do not need
+     * their own structure share. This is built along with paths, and is set before it, so it is
+     * ready whenever paths is.
+     */
+    private volatile CompactGraph<Point> compact;
+
+    /**
+     * Whether every path in paths can be walked both ways at the same cost, so that the shortest
+     * path from b to a is the reverse of the one from a to b. This is set along with paths.
+     */
+    private volatile boolean undirected;
+
+    /**
+     * Remembers recently found routes, by the short names of their start and end buildings
+     */
+    private final LruCache<List<String>, PackedPath> routes;
+
+    /**
+     * The number of routes remembered by a CampusMap unless it is told otherwise
      */
-    private final LabeledDGraph<Point, Double> paths;
+    public static final int DEFAULT_ROUTE_CACHE_SIZE = 1024;
+
+    /**
+     * Remembers the directions for recently found routes, by the short names of their start and
+     * end buildings. This holds as many entries as routes.
+     */
+    private final LruCache<List<String>, Directions> directions;
+
+    /**
+     * Remembers recently built shortest path trees, by the short name of their start building
+     */
+    private final LruCache<String, ShortestPathTree<Point>> trees;
+
+    /**
+     * The number of shortest path trees remembered by a CampusMap
+     */
+    public static final int TREE_CACHE_SIZE = 16;
 
     /**
      * Stores all the buildings in the campus
      */
     private final HashMap<String, CampusBuilding> buildings;
 
+    /**
+     * Stores the canonical point at the entrance of every building, by short name. These are
+     * the same Point objects the path graph uses as nodes.
+     */
+    private final HashMap<String, Point> entrances;
+
     /**
      * Toggles the expensive checkRep() computations
      */
     private final boolean DEBUG = false;
 
     /**
-     * Constructs a new CampusMap using the given files for buildings and paths
+     * Constructs a new CampusMap using the given files for buildings and paths. Only the
+     * buildings are read here; the paths are read the first time a route is asked for.
      *
-     * @spec.effects constructs a CampusMap
+     * @spec.effects constructs a CampusMap that remembers up to DEFAULT_ROUTE_CACHE_SIZE routes
      */
     public CampusMap() {
+        this(DEFAULT_ROUTE_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a new CampusMap using the given files for buildings and paths, which remembers
+     * up to the given number of routes
+     *
+     * @param routeCacheSize the most routes, and directions for routes, to remember, where 0
+     *                       remembers none
+     * @throws IllegalArgumentException if routeCacheSize is negative
+     * @spec.effects constructs a CampusMap
+     */
+    public CampusMap(int routeCacheSize) {
+        this.routes = new LruCache<>(routeCacheSize);
+        this.directions = new LruCache<>(routeCacheSize);
+        this.trees = new LruCache<>(TREE_CACHE_SIZE);
         this.buildings = new HashMap<>();
-        this.paths = new LabeledDGraph<>();
+        this.entrances = new HashMap<>();
         List<CampusBuilding> buildList = CampusPathsParser.parseCampusBuildings("campus_buildings.csv");
         for (CampusBuilding campusBuilding : buildList) {
             buildings.put(campusBuilding.getShortName(), campusBuilding);
-        }
-        List<CampusPath> pathList = CampusPathsParser.parseCampusPaths("campus_paths.csv");
-        for (CampusPath campusPath : pathList) {
-            paths.addEdge(new Point(campusPath.getX1(), campusPath.getY1()), campusPath.getDistance(),
-                    new Point(campusPath.getX2(), campusPath.getY2()));
+            entrances.put(campusBuilding.getShortName(), new Point(campusBuilding.getX(), campusBuilding.getY()));
         }
         checkRep();
     }
@@ -82,30 +168,156 @@ public class CampusMap implements ModelAPI {
      * Throws an exception if the representation invariant is violated
      */
     public void checkRep() {
-        assert (paths != null) : "paths == null";
         assert (buildings != null) : "buildings == null";
+        assert (entrances != null) : "entrances == null";
+        assert (routes != null) : "routes == null";
+        assert (directions != null) : "directions == null";
+        assert (trees != null) : "trees == null";
         if (DEBUG) {
             for (String name : buildings.keySet()) {
                 assert (name != null) : "Short name of the building is null";
                 assert (buildings.get(name) != null) : "Building is null";
             }
-            for (Point point : paths.getNodes()) {
-                assert (point != null) : "Point == null";
+            LabeledDGraph<Point, Double> graph = paths;
+            if (graph != null) {
+                for (Point point : graph.getNodes()) {
+                    assert (point != null) : "Point == null";
+                }
             }
         }
     }
 
-    @Override
-    public boolean shortNameExists(String shortName) {
-        checkRep();
-        List<CampusBuilding> list = parseCampusBuildings("campus_buildings.csv");
-        for (CampusBuilding building : list) {
-            if (building.getShortName().equals(shortName)) {
-                return true;
+    /**
+     * Returns the graph of campus paths, reading it from campus_paths.csv the first time this
+     * is called. Safe to call from several threads at once; the file is only ever read once.
+     * The route search structures over the graph are built at the same time.
+     *
+     * @return the graph of all the paths in the campus
+     */
+    LabeledDGraph<Point, Double> paths() {
+        LabeledDGraph<Point, Double> graph = paths;
+        if (graph == null) {
+            synchronized (this) {
+                graph = paths;
+                if (graph == null) {
+                    graph = new LabeledDGraph<>();
+                    // Every path end is shared by several rows, and the entrances are already made
+                    PointPool pool = new PointPool();
+                    for (Point entrance : entrances.values()) {
+                        pool.intern(entrance);
+                    }
+                    List<CampusPath> pathList = CampusPathsParser.parseCampusPaths("campus_paths.csv");
+                    for (CampusPath campusPath : pathList) {
+                        graph.addEdge(pool.intern(campusPath.getX1(), campusPath.getY1()), campusPath.getDistance(),
+                                pool.intern(campusPath.getX2(), campusPath.getY2()));
+                    }
+                    nodes = new PointIndex(graph.getNodes());
+                    hierarchy = new ContractionHierarchy<>(graph);
+                    compact = new CompactGraph<>(graph);
+                    undirected = isUndirected(graph);
+                    paths = graph;
+                }
             }
         }
+        return graph;
+    }
+
+    /**
+     * Returns whether every edge of the given graph has a reverse edge of the same cost
+     *
+     * @param graph the graph to check
+     * @return true iff for every edge a -> b of graph with cost c, there is an edge b -> a with cost c
+     */
+    private static boolean isUndirected(LabeledDGraph<Point, Double> graph) {
+        for (Point node : graph.getNodes()) {
+            for (LabeledDGraph.Edge<Point, Double> edge : graph.getChildren(node)) {
+                if (!graph.getChildren(edge.getChild()).contains(new LabeledDGraph.Edge<>(edge.getLabel(), node))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cache of routes found by findShortestPath, so that how well it is working can
+     * be watched
+     *
+     * @return the route cache of this map
+     */
+    public LruCache<List<String>, PackedPath> routeCache() {
+        return routes;
+    }
+
+    /**
+     * Returns the cache of trees built by shortestPathTree, so that how well it is working can
+     * be watched
+     *
+     * @return the shortest path tree cache of this map
+     */
+    public LruCache<String, ShortestPathTree<Point>> treeCache() {
+        return trees;
+    }
+
+    /**
+     * Returns the point of the campus path graph closest to the given location, which may be
+     * any location on the campus map, not just a building.
+     *
+     * @param x the x coordinate of the location, in map pixels
+     * @param y the y coordinate of the location, in map pixels
+     * @return the node of the path graph closest to (x, y), or null if there are no paths
+     */
+    public Point nearestNode(double x, double y) {
+        paths();
+        return nodes.nearest(x, y);
+    }
+
+    /**
+     * Returns every point of the campus path graph within the given distance of a location.
+     *
+     * @param x the x coordinate of the location, in map pixels
+     * @param y the y coordinate of the location, in map pixels
+     * @param r the largest distance from the location, in map pixels
+     * @spec.requires r >= 0
+     * @return a new list of the nodes of the path graph within r of (x, y), in no particular order
+     */
+    public List<Point> nodesWithin(double x, double y, double r) {
+        paths();
+        return nodes.within(x, y, r);
+    }
+
+    /**
+     * Finds the shortest path from the point of the campus path graph closest to the given
+     * location to the given building. The path starts at that point, not at (x, y) itself.
+     *
+     * @param x the x coordinate of the location to start from, in map pixels
+     * @param y the y coordinate of the location to start from, in map pixels
+     * @param endShortName the short name of the building at the end of the path
+     * @return the shortest path from the node nearest (x, y) to the building, or null if none exists
+     * @throws IllegalArgumentException if endShortName is null or not a valid short name, or if
+     *                                  x or y are NaN or infinite
+     */
+    public PackedPath findShortestPathFrom(double x, double y, String endShortName) {
+        checkRep();
+        if (!Double.isFinite(x) || !Double.isFinite(y)) {
+            throw new IllegalArgumentException("Coordinates must be finite");
+        }
+        if (!shortNameExists(endShortName)) {
+            throw new IllegalArgumentException("The given end short name does not exist");
+        }
+        Point startPoint = nearestNode(x, y);
+        if (startPoint == null) {
+            return null;
+        }
+        Path<Point> finalPath = hierarchy.query(startPoint, entrances.get(endShortName));
         checkRep();
-        return false;
+        return finalPath == null ? null : PackedPath.of(finalPath);
+    }
+
+    @Override
+    public boolean shortNameExists(String shortName) {
+        checkRep();
+        return shortName != null && buildings.containsKey(shortName);
     }
 
     @Override
@@ -114,30 +326,28 @@ public class CampusMap implements ModelAPI {
         if (!shortNameExists(shortName)) {
             throw new IllegalArgumentException("The given short name does not exist");
         }
-        List<CampusBuilding> list = parseCampusBuildings("campus_buildings.csv");
-        for (CampusBuilding building : list) {
-            if (building.getShortName().equals(shortName)) {
-                return building.getLongName();
-            }
-        }
-        checkRep();
-        return null;
+        return buildings.get(shortName).getLongName();
     }
 
     @Override
     public Map<String, String> buildingNames() {
         checkRep();
-        List<CampusBuilding> list = parseCampusBuildings("campus_buildings.csv");
         Map<String, String> finalMap = new HashMap<>();
-        for (CampusBuilding building : list) {
+        for (CampusBuilding building : buildings.values()) {
             finalMap.put(building.getShortName(), building.getLongName());
         }
         checkRep();
         return finalMap;
     }
 
+    /**
+     * {@inheritDoc}
+     * The path is returned packed, so that routes which are kept around take little memory.
+     * Recently found routes are remembered, and when every campus path can be walked both ways,
+     * finding a route also remembers its reverse.
+     */
     @Override
-    public Path<Point> findShortestPath(String startShortName, String endShortName) {
+    public PackedPath findShortestPath(String startShortName, String endShortName) {
         checkRep();
         if (startShortName == null || endShortName == null) {
             throw new IllegalArgumentException("Building names cannot be null");
@@ -148,19 +358,149 @@ public class CampusMap implements ModelAPI {
         if (!shortNameExists(endShortName)) {
             throw new IllegalArgumentException("The given end short name does not exist");
         }
-        Point startPoint = null;
-        Point endPoint = null;
-        for (String shortName : buildings.keySet()) {
-            if (shortName.equals(startShortName)) {
-                startPoint = new Point(buildings.get(shortName).getX(), buildings.get(shortName).getY());
-            }
-            if (shortName.equals(endShortName)) {
-                endPoint = new Point(buildings.get(shortName).getX(), buildings.get(shortName).getY());
-            }
+        List<String> key = List.of(startShortName, endShortName);
+        PackedPath cached = routes.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Point startPoint = entrances.get(startShortName);
+        Point endPoint = entrances.get(endShortName);
+        paths();
+        Path<Point> finalPath = hierarchy.query(startPoint, endPoint);
+        if (finalPath == null) {
+            checkRep();
+            return null;
+        }
+        PackedPath packed = PackedPath.of(finalPath);
+        routes.put(key, packed);
+        if (undirected && !startShortName.equals(endShortName)) {
+            routes.put(List.of(endShortName, startShortName), reverse(packed));
         }
-        Path<Point> finalPath = DijkstraAlg.dijkstra(startPoint, endPoint, paths);
         checkRep();
-        return finalPath;
+        return packed;
+    }
+
+    /**
+     * Returns the walking directions for the shortest path between two buildings, with the
+     * segments of the path that head the same way merged into one step. The directions for
+     * recently found routes are remembered, so asking again costs no more than a lookup.
+     *
+     * @param startShortName the short name of the building at the beginning of the path
+     * @param endShortName the short name of the building at the end of the path
+     * @return the directions for the shortest path between the buildings, or null if none exists
+     * @throws IllegalArgumentException if either name is null or not a valid short name
+     */
+    public Directions findDirections(String startShortName, String endShortName) {
+        checkRep();
+        if (startShortName == null || endShortName == null) {
+            throw new IllegalArgumentException("Building names cannot be null");
+        }
+        List<String> key = List.of(startShortName, endShortName);
+        Directions cached = directions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        PackedPath path = findShortestPath(startShortName, endShortName);
+        if (path == null) {
+            return null;
+        }
+        Directions result = Directions.of(path, CoordinateProperties.INCREASING_DOWN_RIGHT);
+        directions.put(key, result);
+        checkRep();
+        return result;
+    }
+
+    /**
+     * Returns the shortest paths from the given building to every point on campus it can reach,
+     * found with a single search. Use this instead of findShortestPath when many routes share a
+     * start. Recently built trees are remembered, so asking again for the same start is cheap.
+     *
+     * @param startShortName the short name of the building the paths start at
+     * @return the shortest path tree rooted at the building's entrance
+     * @throws IllegalArgumentException if startShortName is null or not a valid short name
+     */
+    public ShortestPathTree<Point> shortestPathTree(String startShortName) {
+        checkRep();
+        if (!shortNameExists(startShortName)) {
+            throw new IllegalArgumentException("The given start short name does not exist");
+        }
+        ShortestPathTree<Point> tree = trees.get(startShortName);
+        if (tree == null) {
+            paths();
+            tree = new ShortestPathTree<>(compact, entrances.get(startShortName));
+            trees.put(startShortName, tree);
+        }
+        checkRep();
+        return tree;
+    }
+
+    /**
+     * Returns the shortest path from the start of the given tree to the given building, pulled
+     * out of the tree without searching again
+     *
+     * @param tree a tree returned by shortestPathTree
+     * @param endShortName the short name of the building at the end of the path
+     * @return the shortest path from the start of tree to the building, or null if none exists
+     * @throws IllegalArgumentException if tree is null, or endShortName is null or not a valid short name
+     */
+    public PackedPath findShortestPath(ShortestPathTree<Point> tree, String endShortName) {
+        checkRep();
+        if (tree == null) {
+            throw new IllegalArgumentException("Tree cannot be null");
+        }
+        if (!shortNameExists(endShortName)) {
+            throw new IllegalArgumentException("The given end short name does not exist");
+        }
+        Path<Point> finalPath = tree.pathTo(entrances.get(endShortName));
+        return finalPath == null ? null : PackedPath.of(finalPath);
+    }
+
+    /**
+     * Finds up to k of the shortest paths between two buildings, such as to offer alternatives
+     * when the shortest is crowded. No path visits any point twice.
+     *
+     * @param startShortName the short name of the building at the beginning of the paths
+     * @param endShortName the short name of the building at the end of the paths
+     * @param k the most paths to find
+     * @return a new list of up to k paths between the buildings, shortest first, which has fewer
+     * than k paths only if there are no more, and is empty if there is no path
+     * @throws IllegalArgumentException if either name is null or not a valid short name, or if
+     *                                  k is not positive
+     */
+    public List<PackedPath> findKShortestPaths(String startShortName, String endShortName, int k) {
+        checkRep();
+        if (!shortNameExists(startShortName)) {
+            throw new IllegalArgumentException("The given start short name does not exist");
+        }
+        if (!shortNameExists(endShortName)) {
+            throw new IllegalArgumentException("The given end short name does not exist");
+        }
+        paths();
+        List<PackedPath> result = new ArrayList<>();
+        for (Path<Point> path : DijkstraAlg.kShortestPaths(entrances.get(startShortName),
+                entrances.get(endShortName), compact, k)) {
+            result.add(PackedPath.of(path));
+        }
+        checkRep();
+        return result;
+    }
+
+    /**
+     * Returns the given path walked from its end back to its start. Like the paths found by
+     * DijkstraAlg, the result starts with a segment of cost 0 from its start to itself.
+     *
+     * @param path the path to reverse, which starts with a segment from its start to itself
+     * @return the reverse of path
+     * @spec.requires path != null and path.size() >= 1
+     */
+    private static PackedPath reverse(PackedPath path) {
+        Point end = path.getEnd();
+        Path<Point> reversed = new Path<>(end).extend(end, 0);
+        // Segment 0 is the segment from the start to itself, which the new path already has
+        for (int i = path.size() - 1; i >= 1; i--) {
+            reversed = reversed.extend(path.getPoint(i), path.getSegmentCost(i));
+        }
+        return PackedPath.of(reversed);
     }
 
 }
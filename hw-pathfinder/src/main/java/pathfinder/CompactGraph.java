@@ -0,0 +1,230 @@
+package pathfinder;
+
+import graph.LabeledDGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A CompactGraph is an immutable snapshot of a {@code LabeledDGraph<T, Double>} laid out for
+ * fast searching: every node is numbered from 0, and the edges out of and into every node are
+ * stored in flat arrays grouped by node, so searches work on ints and doubles rather than on
+ * nodes, edge objects and sets.
+ * <p>
+ * Several search structures over the same graph can share one snapshot, and with it one
+ * numbering of the nodes.
+ *
+ * @param <T> the type of the nodes in the graph
+ */
+final class CompactGraph<T> {
+
+    // Abstraction Function:
+    // AF(this) = the graph with nodes this.nodes, which has an edge
+    //            nodes[outFrom[e]] -> nodes[outTo[e]] labeled outCost[e] for every edge e
+
+    // Representation Invariant:
+    // nodes != null, ids != null, and ids.get(nodes.get(i)) == i for every 0 <= i < nodes.size()
+    // outStart.length == inStart.length == nodes.size() + 1
+    // outFrom[e] == v for every node v and every outStart[v] <= e < outStart[v + 1]
+    // the edges into every node, inFrom and inCost, are exactly the edges out of every node,
+    //      outTo and outCost, and every outCost[e] >= 0
+    // for every index i of the in arrays, outFrom[inEdge[i]] == inFrom[i] and outCost[inEdge[i]] == inCost[i]
+
+    /**
+     * The nodes of the graph, by id
+     */
+    private final ArrayList<T> nodes;
+
+    /**
+     * The id of every node of the graph
+     */
+    private final HashMap<T, Integer> ids;
+
+    /**
+     * Where the edges out of every node start in outFrom, outTo and outCost
+     */
+    final int[] outStart;
+
+    /**
+     * The node every edge leaves from, grouped by that node
+     */
+    final int[] outFrom;
+
+    /**
+     * The node every edge goes to
+     */
+    final int[] outTo;
+
+    /**
+     * The cost of every edge
+     */
+    final double[] outCost;
+
+    /**
+     * Where the edges into every node start in inFrom and inCost
+     */
+    final int[] inStart;
+
+    /**
+     * The node every edge into a node comes from, grouped by the node it goes to
+     */
+    final int[] inFrom;
+
+    /**
+     * The cost of every edge in inFrom
+     */
+    final double[] inCost;
+
+    /**
+     * The index in the out arrays of every edge in inFrom
+     */
+    final int[] inEdge;
+
+    /**
+     * Takes a snapshot of the given graph
+     *
+     * @param graph the graph to copy
+     * @throws IllegalArgumentException if graph is null, or has a null, negative or NaN edge label
+     * @spec.effects constructs a CompactGraph with the nodes and edges of graph
+     */
+    CompactGraph(LabeledDGraph<T, Double> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.nodes = new ArrayList<>(graph.getNodes());
+        this.ids = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ids.put(nodes.get(i), i);
+        }
+        int n = nodes.size();
+        this.outStart = new int[n + 1];
+        this.inStart = new int[n + 1];
+        int edges = 0;
+        for (int v = 0; v < n; v++) {
+            for (LabeledDGraph.Edge<T, Double> edge : graph.getChildren(nodes.get(v))) {
+                Double label = edge.getLabel();
+                if (label == null || !(label >= 0)) {
+                    throw new IllegalArgumentException("Edge labels must be non-negative numbers");
+                }
+                outStart[v + 1]++;
+                inStart[ids.get(edge.getChild()) + 1]++;
+                edges++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            outStart[v + 1] += outStart[v];
+            inStart[v + 1] += inStart[v];
+        }
+        this.outFrom = new int[edges];
+        this.outTo = new int[edges];
+        this.outCost = new double[edges];
+        this.inFrom = new int[edges];
+        this.inCost = new double[edges];
+        this.inEdge = new int[edges];
+        int[] nextIn = Arrays.copyOf(inStart, n);
+        for (int v = 0; v < n; v++) {
+            int next = outStart[v];
+            for (LabeledDGraph.Edge<T, Double> edge : graph.getChildren(nodes.get(v))) {
+                int w = ids.get(edge.getChild());
+                outFrom[next] = v;
+                outTo[next] = w;
+                outCost[next] = edge.getLabel();
+                inFrom[nextIn[w]] = v;
+                inCost[nextIn[w]] = edge.getLabel();
+                inEdge[nextIn[w]] = next;
+                next++;
+                nextIn[w]++;
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert (nodes != null) : "nodes == null";
+        assert (ids != null && ids.size() == nodes.size()) : "ids does not match nodes";
+        assert (outStart.length == nodes.size() + 1) : "outStart does not match nodes";
+        assert (inStart.length == nodes.size() + 1) : "inStart does not match nodes";
+        assert (outTo.length == inFrom.length) : "edges in and out do not match";
+    }
+
+    /**
+     * Returns the number of nodes in the graph
+     *
+     * @return the number of nodes
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the node with the given id
+     *
+     * @param id the id of a node
+     * @return the node numbered id
+     * @throws IndexOutOfBoundsException if id is not between 0 and size() - 1, inclusive
+     */
+    T node(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Returns the id of the given node
+     *
+     * @param node the node to look up
+     * @return the id of node, or -1 if it is not in the graph
+     */
+    int id(T node) {
+        Integer id = ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the given node to completion, following the edges forward,
+     * or backward to find the distance from every node to the source instead
+     *
+     * @param source the id of the node to start from
+     * @param forward whether to follow edges forward rather than backward
+     * @param parent if not null, set to the edge each node was reached by, which is an index into
+     *               the out arrays going forward and the in arrays going backward, or -1 for the
+     *               source and nodes that were not reached
+     * @return the distance from source to every node, or to source from every node when going
+     * backward, or infinity for nodes that cannot be reached
+     * @spec.requires 0 <= source < size(), parent == null or parent.length == size()
+     * @spec.modifies parent
+     */
+    double[] distances(int source, boolean forward, int[] parent) {
+        int[] start = forward ? outStart : inStart;
+        int[] adjacent = forward ? outTo : inFrom;
+        double[] costs = forward ? outCost : inCost;
+        double[] dist = new double[nodes.size()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        if (parent != null) {
+            Arrays.fill(parent, -1);
+        }
+        dist[source] = 0;
+        NodeHeap heap = new NodeHeap();
+        heap.push(source, 0);
+        while (heap.size() > 0) {
+            double d = heap.minKey();
+            int v = heap.pop();
+            if (d > dist[v]) {
+                continue;
+            }
+            for (int i = start[v]; i < start[v + 1]; i++) {
+                double nd = d + costs[i];
+                if (nd < dist[adjacent[i]]) {
+                    dist[adjacent[i]] = nd;
+                    if (parent != null) {
+                        parent[adjacent[i]] = i;
+                    }
+                    heap.push(adjacent[i], nd);
+                }
+            }
+        }
+        return dist;
+    }
+}
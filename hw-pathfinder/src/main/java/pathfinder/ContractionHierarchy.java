@@ -0,0 +1,649 @@
+package pathfinder;
+
+import graph.LabeledDGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A ContractionHierarchy answers shortest path queries on a fixed graph with non-negative edge
+ * weights, doing most of the work once up front so that each query only looks at a small part of
+ * the graph.
+ * <p>
+ * While it is built, every node is given a rank, and the nodes are removed ("contracted") one at
+ * a time from the lowest rank up. Whenever removing a node v would make the graph lose the
+ * shortest path u -> v -> w between two of its remaining neighbours, a shortcut edge u -> w with
+ * the same cost is added. A query then runs Dijkstra's algorithm forward from the start and
+ * backward from the end at the same time, both only ever following edges toward higher ranks,
+ * and the two searches meet at the highest node on the shortest path. Shortcuts on the path found
+ * are unpacked back into the edges of the original graph.
+ * <p>
+ * The hierarchy is a snapshot: changes to the graph after it was built are not seen. A
+ * ContractionHierarchy is immutable, so it is safe to query from several threads at once.
+ *
+ * @param <T> the type of the nodes in the graph
+ */
+public class ContractionHierarchy<T> {
+
+    // Abstraction Function:
+    // AF(this) = the graph with nodes this.nodes, which has an edge nodes[from[e]] -> nodes[to[e]]
+    //            labeled cost[e] for every edge e with first[e] == -1. Every other edge e is a
+    //            shortcut that stands for edge first[e] followed by edge second[e].
+
+    // Representation Invariant:
+    // nodes != null, ids != null, and ids.get(nodes.get(i)) == i for every 0 <= i < nodes.size()
+    // rank is a permutation of 0 .. nodes.size() - 1
+    // from, to, cost, first and second all have the same length, and for every edge e:
+    //      cost[e] >= 0, and either first[e] == second[e] == -1, or from[first[e]] == from[e],
+    //      to[first[e]] == from[second[e]], to[second[e]] == to[e] and
+    //      cost[e] == cost[first[e]] + cost[second[e]]
+    // up[upStart[v] .. upStart[v + 1]) are the edges out of v to nodes of higher rank, and
+    // down[downStart[v] .. downStart[v + 1]) are the edges into v from nodes of higher rank
+
+    /**
+     * The most nodes a witness search may settle before giving up and adding the shortcut. A
+     * shortcut that was not needed does not make queries wrong, only a little slower.
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    /**
+     * The nodes of the graph, by id
+     */
+    private final ArrayList<T> nodes;
+
+    /**
+     * The id of every node of the graph
+     */
+    private final HashMap<T, Integer> ids;
+
+    /**
+     * The rank of every node, by id. Nodes are contracted in order of rank.
+     */
+    private final int[] rank;
+
+    /**
+     * The id of the node every edge leaves from
+     */
+    private final int[] from;
+
+    /**
+     * The id of the node every edge goes to
+     */
+    private final int[] to;
+
+    /**
+     * The cost of every edge
+     */
+    private final double[] cost;
+
+    /**
+     * The first half of every shortcut, or -1 for an edge of the original graph
+     */
+    private final int[] first;
+
+    /**
+     * The second half of every shortcut, or -1 for an edge of the original graph
+     */
+    private final int[] second;
+
+    /**
+     * Where the upward edges out of every node start in up
+     */
+    private final int[] upStart;
+
+    /**
+     * The edges out of every node to a node of higher rank, grouped by node
+     */
+    private final int[] up;
+
+    /**
+     * Where the downward edges into every node start in down
+     */
+    private final int[] downStart;
+
+    /**
+     * The edges into every node from a node of higher rank, grouped by node
+     */
+    private final int[] down;
+
+    /**
+     * Builds the hierarchy for the given graph. Where there are several edges from one node to
+     * another, only the cheapest is kept, and edges from a node to itself are ignored, since
+     * neither can be part of a shortest path.
+     *
+     * @param graph the graph to answer queries on
+     * @throws IllegalArgumentException if graph is null, or has a null, negative or NaN edge label
+     * @spec.effects constructs a ContractionHierarchy of graph
+     */
+    public ContractionHierarchy(LabeledDGraph<T, Double> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.nodes = new ArrayList<>(graph.getNodes());
+        this.ids = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ids.put(nodes.get(i), i);
+        }
+        Contraction contraction = new Contraction(nodes.size());
+        for (int u = 0; u < nodes.size(); u++) {
+            for (LabeledDGraph.Edge<T, Double> edge : graph.getChildren(nodes.get(u))) {
+                Double label = edge.getLabel();
+                if (label == null || !(label >= 0)) {
+                    throw new IllegalArgumentException("Edge labels must be non-negative numbers");
+                }
+                contraction.addEdge(u, ids.get(edge.getChild()), label, -1, -1);
+            }
+        }
+        contraction.run();
+        int count = contraction.edgeCount;
+        this.rank = contraction.rank;
+        this.from = Arrays.copyOf(contraction.from, count);
+        this.to = Arrays.copyOf(contraction.to, count);
+        this.cost = Arrays.copyOf(contraction.cost, count);
+        this.first = Arrays.copyOf(contraction.first, count);
+        this.second = Arrays.copyOf(contraction.second, count);
+        this.upStart = new int[nodes.size() + 1];
+        this.up = group(contraction.upward, upStart);
+        this.downStart = new int[nodes.size() + 1];
+        this.down = group(contraction.downward, downStart);
+        checkRep();
+    }
+
+    /**
+     * Flattens a list of edges per node into one array, recording where each node's edges start
+     *
+     * @param edges the edges of every node, by id
+     * @param start filled with where every node's edges start, and the total at the end
+     * @return the edges of every node, one node after another
+     * @spec.requires start.length == edges.size() + 1
+     * @spec.modifies start
+     */
+    private static int[] group(ArrayList<int[]> edges, int[] start) {
+        for (int v = 0; v < edges.size(); v++) {
+            start[v + 1] = start[v] + edges.get(v).length;
+        }
+        int[] flat = new int[start[edges.size()]];
+        for (int v = 0; v < edges.size(); v++) {
+            System.arraycopy(edges.get(v), 0, flat, start[v], edges.get(v).length);
+        }
+        return flat;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert (nodes != null) : "nodes == null";
+        assert (ids != null && ids.size() == nodes.size()) : "ids does not match nodes";
+        assert (rank.length == nodes.size()) : "rank does not match nodes";
+        assert (upStart[nodes.size()] == up.length) : "up does not match upStart";
+        assert (downStart[nodes.size()] == down.length) : "down does not match downStart";
+    }
+
+    /**
+     * Returns the number of nodes in the hierarchy
+     *
+     * @return the number of nodes in the graph this was built from
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of shortcuts that were added while building the hierarchy
+     *
+     * @return the number of shortcut edges
+     */
+    public int shortcutCount() {
+        int shortcuts = 0;
+        for (int e : first) {
+            if (e >= 0) {
+                shortcuts++;
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Finds the shortest path in terms of edge weight between 2 nodes. Like
+     * {@link DijkstraAlg#dijkstra}, the path found starts with a segment of cost 0 from start to
+     * itself, so the two can be used interchangeably.
+     *
+     * @param start the node the path starts at
+     * @param end the node the path ends at
+     * @return the shortest path from start to end, or null if either is not in the graph or
+     * there is no path between them
+     * @throws IllegalArgumentException if start or end are null
+     */
+    public Path<T> query(T start, T end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Start or end nodes cannot be null");
+        }
+        Integer s = ids.get(start);
+        Integer t = ids.get(end);
+        if (s == null || t == null) {
+            return null;
+        }
+        int n = nodes.size();
+        double[] distForward = new double[n];
+        double[] distBackward = new double[n];
+        Arrays.fill(distForward, Double.POSITIVE_INFINITY);
+        Arrays.fill(distBackward, Double.POSITIVE_INFINITY);
+        int[] parentForward = new int[n];
+        int[] parentBackward = new int[n];
+        NodeHeap forward = new NodeHeap();
+        NodeHeap backward = new NodeHeap();
+        distForward[s] = 0;
+        parentForward[s] = -1;
+        forward.push(s, 0);
+        distBackward[t] = 0;
+        parentBackward[t] = -1;
+        backward.push(t, 0);
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (true) {
+            // Neither search can improve on best once its next node is at least that far away
+            if (forward.size() > 0 && forward.minKey() >= best) {
+                forward.clear();
+            }
+            if (backward.size() > 0 && backward.minKey() >= best) {
+                backward.clear();
+            }
+            if (forward.size() == 0 && backward.size() == 0) {
+                break;
+            }
+            boolean isForward = backward.size() == 0
+                    || (forward.size() > 0 && forward.minKey() <= backward.minKey());
+            NodeHeap heap = isForward ? forward : backward;
+            double[] dist = isForward ? distForward : distBackward;
+            double[] other = isForward ? distBackward : distForward;
+            int[] parent = isForward ? parentForward : parentBackward;
+            double d = heap.minKey();
+            int v = heap.pop();
+            if (d > dist[v]) {
+                continue;
+            }
+            if (d + other[v] < best) {
+                best = d + other[v];
+                meet = v;
+            }
+            int[] edges = isForward ? up : down;
+            int[] edgeStart = isForward ? upStart : downStart;
+            for (int i = edgeStart[v]; i < edgeStart[v + 1]; i++) {
+                int e = edges[i];
+                int w = isForward ? to[e] : from[e];
+                double nd = d + cost[e];
+                if (nd < dist[w]) {
+                    dist[w] = nd;
+                    parent[w] = e;
+                    heap.push(w, nd);
+                    if (nd + other[w] < best) {
+                        best = nd + other[w];
+                        meet = w;
+                    }
+                }
+            }
+        }
+        if (meet < 0) {
+            return null;
+        }
+        // The edges from start up to meet, found backward, then the edges from meet down to end
+        ArrayList<Integer> route = new ArrayList<>();
+        for (int v = meet; parentForward[v] >= 0; v = from[parentForward[v]]) {
+            route.add(parentForward[v]);
+        }
+        Collections.reverse(route);
+        for (int v = meet; parentBackward[v] >= 0; v = to[parentBackward[v]]) {
+            route.add(parentBackward[v]);
+        }
+        Path<T> path = new Path<>(start).extend(start, 0);
+        int[] stack = new int[16];
+        for (int e : route) {
+            int top = 0;
+            stack[top++] = e;
+            while (top > 0) {
+                int next = stack[--top];
+                if (first[next] < 0) {
+                    path = path.extend(nodes.get(to[next]), cost[next]);
+                } else {
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = second[next];
+                    stack[top++] = first[next];
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * The working state used while building a hierarchy: the graph of the nodes that have not
+     * been contracted yet, including the shortcuts added so far, and every edge ever added.
+     */
+    private static class Contraction {
+
+        // This class does not represent an ADT.
+
+        /**
+         * The number of nodes in the graph
+         */
+        private final int n;
+
+        /**
+         * For every node not yet contracted, the cheapest edge to each other such node, by node
+         */
+        private final ArrayList<HashMap<Integer, Integer>> outgoing;
+
+        /**
+         * For every node not yet contracted, the cheapest edge from each other such node, by node
+         */
+        private final ArrayList<HashMap<Integer, Integer>> incoming;
+
+        /**
+         * For every contracted node, its edges to nodes contracted after it
+         */
+        private final ArrayList<int[]> upward;
+
+        /**
+         * For every contracted node, its edges from nodes contracted after it
+         */
+        private final ArrayList<int[]> downward;
+
+        /**
+         * The number of neighbours of every node that have already been contracted
+         */
+        private final int[] contractedNeighbours;
+
+        /**
+         * The rank every node was given, in order of contraction
+         */
+        private final int[] rank;
+
+        /**
+         * The distance from the source of the current witness search, by node
+         */
+        private final double[] witnessDist;
+
+        /**
+         * The nodes whose witnessDist has been set by the current witness search
+         */
+        private int[] touched;
+
+        /**
+         * The number of entries of touched in use
+         */
+        private int touchedCount;
+
+        /**
+         * The node every edge leaves from, with room to grow
+         */
+        private int[] from = new int[16];
+
+        /**
+         * The node every edge goes to, with room to grow
+         */
+        private int[] to = new int[16];
+
+        /**
+         * The cost of every edge, with room to grow
+         */
+        private double[] cost = new double[16];
+
+        /**
+         * The first half of every shortcut, or -1 for an original edge, with room to grow
+         */
+        private int[] first = new int[16];
+
+        /**
+         * The second half of every shortcut, or -1 for an original edge, with room to grow
+         */
+        private int[] second = new int[16];
+
+        /**
+         * The number of edges added so far
+         */
+        private int edgeCount = 0;
+
+        /**
+         * Creates the working state for a graph with n nodes and no edges
+         *
+         * @param n the number of nodes
+         */
+        private Contraction(int n) {
+            this.n = n;
+            this.outgoing = new ArrayList<>(n);
+            this.incoming = new ArrayList<>(n);
+            this.upward = new ArrayList<>(n);
+            this.downward = new ArrayList<>(n);
+            for (int v = 0; v < n; v++) {
+                outgoing.add(new HashMap<>());
+                incoming.add(new HashMap<>());
+                upward.add(null);
+                downward.add(null);
+            }
+            this.contractedNeighbours = new int[n];
+            this.rank = new int[n];
+            this.witnessDist = new double[n];
+            Arrays.fill(witnessDist, Double.POSITIVE_INFINITY);
+            this.touched = new int[16];
+        }
+
+        /**
+         * Adds an edge between two uncontracted nodes, unless there is already one between them
+         * that costs no more
+         *
+         * @param u the node the edge leaves from
+         * @param w the node the edge goes to
+         * @param c the cost of the edge
+         * @param a the first half of the shortcut, or -1 for an original edge
+         * @param b the second half of the shortcut, or -1 for an original edge
+         * @spec.modifies this
+         */
+        private void addEdge(int u, int w, double c, int a, int b) {
+            if (u == w) {
+                return;
+            }
+            Integer existing = outgoing.get(u).get(w);
+            if (existing != null && cost[existing] <= c) {
+                return;
+            }
+            if (edgeCount == from.length) {
+                int capacity = edgeCount * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                cost = Arrays.copyOf(cost, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+            }
+            from[edgeCount] = u;
+            to[edgeCount] = w;
+            cost[edgeCount] = c;
+            first[edgeCount] = a;
+            second[edgeCount] = b;
+            outgoing.get(u).put(w, edgeCount);
+            incoming.get(w).put(u, edgeCount);
+            edgeCount++;
+        }
+
+        /**
+         * Contracts every node, cheapest first, where a node's priority is the number of
+         * shortcuts contracting it would add, less the edges it would remove, plus the number of
+         * its neighbours already contracted, so that contraction spreads out over the graph
+         *
+         * @spec.modifies this
+         */
+        private void run() {
+            PriorityQueue<int[]> order = new PriorityQueue<>((o1, o2) -> o1[0] != o2[0]
+                    ? Integer.compare(o1[0], o2[0]) : Integer.compare(o1[1], o2[1]));
+            for (int v = 0; v < n; v++) {
+                order.add(new int[]{priority(v), v});
+            }
+            int next = 0;
+            while (!order.isEmpty()) {
+                int v = order.remove()[1];
+                // Priorities go stale as the graph changes, so only the head is brought up to date
+                int current = priority(v);
+                if (!order.isEmpty() && current > order.peek()[0]) {
+                    order.add(new int[]{current, v});
+                    continue;
+                }
+                contract(v, false);
+                rank[v] = next++;
+            }
+        }
+
+        /**
+         * Returns the priority of the given node, where the node with the lowest is contracted next
+         *
+         * @param v the node
+         * @return the priority of v
+         */
+        private int priority(int v) {
+            int removed = outgoing.get(v).size() + incoming.get(v).size();
+            return contract(v, true) - removed + contractedNeighbours[v];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract the given node, and unless simulate is set,
+         * adds them and contracts the node
+         *
+         * @param v the node to contract
+         * @param simulate whether to only count the shortcuts, leaving the graph unchanged
+         * @return the number of shortcuts contracting v needs
+         * @spec.modifies this, unless simulate is set
+         */
+        private int contract(int v, boolean simulate) {
+            HashMap<Integer, Integer> in = incoming.get(v);
+            HashMap<Integer, Integer> out = outgoing.get(v);
+            int shortcuts = 0;
+            for (Map.Entry<Integer, Integer> entry : in.entrySet()) {
+                int u = entry.getKey();
+                double toV = cost[entry.getValue()];
+                double limit = -1;
+                for (Map.Entry<Integer, Integer> outEntry : out.entrySet()) {
+                    if (outEntry.getKey() != u) {
+                        limit = Math.max(limit, toV + cost[outEntry.getValue()]);
+                    }
+                }
+                if (limit < 0) {
+                    continue;
+                }
+                witnessSearch(u, v, limit);
+                for (Map.Entry<Integer, Integer> outEntry : out.entrySet()) {
+                    int w = outEntry.getKey();
+                    double via = toV + cost[outEntry.getValue()];
+                    if (w == u || witnessDist[w] <= via) {
+                        continue;
+                    }
+                    shortcuts++;
+                    if (!simulate) {
+                        addEdge(u, w, via, entry.getValue(), outEntry.getValue());
+                    }
+                }
+                clearWitness();
+            }
+            if (!simulate) {
+                upward.set(v, values(out));
+                downward.set(v, values(in));
+                for (int w : out.keySet()) {
+                    incoming.get(w).remove(v);
+                    contractedNeighbours[w]++;
+                }
+                for (int u : in.keySet()) {
+                    outgoing.get(u).remove(v);
+                    contractedNeighbours[u]++;
+                }
+                outgoing.set(v, new HashMap<>());
+                incoming.set(v, new HashMap<>());
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from u over the uncontracted nodes other than v, until every
+         * node closer than limit is settled or the search has settled too many nodes
+         *
+         * @param u the node to search from
+         * @param v the node the search may not pass through
+         * @param limit the distance past which the search stops
+         * @spec.modifies witnessDist, touched
+         * @spec.effects witnessDist[w] is at least the distance from u to w avoiding v, and is
+         * exactly that for every w the search settled
+         */
+        private void witnessSearch(int u, int v, double limit) {
+            NodeHeap heap = new NodeHeap();
+            setWitness(u, 0);
+            heap.push(u, 0);
+            int settled = 0;
+            while (heap.size() > 0 && settled < WITNESS_SETTLE_LIMIT) {
+                double d = heap.minKey();
+                int x = heap.pop();
+                if (d > witnessDist[x]) {
+                    continue;
+                }
+                if (d > limit) {
+                    break;
+                }
+                settled++;
+                for (Map.Entry<Integer, Integer> entry : outgoing.get(x).entrySet()) {
+                    int y = entry.getKey();
+                    double nd = d + cost[entry.getValue()];
+                    if (y != v && nd < witnessDist[y]) {
+                        setWitness(y, nd);
+                        heap.push(y, nd);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Records a distance found by the current witness search
+         *
+         * @param x the node reached
+         * @param d the distance to x
+         * @spec.modifies witnessDist, touched
+         */
+        private void setWitness(int x, double d) {
+            if (witnessDist[x] == Double.POSITIVE_INFINITY) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                }
+                touched[touchedCount++] = x;
+            }
+            witnessDist[x] = d;
+        }
+
+        /**
+         * Forgets every distance found by the current witness search
+         *
+         * @spec.modifies witnessDist, touched
+         */
+        private void clearWitness() {
+            for (int i = 0; i < touchedCount; i++) {
+                witnessDist[touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            touchedCount = 0;
+        }
+
+        /**
+         * Returns the edges in the given map as an array
+         *
+         * @param edges the edges of a node, by neighbour
+         * @return a new array of the edges in edges
+         */
+        private static int[] values(HashMap<Integer, Integer> edges) {
+            int[] result = new int[edges.size()];
+            int i = 0;
+            for (int e : edges.values()) {
+                result[i++] = e;
+            }
+            return result;
+        }
+    }
+}
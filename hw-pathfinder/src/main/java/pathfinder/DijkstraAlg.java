@@ -3,13 +3,16 @@ package pathfinder;
 import graph.LabeledDGraph;
 import pathfinder.datastructures.Path;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.TreeSet;
 
 /**
  * This class is used to find the shortest path in terms of edge weight between 2 points using Dijkstra's algorithm.
- * The class contains 1 method, which is the algorithm itself, used to find the shortest path. The behavior of the
+ * The class contains the algorithm itself, used to find the shortest path, and a search for the k shortest paths,
+ * for when alternatives to the shortest are wanted. The behavior of the
  * algorithm is undefined in the case of 2 shortest paths with the same number of hops and the same weights.
  */
 public class DijkstraAlg {
@@ -35,22 +38,9 @@ public class DijkstraAlg {
             throw new IllegalArgumentException("Start or end nodes cannot be null");
         }
         if (graph.containsNode(start) && graph.containsNode(end)) {
-            PriorityQueue<Path<T>> active = new PriorityQueue<>((o1, o2) -> {
-                double o1Cost = 0.000;
-                double o2Cost = 0.000;
-                for (Path<T>.Segment node : o1) {
-                    o1Cost += node.getCost();
-                }
-                for (Path<T>.Segment node : o2) {
-                    o2Cost += node.getCost();
-                }
-                if (o1Cost > o2Cost) {
-                    return 1;
-                } else if (o1Cost < o2Cost) {
-                    return -1;
-                }
-                return 0;
-            });
+            // Paths keep their total cost, so there is no need to walk their segments to compare them
+            PriorityQueue<Path<T>> active = new PriorityQueue<>(
+                    (o1, o2) -> Double.compare(o1.getCost(), o2.getCost()));
             HashSet<T> finished = new HashSet<>();
             Path<T> self = new Path<>(start);
             active.add(self.extend(start, 0));
@@ -83,4 +73,59 @@ public class DijkstraAlg {
         }
         return null;
     }
+
+    /**
+     * Finds the k shortest paths in terms of edge weight between 2 given points in the graph that do not visit any
+     * point twice, using Yen's algorithm. Like the path returned by dijkstra, every path starts with a segment of cost
+     * 0 from start to itself.
+     *
+     * @param start the first point of every path
+     * @param end the last point of every path
+     * @param graph the graph in which the paths will be traced
+     * @param k the most paths to find
+     * @param <T> represents the type of point given and used in the paths
+     * @return a new list of up to k paths from start to end, shortest first, which has fewer than k paths only if
+     * there are no more, and is empty if there is no path or either point is not in the graph
+     * @throws IllegalArgumentException if graph, start or end are null, k is not positive, or graph has a null,
+     *                                  negative or NaN edge label
+     */
+    public static <T> List<Path<T>> kShortestPaths (T start, T end, LabeledDGraph<T, Double> graph, int k) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        return kShortestPaths(start, end, new CompactGraph<>(graph), k);
+    }
+
+    /**
+     * Finds the k shortest paths between 2 given points in a snapshot of a graph, as
+     * {@link #kShortestPaths(Object, Object, LabeledDGraph, int)} does
+     *
+     * @param start the first point of every path
+     * @param end the last point of every path
+     * @param graph the snapshot of the graph in which the paths will be traced
+     * @param k the most paths to find
+     * @param <T> represents the type of point given and used in the paths
+     * @return a new list of up to k paths from start to end, shortest first
+     * @throws IllegalArgumentException if start or end are null, or k is not positive
+     * @spec.requires graph != null
+     */
+    static <T> List<Path<T>> kShortestPaths (T start, T end, CompactGraph<T> graph, int k) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Start or end nodes cannot be null");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        List<Path<T>> paths = new ArrayList<>();
+        int source = graph.id(start);
+        int target = graph.id(end);
+        if (source < 0 || target < 0) {
+            return paths;
+        }
+        KShortestPaths<T> search = new KShortestPaths<>(graph, source, target);
+        for (int[] edges : search.find(k)) {
+            paths.add(search.toPath(edges));
+        }
+        return paths;
+    }
 }
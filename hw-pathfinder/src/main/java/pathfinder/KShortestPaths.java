@@ -0,0 +1,320 @@
+package pathfinder;
+
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Finds the k shortest paths without repeated nodes between 2 nodes of a graph, using Yen's
+ * algorithm. Each path after the first is found by taking a path already found, keeping some
+ * prefix of it (the root), and searching for the shortest way on (the spur) that leaves the
+ * root differently from every path found so far with the same root.
+ * <p>
+ * Two things keep this cheap. One backward search from the end is done up front, giving the
+ * exact distance from every node to the end in the whole graph. That gives the first path
+ * straight away, and since taking nodes and edges away can only make the end farther, it is
+ * also a lower bound that lets every spur search run as an A* search that heads almost straight
+ * for the end. A spur search is also cut off as soon as it cannot beat the candidates already
+ * waiting to be picked.
+ *
+ * @param <T> the type of the nodes in the graph
+ */
+final class KShortestPaths<T> {
+
+    // This class does not represent an ADT.
+
+    /**
+     * The graph being searched
+     */
+    private final CompactGraph<T> graph;
+
+    /**
+     * The id of the node the paths start at
+     */
+    private final int source;
+
+    /**
+     * The id of the node the paths end at
+     */
+    private final int target;
+
+    /**
+     * The distance from every node to the target in the whole graph
+     */
+    private final double[] toTarget;
+
+    /**
+     * The edge of the in arrays that every node's shortest path to the target leaves it by
+     */
+    private final int[] towardTarget;
+
+    /**
+     * The spur search that last banned each node, so no array needs clearing between searches
+     */
+    private final int[] bannedNode;
+
+    /**
+     * The spur search that last banned each edge
+     */
+    private final int[] bannedEdge;
+
+    /**
+     * The spur search that last reached each node; dist and parent are only valid for it
+     */
+    private final int[] reached;
+
+    /**
+     * The distance from the spur node to every node reached by the current spur search
+     */
+    private final double[] dist;
+
+    /**
+     * The edge every node reached by the current spur search was reached by
+     */
+    private final int[] parent;
+
+    /**
+     * The number of spur searches started so far
+     */
+    private int search = 0;
+
+    /**
+     * Prepares to find paths between the given nodes, running the backward search from end
+     *
+     * @param graph the graph to search
+     * @param source the id of the node the paths start at
+     * @param target the id of the node the paths end at
+     * @spec.requires graph != null, 0 <= source, target < graph.size()
+     */
+    KShortestPaths(CompactGraph<T> graph, int source, int target) {
+        this.graph = graph;
+        this.source = source;
+        this.target = target;
+        int n = graph.size();
+        this.towardTarget = new int[n];
+        this.toTarget = graph.distances(target, false, towardTarget);
+        this.bannedNode = new int[n];
+        this.bannedEdge = new int[graph.outTo.length];
+        this.reached = new int[n];
+        this.dist = new double[n];
+        this.parent = new int[n];
+    }
+
+    /**
+     * Finds up to k shortest paths without repeated nodes from the start to the end, shortest
+     * first. Paths that cost the same may come in any order.
+     *
+     * @param k the most paths to find
+     * @return a new list of the paths found, each given as the edges of the out arrays along it,
+     * which has fewer than k paths only if there are no more, and is empty if the end cannot be
+     * reached
+     * @spec.requires k > 0
+     */
+    List<int[]> find(int k) {
+        List<int[]> found = new ArrayList<>();
+        if (toTarget[source] == Double.POSITIVE_INFINITY) {
+            return found;
+        }
+        // The backward search already holds the shortest path, one edge per node from the start
+        ArrayList<Integer> first = new ArrayList<>();
+        for (int v = source; v != target; v = graph.outTo[graph.inEdge[towardTarget[v]]]) {
+            first.add(graph.inEdge[towardTarget[v]]);
+        }
+        found.add(toArray(first));
+        HashSet<List<Integer>> seen = new HashSet<>();
+        seen.add(first);
+        // Only the best k - found.size() candidates can ever be picked, so no more are kept
+        ArrayList<int[]> candidates = new ArrayList<>();
+        ArrayList<Double> candidateCosts = new ArrayList<>();
+        while (found.size() < k) {
+            int[] previous = found.get(found.size() - 1);
+            int needed = k - found.size();
+            double rootCost = 0;
+            for (int i = 0; i < previous.length; i++) {
+                int spur = i == 0 ? source : graph.outTo[previous[i - 1]];
+                search++;
+                // Leave the root differently from every path found with the same root
+                for (int[] path : found) {
+                    if (path.length > i && sharesPrefix(path, previous, i)) {
+                        bannedEdge[path[i]] = search;
+                    }
+                }
+                // Keep the path free of repeated nodes by not going back through the root
+                bannedNode[source] = search;
+                for (int j = 0; j < i; j++) {
+                    bannedNode[graph.outTo[previous[j]]] = search;
+                }
+                bannedNode[spur] = 0;
+                double cutoff = candidates.size() < needed
+                        ? Double.POSITIVE_INFINITY : max(candidateCosts) - rootCost;
+                int[] spurEdges = spurSearch(spur, cutoff);
+                if (spurEdges != null) {
+                    int[] candidate = Arrays.copyOf(previous, i + spurEdges.length);
+                    System.arraycopy(spurEdges, 0, candidate, i, spurEdges.length);
+                    if (seen.add(toList(candidate))) {
+                        candidates.add(candidate);
+                        candidateCosts.add(rootCost + dist[target]);
+                        if (candidates.size() > needed) {
+                            int worst = candidateCosts.indexOf(max(candidateCosts));
+                            candidates.remove(worst);
+                            candidateCosts.remove(worst);
+                        }
+                    }
+                }
+                rootCost += graph.outCost[previous[i]];
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            int best = candidateCosts.indexOf(min(candidateCosts));
+            candidateCosts.remove(best);
+            found.add(candidates.remove(best));
+        }
+        return found;
+    }
+
+    /**
+     * Runs an A* search from the given node to the target, avoiding the nodes and edges banned
+     * for the current search, guided by the distance to the target in the whole graph
+     *
+     * @param spur the node to search from
+     * @param cutoff the search gives up on paths costing this much or more
+     * @return the edges along the shortest path found from spur to the target, or null if there
+     * is none cheaper than cutoff
+     * @spec.modifies reached, dist, parent
+     */
+    private int[] spurSearch(int spur, double cutoff) {
+        if (toTarget[spur] >= cutoff) {
+            return null;
+        }
+        NodeHeap heap = new NodeHeap();
+        reached[spur] = search;
+        dist[spur] = 0;
+        parent[spur] = -1;
+        heap.push(spur, toTarget[spur]);
+        while (heap.size() > 0) {
+            double key = heap.minKey();
+            int v = heap.pop();
+            if (key >= cutoff) {
+                return null;
+            }
+            if (key > dist[v] + toTarget[v]) {
+                continue;
+            }
+            if (v == target) {
+                int length = 0;
+                for (int x = target; x != spur; x = graph.outFrom[parent[x]]) {
+                    length++;
+                }
+                int[] edges = new int[length];
+                for (int x = target, j = length - 1; x != spur; x = graph.outFrom[parent[x]], j--) {
+                    edges[j] = parent[x];
+                }
+                return edges;
+            }
+            for (int e = graph.outStart[v]; e < graph.outStart[v + 1]; e++) {
+                int w = graph.outTo[e];
+                if (bannedEdge[e] == search || bannedNode[w] == search
+                        || toTarget[w] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double nd = dist[v] + graph.outCost[e];
+                if (reached[w] != search || nd < dist[w]) {
+                    reached[w] = search;
+                    dist[w] = nd;
+                    parent[w] = e;
+                    heap.push(w, nd + toTarget[w]);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Turns a list of edges into a path between the nodes they join. Like
+     * {@link DijkstraAlg#dijkstra}, the path starts with a segment of cost 0 from the start to
+     * itself.
+     *
+     * @param edges the edges of the out arrays along the path, in order
+     * @return the path from the start along edges
+     */
+    Path<T> toPath(int[] edges) {
+        T start = graph.node(source);
+        Path<T> path = new Path<>(start).extend(start, 0);
+        for (int e : edges) {
+            path = path.extend(graph.node(graph.outTo[e]), graph.outCost[e]);
+        }
+        return path;
+    }
+
+    /**
+     * Returns whether two paths start with the same edges
+     *
+     * @param a the edges of one path
+     * @param b the edges of the other path
+     * @param length the number of edges to compare
+     * @return true iff the first length edges of a and b are the same
+     * @spec.requires a.length >= length, b.length >= length
+     */
+    private static boolean sharesPrefix(int[] a, int[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param values the values to search
+     * @return the largest of values
+     * @spec.requires !values.isEmpty()
+     */
+    private static double max(List<Double> values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    /**
+     * @param values the values to search
+     * @return the smallest of values
+     * @spec.requires !values.isEmpty()
+     */
+    private static double min(List<Double> values) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    /**
+     * @param values the values to copy
+     * @return a new array of values, in order
+     */
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @param values the values to copy
+     * @return a new list of values, in order
+     */
+    private static List<Integer> toList(int[] values) {
+        List<Integer> result = new ArrayList<>(values.length);
+        for (int value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,187 @@
+package pathfinder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A LruCache remembers a bounded number of computed values by key, and once it is full, forgets
+ * the value that was used least recently to make room for a new one. It keeps count of how many
+ * lookups were answered from the cache and how many values had to be forgotten, so that its size
+ * can be tuned.
+ * <p>
+ * Values are only added and looked up by the classes of this package; anyone may read the counts.
+ * A LruCache is safe to use from several threads at once.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @spec.specfield entries: map from K to V // the values remembered, by key
+ * @spec.specfield hits: long // the number of lookups that found a value
+ * @spec.specfield misses: long // the number of lookups that found no value
+ * @spec.specfield evictions: long // the number of values forgotten to make room for others
+ */
+public class LruCache<K, V> {
+
+    // Representation Invariant:
+    // entries != null, 0 <= entries.size() <= capacity, entries has no null keys or values,
+    // hits >= 0, misses >= 0, evictions >= 0
+
+    // Abstraction Function:
+    // AF(this) = a cache remembering entries, in order from least to most recently used, which
+    //            has answered hits lookups, missed misses lookups and forgotten evictions values
+
+    /**
+     * The most values the cache remembers at once
+     */
+    private final int capacity;
+
+    /**
+     * The values remembered, in order from least to most recently used
+     */
+    private final LinkedHashMap<K, V> entries;
+
+    /**
+     * The number of lookups that found a value
+     */
+    private long hits = 0;
+
+    /**
+     * The number of lookups that found no value
+     */
+    private long misses = 0;
+
+    /**
+     * The number of values forgotten to make room for others
+     */
+    private long evictions = 0;
+
+    /**
+     * Creates an empty cache
+     *
+     * @param capacity the most values the cache may remember at once, where 0 remembers none
+     * @throws IllegalArgumentException if capacity is negative
+     * @spec.effects constructs an empty LruCache
+     */
+    public LruCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert (entries != null) : "entries == null";
+        assert (entries.size() <= capacity) : "entries.size() > capacity";
+        assert (hits >= 0 && misses >= 0 && evictions >= 0) : "negative count";
+    }
+
+    /**
+     * Looks up the value for the given key, marking it as the most recently used
+     *
+     * @param key the key to look up
+     * @return the value remembered for key, or null if there is none
+     * @spec.requires key != null
+     * @spec.modifies this
+     * @spec.effects increments hits if a value was found, and misses if not
+     */
+    synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Remembers the value for the given key as the most recently used, forgetting the least
+     * recently used value if the cache is full
+     *
+     * @param key the key to remember the value for
+     * @param value the value to remember
+     * @spec.requires key != null, value != null
+     * @spec.modifies this
+     * @spec.effects entries[key] = value, and evictions is incremented if a value was forgotten
+     */
+    synchronized void put(K key, V value) {
+        if (capacity > 0) {
+            entries.put(key, value);
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the most values the cache remembers at once
+     *
+     * @return the capacity of the cache
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of values remembered
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a value
+     *
+     * @return hits
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no value
+     *
+     * @return misses
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of values forgotten to make room for others
+     *
+     * @return evictions
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of lookups that found a value
+     *
+     * @return hits / (hits + misses), or 0 if there have been no lookups
+     */
+    public synchronized double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses, %d evictions",
+                entries.size(), capacity, hits, misses, evictions);
+    }
+}
@@ -0,0 +1,111 @@
+package pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of node ids keyed by distance. A node may be pushed again with a smaller
+ * key instead of being moved, so searches skip entries whose key is larger than the node's
+ * current distance.
+ */
+class NodeHeap {
+
+    // This class does not represent an ADT.
+
+    /**
+     * The nodes in the heap, in heap order
+     */
+    private int[] heapNodes = new int[16];
+
+    /**
+     * The key of every entry in heapNodes
+     */
+    private double[] keys = new double[16];
+
+    /**
+     * The number of entries in the heap
+     */
+    private int size = 0;
+
+    /**
+     * @return the number of entries in the heap
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the smallest key in the heap
+     * @spec.requires size() > 0
+     */
+    double minKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes every entry from the heap
+     *
+     * @spec.modifies this
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a node to the heap
+     *
+     * @param node the node to add
+     * @param key the key of the node
+     * @spec.modifies this
+     */
+    void push(int node, double key) {
+        if (size == keys.length) {
+            heapNodes = Arrays.copyOf(heapNodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            heapNodes[i] = heapNodes[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        heapNodes[i] = node;
+        keys[i] = key;
+    }
+
+    /**
+     * Removes the entry with the smallest key from the heap
+     *
+     * @return the node of the entry removed
+     * @spec.requires size() > 0
+     * @spec.modifies this
+     */
+    int pop() {
+        int result = heapNodes[0];
+        size--;
+        int node = heapNodes[size];
+        double key = keys[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            heapNodes[i] = heapNodes[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        heapNodes[i] = node;
+        keys[i] = key;
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+package pathfinder;
+
+import graph.LabeledDGraph;
+import pathfinder.datastructures.Path;
+
+/**
+ * A ShortestPathTree holds the shortest paths from one start node to every node of a graph that
+ * can be reached from it, found by running Dijkstra's algorithm once to completion. It only
+ * stores, for every node, the distance from the start and the edge the shortest path arrives by,
+ * so the path to any node is pulled out by following those edges back to the start, in time
+ * proportional to the length of the path.
+ * <p>
+ * A tree answers any number of queries from its start without searching again, so it is worth
+ * keeping when many routes share a start. It is immutable, so it is safe to query from several
+ * threads at once.
+ *
+ * @param <T> the type of the nodes in the graph
+ * @spec.specfield start: T // the node every path in the tree starts at
+ */
+public class ShortestPathTree<T> {
+
+    // Abstraction Function:
+    // AF(this) = the tree whose root is graph.node(source), in which the parent of every other
+    //            node v with dist[v] < infinity is graph.node(graph.outFrom[parent[v]]), reached
+    //            by the edge graph.outTo[parent[v]] of cost graph.outCost[parent[v]]
+
+    // Representation Invariant:
+    // graph != null, 0 <= source < graph.size(), dist.length == parent.length == graph.size(),
+    // dist[source] == 0 and parent[source] == -1, and for every other node v, either
+    // dist[v] == infinity and parent[v] == -1, or graph.outTo[parent[v]] == v and
+    // dist[v] == dist[graph.outFrom[parent[v]]] + graph.outCost[parent[v]]
+
+    /**
+     * The graph the tree was found in
+     */
+    private final CompactGraph<T> graph;
+
+    /**
+     * The id of the start node
+     */
+    private final int source;
+
+    /**
+     * The distance from the start to every node, or infinity if it cannot be reached
+     */
+    private final double[] dist;
+
+    /**
+     * The edge the shortest path to every node arrives by, or -1 for the start and for nodes that
+     * cannot be reached
+     */
+    private final int[] parent;
+
+    /**
+     * Finds the shortest paths from the given node to every node of the given graph
+     *
+     * @param graph the graph to search
+     * @param start the node the paths start at
+     * @throws IllegalArgumentException if graph or start are null, start is not in graph, or graph
+     *                                  has a null, negative or NaN edge label
+     * @spec.effects constructs a ShortestPathTree with this.start = start
+     */
+    public ShortestPathTree(LabeledDGraph<T, Double> graph, T start) {
+        this(new CompactGraph<>(graph), start);
+    }
+
+    /**
+     * Finds the shortest paths from the given node to every node of the given snapshot of a graph
+     *
+     * @param graph the snapshot of the graph to search
+     * @param start the node the paths start at
+     * @throws IllegalArgumentException if start is null or not in graph
+     * @spec.requires graph != null
+     * @spec.effects constructs a ShortestPathTree with this.start = start
+     */
+    ShortestPathTree(CompactGraph<T> graph, T start) {
+        if (start == null) {
+            throw new IllegalArgumentException("Start node cannot be null");
+        }
+        this.graph = graph;
+        this.source = graph.id(start);
+        if (source < 0) {
+            throw new IllegalArgumentException("Start node is not in the graph");
+        }
+        this.parent = new int[graph.size()];
+        this.dist = graph.distances(source, true, parent);
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated
+     */
+    private void checkRep() {
+        assert (graph != null) : "graph == null";
+        assert (dist.length == graph.size() && parent.length == graph.size()) : "arrays do not match graph";
+        assert (dist[source] == 0 && parent[source] == -1) : "start is not the root";
+    }
+
+    /**
+     * Returns the node every path in the tree starts at
+     *
+     * @return this.start
+     */
+    public T getStart() {
+        return graph.node(source);
+    }
+
+    /**
+     * Returns the length of the shortest path from the start to the given node
+     *
+     * @param end the node the path ends at
+     * @return the total cost of the shortest path from start to end, or infinity if end cannot
+     * be reached or is not in the graph
+     * @throws IllegalArgumentException if end is null
+     */
+    public double distanceTo(T end) {
+        if (end == null) {
+            throw new IllegalArgumentException("End node cannot be null");
+        }
+        int t = graph.id(end);
+        return t < 0 ? Double.POSITIVE_INFINITY : dist[t];
+    }
+
+    /**
+     * Returns the shortest path from the start to the given node. Like {@link DijkstraAlg#dijkstra},
+     * the path starts with a segment of cost 0 from the start to itself.
+     *
+     * @param end the node the path ends at
+     * @return the shortest path from start to end, or null if end cannot be reached or is not in
+     * the graph
+     * @throws IllegalArgumentException if end is null
+     */
+    public Path<T> pathTo(T end) {
+        if (end == null) {
+            throw new IllegalArgumentException("End node cannot be null");
+        }
+        int t = graph.id(end);
+        if (t < 0 || dist[t] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        int length = 0;
+        for (int v = t; v != source; v = graph.outFrom[parent[v]]) {
+            length++;
+        }
+        // The edges along the path, in order, found from the end back to the start
+        int[] edges = new int[length];
+        for (int v = t, i = length - 1; v != source; v = graph.outFrom[parent[v]], i--) {
+            edges[i] = parent[v];
+        }
+        T start = graph.node(source);
+        Path<T> path = new Path<>(start).extend(start, 0);
+        for (int e : edges) {
+            path = path.extend(graph.node(graph.outTo[e]), graph.outCost[e]);
+        }
+        return path;
+    }
+}
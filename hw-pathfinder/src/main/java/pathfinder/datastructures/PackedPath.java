@@ -0,0 +1,286 @@
+package pathfinder.datastructures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This represents an immutable, finished path between points, stored compactly as an array of
+ * its points and an array of segment costs instead of one object per segment. A PackedPath is a
+ * {@code Path<Point>} and can be used anywhere one is expected, but it is meant for routes that
+ * are kept around, such as cached results: its segments are only turned into
+ * {@link Path.Segment} objects while they are being iterated over, and {@link #cursor()} walks
+ * them without creating any objects.
+ * <p>
+ * The points are kept as the very Point objects the path was packed from, so that
+ * {@link #getEnd()}, {@link #getPoint(int)} and iteration hand back the same, possibly interned,
+ * instances instead of new copies, and a route through pooled points adds only a reference and
+ * a cost per step.
+ * <p>
+ * Extending a PackedPath gives an ordinary linked path that shares this one as its prefix.
+ */
+public final class PackedPath extends Path<Point> {
+
+    // AF(this) =
+    //      first point in the path => points[0]
+    //      the i-th step along the path => the segment from points[i] to points[i + 1]
+    //          costing costs[i], for 0 <= i < costs.length
+    //      total cost along the path => cost
+
+    // Rep Invariant:
+    //      points != null && costs != null &&
+    //      points.length == costs.length + 1 &&
+    //      for every i, points[i] != null &&
+    //      every element of costs is finite &&
+    //      cost >= 0 && Double.isFinite(cost)
+
+    /**
+     * Every point along the path, starting with the start point.
+     */
+    private final Point[] points;
+
+    /**
+     * The cost of every segment along the path.
+     */
+    private final double[] costs;
+
+    /**
+     * The total cost along the path.
+     */
+    private final double cost;
+
+    /**
+     * Creates a packed path from arrays that already satisfy the rep invariant.
+     *
+     * @param points Every point along the path.
+     * @param costs  The cost of every segment along the path.
+     * @param cost   The total cost along the path.
+     */
+    private PackedPath(Point[] points, double[] costs, double cost) {
+        super(points[0]);
+        this.points = points;
+        this.costs = costs;
+        this.cost = cost;
+        checkRep();
+    }
+
+    /**
+     * Creates a packed copy of the given path, with the same segments and total cost.
+     *
+     * @param path The path to pack.
+     * @return A PackedPath equal to {@code path}, or {@code path} itself if it is already packed.
+     * @throws NullPointerException if path is null.
+     */
+    public static PackedPath of(Path<Point> path) {
+        if(path instanceof PackedPath) {
+            return (PackedPath) path;
+        }
+        int n = path.size();
+        Point[] points = new Point[n + 1];
+        double[] costs = new double[n];
+        points[0] = path.getStart();
+        int i = 0;
+        for(Path<Point>.Segment segment : path) {
+            costs[i] = segment.getCost();
+            i++;
+            points[i] = segment.getEnd();
+        }
+        return new PackedPath(points, costs, path.getCost());
+    }
+
+    @Override
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public Point getEnd() {
+        return points[costs.length];
+    }
+
+    @Override
+    public int size() {
+        return costs.length;
+    }
+
+    /**
+     * @param i The index of a point along this path, where 0 is the start.
+     * @return The i-th point along this path, the same instance the path was packed from.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size(), inclusive.
+     */
+    public Point getPoint(int i) {
+        return points[i];
+    }
+
+    /**
+     * @param i The index of a point along this path, where 0 is the start.
+     * @return The x coordinate of the i-th point along this path.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size(), inclusive.
+     */
+    public double getX(int i) {
+        return points[i].getX();
+    }
+
+    /**
+     * @param i The index of a point along this path, where 0 is the start.
+     * @return The y coordinate of the i-th point along this path.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size(), inclusive.
+     */
+    public double getY(int i) {
+        return points[i].getY();
+    }
+
+    /**
+     * @param i The index of a segment along this path, where 0 is the first.
+     * @return The cost of the i-th segment along this path.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1, inclusive.
+     */
+    public double getSegmentCost(int i) {
+        return costs[i];
+    }
+
+    /**
+     * @return A new cursor positioned before the first segment of this path.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return An iterator of the segments in this path, in order. Each segment is created as
+     * the iterator reaches it, from the points the path was packed from. This iterator does not
+     * support Iterator#remove().
+     */
+    @Override
+    public Iterator<Path<Point>.Segment> iterator() {
+        return new Iterator<Path<Point>.Segment>() {
+
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < costs.length;
+            }
+
+            @Override
+            public Path<Point>.Segment next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int i = next++;
+                return new Segment(points[i], points[i + 1], costs[i]);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Paths may not be modified.");
+            }
+        };
+    }
+
+    /**
+     * Ensures that the representation invariant has not been violated. Returns normally if
+     * there is no violation.
+     */
+    private void checkRep() {
+        assert points != null && costs != null;
+        assert points.length == costs.length + 1;
+        assert cost >= 0;
+        assert Double.isFinite(cost);
+    }
+
+    /**
+     * A Cursor walks the segments of a PackedPath one at a time without creating any objects.
+     * Call {@link #next()} to move to the next segment, then read that segment's end points and
+     * cost from the cursor. A cursor can be rewound with {@link #reset()} and used again.
+     */
+    public final class Cursor {
+
+        // AF(this) = the segment of the enclosing path at index, or no segment if
+        //            index == -1 (before the first) or index == size() (after the last)
+        // Rep. Invariant = -1 <= index <= costs.length
+
+        /**
+         * The index of the current segment.
+         */
+        private int index = -1;
+
+        /**
+         * Creates a cursor positioned before the first segment.
+         */
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next segment, if there is one.
+         *
+         * @return {@literal true} if the cursor is now on a segment, or {@literal false} if it
+         * has moved past the last one.
+         */
+        public boolean next() {
+            if(index < costs.length) {
+                index++;
+            }
+            return index < costs.length;
+        }
+
+        /**
+         * Moves back to before the first segment, so the path can be walked again.
+         */
+        public void reset() {
+            index = -1;
+        }
+
+        /**
+         * @return The index of the current segment, where 0 is the first.
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * @return The x coordinate of the start of the current segment.
+         */
+        public double startX() {
+            return points[checkIndex()].getX();
+        }
+
+        /**
+         * @return The y coordinate of the start of the current segment.
+         */
+        public double startY() {
+            return points[checkIndex()].getY();
+        }
+
+        /**
+         * @return The x coordinate of the end of the current segment.
+         */
+        public double endX() {
+            return points[checkIndex() + 1].getX();
+        }
+
+        /**
+         * @return The y coordinate of the end of the current segment.
+         */
+        public double endY() {
+            return points[checkIndex() + 1].getY();
+        }
+
+        /**
+         * @return The cost of the current segment.
+         */
+        public double cost() {
+            return costs[checkIndex()];
+        }
+
+        /**
+         * @return The index of the current segment.
+         * @throws NoSuchElementException if the cursor is not on a segment.
+         */
+        private int checkIndex() {
+            if(index < 0 || index >= costs.length) {
+                throw new NoSuchElementException("The cursor is not on a segment.");
+            }
+            return index;
+        }
+    }
+}
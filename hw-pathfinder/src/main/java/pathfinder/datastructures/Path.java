@@ -12,6 +12,7 @@
 package pathfinder.datastructures;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -20,6 +21,13 @@ import java.util.List;
  * Path#getStart() and Path#getEnd(). Also contains a cached
  * version of the total cost along this path, for efficient repeated access.
  * This class is generic over the type of data that it represents as connecting points
+ * <p>
+ * Paths are persistent: a path made by {@link #extend(Object, double)} shares every segment but
+ * the last with the path it was extended from, so extending a path takes constant time and space
+ * no matter how long it is. The segments are only gathered into a list once something asks to
+ * iterate over them or compare them. A subclass such as {@link PackedPath} may instead store its
+ * segments itself, by overriding {@link #size()}, {@link #getCost()}, {@link #getEnd()} and
+ * {@link #iterator()}.
  *
  * @param <T> represents the data type of the points in the path
  */
@@ -28,9 +36,8 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
 
     // AF(this) =
     //      first point in the path => start
-    //      each "step" along the path between points => elements of list path, where
-    //          path.get(0) is the first step from the start point to an intermediate point, and
-    //          path.get(path.size() - 1) is the final step from an intermediate point to the end
+    //      each "step" along the path between points => the segments of prefix, in order,
+    //          followed by last, where an empty path (prefix == null) has no steps
     //      total cost along the path => cost
     //      the destination point in this path, opposite the start point => getEnd()
 
@@ -38,23 +45,41 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
     //      cost >= 0 &&
     //      Double.isFinite(cost) &&
     //      start != null &&
-    //      path != null &&
-    //      path does not contain null elements
+    //      (prefix == null) == (last == null) &&
+    //      prefix == null ==> size == 0 &&
+    //      prefix != null ==> (size == prefix.size + 1 && start == prefix.start &&
+    //                          last.getStart().equals(prefix.getEnd())) &&
+    //      segments is null or the steps of this path in order
 
     /**
      * The total cost along all the segments in this path.
      */
-    private double cost;
+    private final double cost;
 
     /**
      * The point at the beginning of this path.
      */
-    private T start;
+    private final T start;
 
     /**
-     * The ordered sequence of segments representing a path between points.
+     * The path that this path was extended from, or null if this path has no segments.
      */
-    private List<Segment> path;
+    private final Path<T> prefix;
+
+    /**
+     * The final segment of this path, or null if this path has no segments.
+     */
+    private final Segment last;
+
+    /**
+     * The number of segments in this path.
+     */
+    private final int size;
+
+    /**
+     * The segments of this path in order, gathered the first time they are needed.
+     */
+    private volatile List<Segment> segments;
 
     /**
      * Creates a new, empty path containing a start point. Essentially this represents a path
@@ -65,7 +90,24 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
     public Path(T start) {
         this.start = start;
         this.cost = 0;
-        this.path = new ArrayList<>();
+        this.prefix = null;
+        this.last = null;
+        this.size = 0;
+        checkRep();
+    }
+
+    /**
+     * Creates a new path made of the given path followed by one more segment.
+     *
+     * @param prefix The path being extended.
+     * @param last   The segment being appended to the end of prefix.
+     */
+    private Path(Path<T> prefix, Segment last) {
+        this.start = prefix.start;
+        this.cost = prefix.getCost() + last.getCost();
+        this.prefix = prefix;
+        this.last = last;
+        this.size = prefix.size() + 1;
         checkRep();
     }
 
@@ -82,13 +124,8 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
      */
     public Path<T> extend(T newEnd, double segmentCost) {
         checkRep();
-        //
-        Path<T> extendedPath = new Path<>(start);
-        extendedPath.path.addAll(this.path);
-        extendedPath.path.add(new Segment(this.getEnd(), newEnd, segmentCost));
-        extendedPath.cost = this.cost + segmentCost;
-        //
-        extendedPath.checkRep();
+        // The new path points back at this one rather than copying its segments
+        Path<T> extendedPath = new Path<>(this, new Segment(this.getEnd(), newEnd, segmentCost));
         checkRep();
         //
         return extendedPath;
@@ -113,10 +150,17 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
      * contains no segments (i.e. this path is from the start point to itself).
      */
     public T getEnd() {
-        if(path.size() == 0) {
+        if(last == null) {
             return start;
         }
-        return path.get(path.size() - 1).getEnd();
+        return last.getEnd();
+    }
+
+    /**
+     * @return The number of segments in this path.
+     */
+    public int size() {
+        return size;
     }
 
     /**
@@ -131,7 +175,7 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
         // Create a wrapping iterator to guarantee exceptional behavior on Iterator#remove.
         return new Iterator<Segment>() {
 
-            private Iterator<Segment> backingIterator = path.iterator();
+            private Iterator<Segment> backingIterator = segments().iterator();
 
             @Override
             public boolean hasNext() {
@@ -150,17 +194,56 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
         };
     }
 
+    /**
+     * Returns the segments of this path in order, walking back through the shared prefixes and
+     * gathering them into a list the first time this is called.
+     *
+     * @return An unmodifiable list of the segments of this path, in order.
+     */
+    private List<Segment> segments() {
+        List<Segment> result = segments;
+        if(result == null) {
+            ArrayList<Segment> gathered = new ArrayList<>(size());
+            Path<T> p = this;
+            for(; p.last != null; p = p.prefix) {
+                gathered.add(p.last);
+            }
+            Collections.reverse(gathered);
+            if(p.size() > 0) {
+                // The oldest path stores its own segments, as a PackedPath does
+                ArrayList<Segment> rootFirst = new ArrayList<>(size());
+                for(Segment segment : p) {
+                    rootFirst.add(segment);
+                }
+                rootFirst.addAll(gathered);
+                gathered = rootFirst;
+            }
+            result = Collections.unmodifiableList(gathered);
+            if(p == this && size() > 0) {
+                // Caching here would undo the point of a compact subclass, so don't
+                return result;
+            }
+            segments = result;
+        }
+        return result;
+    }
+
     /**
      * Ensures that the representation invariant has not been violated. Returns normally if
-     * there is no violation.
+     * there is no violation. Only the newest segment is checked, since the rest of the path is
+     * shared with the prefix, which was checked when it was made.
      */
     private void checkRep() {
         assert cost >= 0;
         assert Double.isFinite(cost);
         assert start != null;
-        assert path != null;
-        for(Segment segment : path) {
-            assert segment != null;
+        assert (prefix == null) == (last == null);
+        if(prefix == null) {
+            assert size == 0;
+        } else {
+            assert size == prefix.size() + 1;
+            assert start == prefix.start;
+            assert last.getStart().equals(prefix.getEnd());
         }
     }
 
@@ -181,30 +264,25 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
             return false;
         }
         Path<?> other = (Path<?>) obj;
-        if(this.path.size() != other.path.size()) {
+        if(this.size() != other.size()) {
             return false;
         }
-        if(this.path.size() == 0 && !this.start.equals(other.start)) {
+        if(this.size() == 0 && !this.start.equals(other.start)) {
             return false;
         }
-        for(int i = 0; i < this.path.size(); i++) {
-            if(!this.path.get(i).equals(other.path.get(i))) {
-                return false;
-            }
-        }
-        return true;
+        return this.segments().equals(other.segments());
     }
 
     @Override
     public int hashCode() {
-        return (31 * start.hashCode()) + path.hashCode();
+        return (31 * start.hashCode()) + segments().hashCode();
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(start.toString());
-        for(Segment segment : path) {
+        for(Segment segment : segments()) {
             sb.append(" =(");
             sb.append(String.format("%.3f", segment.getCost()));
             sb.append(")=> ");
@@ -245,7 +323,8 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
         private final double cost;
 
         /**
-         * Constructs a new segment with the provided characteristics.
+         * Constructs a new segment with the provided characteristics. Only paths in this
+         * package may create segments.
          *
          * @param start The starting point of this segment.
          * @param end   The ending point of this segment.
@@ -253,7 +332,7 @@ public class Path<T> implements Iterable<Path<T>.Segment> {
          * @throws NullPointerException     if either point is null.
          * @throws IllegalArgumentException if cost is infinite or NaN
          */
-        private Segment(T start, T end, double cost) {
+        Segment(T start, T end, double cost) {
             if(start == null || end == null) {
                 throw new NullPointerException("Segments cannot have null points.");
             }
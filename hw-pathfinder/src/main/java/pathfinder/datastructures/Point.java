@@ -12,7 +12,9 @@
 package pathfinder.datastructures;
 
 /**
- * Represents an immutable cartesian coordinate point.
+ * Represents an immutable cartesian coordinate point. Points that are kept around in bulk, such
+ * as the nodes of a graph, can be shared through a {@link PointPool} so that each location is
+ * represented by a single Point.
  */
 public class Point {
 
@@ -35,6 +37,12 @@ public class Point {
      */
     private final double y;
 
+    /**
+     * The hash code of this point, computed once since points are used as keys in large maps.
+     * It is transient so that it is not part of the JSON sent for a point.
+     */
+    private final transient int hash;
+
     /**
      * Constructs a new ordered pair using the provided coordinates. Neither coordinate
      * may be NaN or infinite.
@@ -49,6 +57,7 @@ public class Point {
         }
         this.x = x;
         this.y = y;
+        this.hash = (31 * Double.hashCode(x)) + Double.hashCode(y);
         // checkRep not necessary, the representation fields are final and immutable.
     }
 
@@ -73,11 +82,16 @@ public class Point {
      */
     @Override
     public boolean equals(Object obj) {
+        if(this == obj) {
+            // Pooled points are usually compared against themselves
+            return true;
+        }
         if(!(obj instanceof Point)) {
             return false;
         }
         Point other = (Point) obj;
-        return (Double.compare(this.x, other.x) == 0) && (Double.compare(this.y, other.y) == 0);
+        return (this.hash == other.hash)
+               && (Double.compare(this.x, other.x) == 0) && (Double.compare(this.y, other.y) == 0);
     }
 
     @Override
@@ -87,6 +101,6 @@ public class Point {
 
     @Override
     public int hashCode() {
-        return (31 * Double.hashCode(x)) + Double.hashCode(y);
+        return hash;
     }
 }
@@ -0,0 +1,220 @@
+package pathfinder.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents an immutable spatial index over a fixed set of points, which can find the point
+ * closest to any location, or every point within some distance of it, without looking at every
+ * point. The index is a 2-d tree: the points are stored in one array, where the middle point of
+ * each range splits the rest of that range in half by x or by y, alternating with depth, so
+ * both queries take time logarithmic in the number of points for typical inputs.
+ *
+ * @spec.specfield points: set of Point // the points that can be found through this index
+ */
+public class PointIndex {
+
+    // AF(this) = the set of points in tree
+    //
+    // Rep Invariant:
+    //      tree != null && tree does not contain null elements &&
+    //      for every range [lo, hi) of tree reached from [0, tree.length) by splitting at
+    //          mid = (lo + hi) / 2, at depth d, every point in [lo, mid) has a coordinate no
+    //          greater than tree[mid]'s, and every point in (mid, hi) has a coordinate no less,
+    //          where the coordinate is x for even d and y for odd d
+
+    /**
+     * Orders points by their x coordinate.
+     */
+    private static final Comparator<Point> BY_X = Comparator.comparingDouble(Point::getX);
+
+    /**
+     * Orders points by their y coordinate.
+     */
+    private static final Comparator<Point> BY_Y = Comparator.comparingDouble(Point::getY);
+
+    /**
+     * The points in this index, laid out as an implicit 2-d tree.
+     */
+    private final Point[] tree;
+
+    /**
+     * Creates an index over the given points. Equal points are kept only once.
+     *
+     * @param points The points to index.
+     * @throws IllegalArgumentException if points is null or contains null.
+     */
+    public PointIndex(Collection<Point> points) {
+        if(points == null) {
+            throw new IllegalArgumentException("Points cannot be null.");
+        }
+        this.tree = points.stream().distinct().toArray(Point[]::new);
+        for(Point p : tree) {
+            if(p == null) {
+                throw new IllegalArgumentException("Points cannot be null.");
+            }
+        }
+        build(0, tree.length, true);
+        checkRep();
+    }
+
+    /**
+     * Arranges the given range of the tree so that its middle point splits the rest of it by
+     * the given coordinate, then does the same for each half with the other coordinate.
+     *
+     * @param lo     The first index of the range.
+     * @param hi     One past the last index of the range.
+     * @param splitX Whether this range is split by x, rather than by y.
+     */
+    private void build(int lo, int hi, boolean splitX) {
+        if(hi - lo <= 1) {
+            return;
+        }
+        Arrays.sort(tree, lo, hi, splitX ? BY_X : BY_Y);
+        int mid = (lo + hi) >>> 1;
+        build(lo, mid, !splitX);
+        build(mid + 1, hi, !splitX);
+    }
+
+    /**
+     * @return The number of points in this index.
+     */
+    public int size() {
+        return tree.length;
+    }
+
+    /**
+     * Finds the indexed point closest to the given location. If several points are equally
+     * close, any one of them may be returned.
+     *
+     * @param x The x coordinate of the location.
+     * @param y The y coordinate of the location.
+     * @return The point closest to (x, y), or {@literal null} if this index is empty.
+     */
+    public Point nearest(double x, double y) {
+        Nearest best = new Nearest();
+        nearest(0, tree.length, true, x, y, best);
+        return best.point;
+    }
+
+    /**
+     * Searches the given range of the tree for a point closer to (x, y) than the best so far,
+     * skipping any half that cannot hold one.
+     *
+     * @param lo     The first index of the range.
+     * @param hi     One past the last index of the range.
+     * @param splitX Whether this range is split by x, rather than by y.
+     * @param x      The x coordinate of the location.
+     * @param y      The y coordinate of the location.
+     * @param best   The closest point found so far, updated in place.
+     */
+    private void nearest(int lo, int hi, boolean splitX, double x, double y, Nearest best) {
+        if(lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        Point p = tree[mid];
+        double dx = x - p.getX();
+        double dy = y - p.getY();
+        double dist2 = dx * dx + dy * dy;
+        if(dist2 < best.dist2) {
+            best.dist2 = dist2;
+            best.point = p;
+        }
+        double delta = splitX ? dx : dy;
+        if(delta < 0) {
+            nearest(lo, mid, !splitX, x, y, best);
+            if(delta * delta < best.dist2) {
+                nearest(mid + 1, hi, !splitX, x, y, best);
+            }
+        } else {
+            nearest(mid + 1, hi, !splitX, x, y, best);
+            if(delta * delta < best.dist2) {
+                nearest(lo, mid, !splitX, x, y, best);
+            }
+        }
+    }
+
+    /**
+     * Finds every indexed point within the given distance of the given location.
+     *
+     * @param x      The x coordinate of the location.
+     * @param y      The y coordinate of the location.
+     * @param radius The largest distance from (x, y) a point may be, inclusive.
+     * @return A new list of every point p with distance(p, (x, y)) {@literal <=} radius, in no
+     * particular order.
+     * @throws IllegalArgumentException if radius is negative or NaN.
+     */
+    public List<Point> within(double x, double y, double radius) {
+        if(!(radius >= 0)) {
+            throw new IllegalArgumentException("Radius must be non-negative.");
+        }
+        List<Point> result = new ArrayList<>();
+        within(0, tree.length, true, x, y, radius, result);
+        return result;
+    }
+
+    /**
+     * Adds every point in the given range of the tree that is within radius of (x, y) to the
+     * result, skipping any half that lies entirely farther away.
+     *
+     * @param lo     The first index of the range.
+     * @param hi     One past the last index of the range.
+     * @param splitX Whether this range is split by x, rather than by y.
+     * @param x      The x coordinate of the location.
+     * @param y      The y coordinate of the location.
+     * @param radius The largest distance from (x, y) a point may be.
+     * @param result The list the points found are added to.
+     */
+    private void within(int lo, int hi, boolean splitX, double x, double y, double radius,
+                        List<Point> result) {
+        if(lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        Point p = tree[mid];
+        double dx = x - p.getX();
+        double dy = y - p.getY();
+        if(dx * dx + dy * dy <= radius * radius) {
+            result.add(p);
+        }
+        double delta = splitX ? dx : dy;
+        // Visit each half unless all of it is more than radius away along the split axis
+        if(delta <= radius) {
+            within(lo, mid, !splitX, x, y, radius, result);
+        }
+        if(delta >= -radius) {
+            within(mid + 1, hi, !splitX, x, y, radius, result);
+        }
+    }
+
+    /**
+     * Ensures that the representation invariant has not been violated. Returns normally if
+     * there is no violation.
+     */
+    private void checkRep() {
+        assert tree != null;
+        for(Point p : tree) {
+            assert p != null;
+        }
+    }
+
+    /**
+     * The closest point found so far during a nearest-point search.
+     */
+    private static class Nearest {
+
+        /**
+         * The closest point found so far, or null if none has been looked at.
+         */
+        private Point point = null;
+
+        /**
+         * The squared distance to the closest point found so far.
+         */
+        private double dist2 = Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,76 @@
+package pathfinder.datastructures;
+
+import java.util.HashMap;
+
+/**
+ * A PointPool hands out one canonical {@link Point} for each location, so that a location which
+ * appears many times, such as the shared end of many campus paths, is only stored once. Pooled
+ * points compare equal by identity first, which makes lookups in hash maps keyed on them cheap.
+ * <p>
+ * A PointPool is mutable and is not safe to use from several threads at once.
+ *
+ * @spec.specfield points: set of Point // the canonical points handed out so far
+ */
+public class PointPool {
+
+    // Representation Invariant:
+    // points != null, and for every key k in points, points.get(k) == k
+
+    // Abstraction Function:
+    // AF(this) = a pool whose canonical points are the keys of this.points
+
+    /**
+     * Maps every canonical point to itself
+     */
+    private final HashMap<Point, Point> points;
+
+    /**
+     * Creates an empty pool
+     *
+     * @spec.effects constructs an empty PointPool
+     */
+    public PointPool() {
+        this.points = new HashMap<>();
+    }
+
+    /**
+     * Returns the canonical point for the given location, adding one if there is none yet
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the canonical point at (x, y)
+     * @throws IllegalArgumentException if x or y are NaN or infinite
+     * @spec.modifies this
+     * @spec.effects adds a point at (x, y) to the pool if there was none
+     */
+    public Point intern(double x, double y) {
+        return intern(new Point(x, y));
+    }
+
+    /**
+     * Returns the canonical point equal to the given point, making the given point canonical if
+     * there is none yet
+     *
+     * @param point the point to look up
+     * @return the canonical point equal to point
+     * @spec.requires point != null
+     * @spec.modifies this
+     * @spec.effects adds point to the pool if there was no equal point in it
+     */
+    public Point intern(Point point) {
+        if(point == null) {
+            throw new IllegalArgumentException("Point cannot be null");
+        }
+        Point canonical = points.putIfAbsent(point, point);
+        return canonical == null ? point : canonical;
+    }
+
+    /**
+     * Returns the number of distinct points in the pool
+     *
+     * @return the number of canonical points handed out so far
+     */
+    public int size() {
+        return points.size();
+    }
+}
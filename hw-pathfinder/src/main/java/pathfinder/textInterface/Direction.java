@@ -57,6 +57,12 @@ public enum Direction {
      */
     NW;
 
+    /**
+     * tan(pi / 8), the slope of the boundary between an axis direction and the diagonal
+     * directions next to it.
+     */
+    private static final double TAN_PI_8 = Math.sqrt(2.0D) - 1.0D;
+
     /**
      * Determines the direction represented by the ray cast from {@literal (0, 0)} to {@literal
      * (x, y)} in a cartesian plane, after accounting for differing coordinate system basis
@@ -111,43 +117,42 @@ public enum Direction {
             default:
                 break;
         }
-        double theta = Math.atan2(normY, normX);
-        if(Double.isNaN(theta)) {
+        if(Double.isNaN(normX) || Double.isNaN(normY)) {
             throw new IllegalArgumentException(
                     "Distance calculation from the point: (" + x1 + ", " + y1 + ") to (" +
                     x2 + ", " + y2 + ") failed.");
         }
-        if(Double.compare(theta, -Math.PI) >= 0 &&
-           Double.compare(theta, -7.0D * Math.PI / 8.0D) < 0) {
-            return W;
-        } else if(Double.compare(theta, -7.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, -5.0D * Math.PI / 8.0D) < 0) {
-            return SW;
-        } else if(Double.compare(theta, -5.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, -3.0D * Math.PI / 8.0D) < 0) {
-            return S;
-        } else if(Double.compare(theta, -3.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, -1.0D * Math.PI / 8.0D) < 0) {
-            return SE;
-        } else if(Double.compare(theta, -1.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, 1.0D * Math.PI / 8.0D) < 0) {
-            return E;
-        } else if(Double.compare(theta, 1.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, 3.0D * Math.PI / 8.0D) < 0) {
-            return NE;
-        } else if(Double.compare(theta, 3.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, 5.0D * Math.PI / 8.0D) < 0) {
-            return N;
-        } else if(Double.compare(theta, 5.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, 7.0D * Math.PI / 8.0D) < 0) {
-            return NW;
-        } else if(Double.compare(theta, 7.0D * Math.PI / 8.0D) >= 0 &&
-                  Double.compare(theta, Math.PI) <= 0) {
-            return W;
+        return octant(normX, normY);
+    }
+
+    /**
+     * Determines the direction of the vector {@literal (dx, dy)} in a plane where x increases to
+     * the right and y increases upward, exactly as {@link #resolveDirection(double, double,
+     * CoordinateProperties)} does with {@link CoordinateProperties#INCREASING_UP_RIGHT}, but
+     * without computing the angle of the vector. Each direction covers the 45 degrees centered on
+     * it, so whether the vector is nearer an axis or a diagonal only depends on whether one
+     * component is less than tan(pi / 8) times the other, and the signs pick which one.
+     *
+     * @param dx The x-component of the vector being measured.
+     * @param dy The y-component of the vector being measured.
+     * @return The direction the vector points in. Like {@link Math#atan2(double, double)}, a zero
+     * vector points {@link #E}, unless dx is -0.0, in which case it points {@link #W}.
+     * @spec.requires dx and dy are not NaN
+     */
+    public static Direction octant(double dx, double dy) {
+        double ax = Math.abs(dx);
+        double ay = Math.abs(dy);
+        if(ay < TAN_PI_8 * ax) {
+            return dx > 0.0D ? E : W;
+        } else if(ax < TAN_PI_8 * ay) {
+            return dy > 0.0D ? N : S;
+        } else if(ax == 0.0D) {
+            // Both components are zero
+            return Double.doubleToRawLongBits(dx) < 0L ? W : E;
+        } else if(dx > 0.0D) {
+            return dy > 0.0D ? NE : SE;
         } else {
-            throw new IllegalArgumentException(
-                    "Distance calculation from the point: (" + x1 + ", " + y1 + ") to (" +
-                    x2 + ", " + y2 + ") failed.");
+            return dy > 0.0D ? NW : SW;
         }
     }
 }
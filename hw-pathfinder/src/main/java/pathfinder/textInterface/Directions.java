@@ -0,0 +1,261 @@
+package pathfinder.textInterface;
+
+import pathfinder.datastructures.PackedPath;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * This represents the immutable walking directions for a path: one step for every stretch of the
+ * path that keeps heading in the same compass direction, with the distance walked and the point
+ * reached. Consecutive segments of the path that head the same way are merged into one step, and
+ * segments that do not move at all are folded into the step before them, so a route through many
+ * short segments along the same walkway reads as a single instruction.
+ * <p>
+ * Directions are worked out from a whole path in one pass, using
+ * {@link Direction#octant(double, double)} rather than measuring the angle of every segment, and
+ * can be kept and handed out as often as needed once made.
+ *
+ * @spec.specfield cost: double // the total cost of the path the directions are for
+ * @spec.specfield steps: sequence of (Direction, double, Point) // the heading, distance and
+ *                                                                // end point of every step
+ */
+public final class Directions {
+
+    // AF(this) =
+    //      total cost of the path => cost
+    //      the i-th step => head headings[i] for distances[i] to (xs[i], ys[i]),
+    //          for 0 <= i < headings.length
+
+    // Rep Invariant:
+    //      headings != null && distances != null && xs != null && ys != null &&
+    //      headings.length == distances.length == xs.length == ys.length &&
+    //      no element of headings is null &&
+    //      no two consecutive elements of headings are the same
+
+    /**
+     * The total cost of the path.
+     */
+    private final double cost;
+
+    /**
+     * The direction headed in during every step.
+     */
+    private final Direction[] headings;
+
+    /**
+     * The distance walked during every step.
+     */
+    private final double[] distances;
+
+    /**
+     * The x coordinate of the point reached at the end of every step.
+     */
+    private final double[] xs;
+
+    /**
+     * The y coordinate of the point reached at the end of every step.
+     */
+    private final double[] ys;
+
+    /**
+     * Creates directions from arrays that already satisfy the rep invariant.
+     *
+     * @param cost      The total cost of the path.
+     * @param headings  The direction headed in during every step.
+     * @param distances The distance walked during every step.
+     * @param xs        The x coordinate reached at the end of every step.
+     * @param ys        The y coordinate reached at the end of every step.
+     */
+    private Directions(double cost, Direction[] headings, double[] distances, double[] xs,
+                       double[] ys) {
+        this.cost = cost;
+        this.headings = headings;
+        this.distances = distances;
+        this.xs = xs;
+        this.ys = ys;
+        checkRep();
+    }
+
+    /**
+     * Works out the directions for walking the given path.
+     *
+     * @param path      The path to give directions for.
+     * @param coordType The type of coordinate system the points of {@code path} are in.
+     * @return The directions for {@code path}, which has no steps if the path never moves.
+     * @throws IllegalArgumentException if path or coordType is null.
+     */
+    public static Directions of(Path<Point> path, CoordinateProperties coordType) {
+        if(path == null || coordType == null) {
+            throw new IllegalArgumentException("Path and coordinate type cannot be null.");
+        }
+        // The signs that turn a vector in coordType into one where x is right and y is up
+        double flipX = coordType == CoordinateProperties.INCREASING_UP_LEFT ||
+                       coordType == CoordinateProperties.INCREASING_DOWN_LEFT ? -1.0D : 1.0D;
+        double flipY = coordType == CoordinateProperties.INCREASING_DOWN_RIGHT ||
+                       coordType == CoordinateProperties.INCREASING_DOWN_LEFT ? -1.0D : 1.0D;
+        PackedPath packed = PackedPath.of(path);
+        int n = packed.size();
+        Direction[] headings = new Direction[n];
+        double[] distances = new double[n];
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int steps = 0;
+        // The cost of segments that do not move, from before the first step
+        double standing = 0.0D;
+        for(int i = 0; i < n; i++) {
+            double x = packed.getX(i + 1);
+            double y = packed.getY(i + 1);
+            double dx = x - packed.getX(i);
+            double dy = y - packed.getY(i);
+            if(dx == 0.0D && dy == 0.0D) {
+                if(steps == 0) {
+                    standing += packed.getSegmentCost(i);
+                } else {
+                    distances[steps - 1] += packed.getSegmentCost(i);
+                }
+                continue;
+            }
+            Direction heading = Direction.octant(dx * flipX, dy * flipY);
+            if(steps == 0 || headings[steps - 1] != heading) {
+                headings[steps] = heading;
+                distances[steps] = steps == 0 ? standing : 0.0D;
+                steps++;
+            }
+            distances[steps - 1] += packed.getSegmentCost(i);
+            xs[steps - 1] = x;
+            ys[steps - 1] = y;
+        }
+        return new Directions(packed.getCost(), Arrays.copyOf(headings, steps),
+                              Arrays.copyOf(distances, steps), Arrays.copyOf(xs, steps),
+                              Arrays.copyOf(ys, steps));
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert headings != null && distances != null && xs != null && ys != null;
+        assert headings.length == distances.length &&
+               headings.length == xs.length &&
+               headings.length == ys.length : "Step arrays differ in length";
+        for(int i = 0; i < headings.length; i++) {
+            assert headings[i] != null : "Null heading";
+            assert i == 0 || headings[i] != headings[i - 1] : "Unmerged steps";
+        }
+    }
+
+    /**
+     * @return The total cost of the path these directions are for.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * @return The number of steps in these directions.
+     */
+    public int size() {
+        return headings.length;
+    }
+
+    /**
+     * @param i The index of a step, where 0 is the first.
+     * @return The direction headed in during the i-th step.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1, inclusive.
+     */
+    public Direction getDirection(int i) {
+        return headings[i];
+    }
+
+    /**
+     * @param i The index of a step, where 0 is the first.
+     * @return The distance walked during the i-th step.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1, inclusive.
+     */
+    public double getDistance(int i) {
+        return distances[i];
+    }
+
+    /**
+     * @param i The index of a step, where 0 is the first.
+     * @return The x coordinate of the point reached at the end of the i-th step.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1, inclusive.
+     */
+    public double getEndX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * @param i The index of a step, where 0 is the first.
+     * @return The y coordinate of the point reached at the end of the i-th step.
+     * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1, inclusive.
+     */
+    public double getEndY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * Returns these directions as text, one line per step, each written as
+     * {@code Walk <distance> feet <direction> to (<x>, <y>)} with every number rounded to a
+     * whole number.
+     *
+     * @return The text of these directions.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(40 * headings.length);
+        for(int i = 0; i < headings.length; i++) {
+            appendStep(out, distances[i], headings[i], xs[i], ys[i]);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Appends one walking instruction, the same as formatting it with
+     * {@code "Walk %.0f feet %s to (%.0f, %.0f)"} but without parsing the format each time.
+     *
+     * @param out       The buffer to append to.
+     * @param distance  The distance to walk.
+     * @param heading   The direction to walk in.
+     * @param x         The x coordinate walked to.
+     * @param y         The y coordinate walked to.
+     * @spec.requires out != null, heading != null
+     * @spec.modifies out
+     */
+    static void appendStep(StringBuilder out, double distance, Direction heading, double x,
+                           double y) {
+        out.append("Walk ");
+        appendWhole(out, distance);
+        out.append(" feet ").append(heading.name()).append(" to (");
+        appendWhole(out, x);
+        out.append(", ");
+        appendWhole(out, y);
+        out.append(')');
+    }
+
+    /**
+     * Appends a number rounded to a whole number, the same as formatting it with {@code "%.0f"},
+     * which rounds halves away from zero and keeps the sign of negative numbers that round to 0.
+     *
+     * @param out   The buffer to append to.
+     * @param value The number to append.
+     * @spec.requires out != null
+     * @spec.modifies out
+     */
+    static void appendWhole(StringBuilder out, double value) {
+        double magnitude = Math.abs(value);
+        if(!(magnitude < 1e15)) {
+            // Too large to round through a long exactly, or not a number at all
+            out.append(String.format(Locale.ROOT, "%.0f", value));
+            return;
+        }
+        if(Double.doubleToRawLongBits(value) < 0L) {
+            out.append('-');
+        }
+        out.append(Math.round(magnitude));
+    }
+}
@@ -139,22 +139,25 @@ public class TextInterfaceView {
      * @param path  The path to show to the user.
      */
     public void showPath(String start, String end, Path<Point> path) {
-        System.out.println("Path from " + start + " to " + end + ":");
+        // Built up in one buffer and printed at once, rather than formatted a line at a time
+        String newline = System.lineSeparator();
+        StringBuilder out = new StringBuilder(64 + 48 * path.size());
+        out.append("Path from ").append(start).append(" to ").append(end).append(':').append(newline);
         for(Path<Point>.Segment pathSegment : path) {
             Direction dir = Direction.resolveDirection(pathSegment.getStart().getX(),
                                                        pathSegment.getStart().getY(),
                                                        pathSegment.getEnd().getX(),
                                                        pathSegment.getEnd().getY(),
                                                        CoordinateProperties.INCREASING_DOWN_RIGHT);
-            System.out.printf("\tWalk %.0f feet %s to (%.0f, %.0f)",
-                              pathSegment.getCost(),
-                              dir.name(),
-                              pathSegment.getEnd().getX(),
-                              pathSegment.getEnd().getY());
-            System.out.println();
+            out.append('\t');
+            Directions.appendStep(out, pathSegment.getCost(), dir,
+                                  pathSegment.getEnd().getX(), pathSegment.getEnd().getY());
+            out.append(newline);
         }
-        System.out.printf("Total distance: %.0f feet", path.getCost());
-        System.out.println();
+        out.append("Total distance: ");
+        Directions.appendWhole(out, path.getCost());
+        out.append(" feet").append(newline);
+        System.out.print(out);
     }
 
     /**
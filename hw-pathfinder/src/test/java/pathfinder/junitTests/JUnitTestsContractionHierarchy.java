@@ -0,0 +1,137 @@
+package pathfinder.junitTests;
+
+import graph.LabeledDGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.ContractionHierarchy;
+import pathfinder.datastructures.Path;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static pathfinder.testUtils.GraphFixtures.allDistances;
+import static pathfinder.testUtils.GraphFixtures.randomWholeCostGraph;
+
+public class JUnitTestsContractionHierarchy {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    private static boolean hasEdge(LabeledDGraph<Integer, Double> graph, int from, int to, double cost) {
+        for (LabeledDGraph.Edge<Integer, Double> edge : graph.getChildren(from)) {
+            if (edge.getChild() == to && edge.getLabel() == cost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  query tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testMatchesAllPairsDistances() {
+        int nodes = 60;
+        LabeledDGraph<Integer, Double> graph = randomWholeCostGraph(nodes, 180, 331L);
+        ContractionHierarchy<Integer> hierarchy = new ContractionHierarchy<>(graph);
+        double[][] dist = allDistances(graph, nodes);
+        for (int s = 0; s < nodes; s++) {
+            for (int t = 0; t < nodes; t++) {
+                Path<Integer> path = hierarchy.query(s, t);
+                if (dist[s][t] == Double.POSITIVE_INFINITY) {
+                    assertNull(path);
+                    continue;
+                }
+                assertNotNull(path);
+                assertEquals(dist[s][t], path.getCost(), EPSILON);
+                assertEquals(Integer.valueOf(s), path.getStart());
+                assertEquals(Integer.valueOf(t), path.getEnd());
+            }
+        }
+    }
+
+    @Test
+    public void testUnpacksToOriginalEdges() {
+        LabeledDGraph<Integer, Double> graph = randomWholeCostGraph(80, 300, 42L);
+        ContractionHierarchy<Integer> hierarchy = new ContractionHierarchy<>(graph);
+        for (int t = 1; t < 80; t++) {
+            Path<Integer> path = hierarchy.query(0, t);
+            if (path == null) {
+                continue;
+            }
+            Iterator<Path<Integer>.Segment> segments = path.iterator();
+            // Like DijkstraAlg, every path starts with a segment from the start to itself
+            Path<Integer>.Segment self = segments.next();
+            assertEquals(Integer.valueOf(0), self.getEnd());
+            assertEquals(0.0, self.getCost(), EPSILON);
+            int at = 0;
+            while (segments.hasNext()) {
+                Path<Integer>.Segment segment = segments.next();
+                assertEquals(Integer.valueOf(at), segment.getStart());
+                assertTrue(hasEdge(graph, at, segment.getEnd(), segment.getCost()));
+                at = segment.getEnd();
+            }
+            assertEquals(t, at);
+        }
+    }
+
+    @Test
+    public void testPathToSelf() {
+        LabeledDGraph<Integer, Double> graph = randomWholeCostGraph(10, 20, 7L);
+        Path<Integer> path = new ContractionHierarchy<>(graph).query(3, 3);
+        assertEquals(0.0, path.getCost(), EPSILON);
+        assertEquals(1, path.size());
+    }
+
+    @Test
+    public void testUnknownNodesHaveNoPath() {
+        ContractionHierarchy<Integer> hierarchy = new ContractionHierarchy<>(randomWholeCostGraph(10, 20, 7L));
+        assertNull(hierarchy.query(3, 100));
+        assertNull(hierarchy.query(100, 3));
+    }
+
+    @Test
+    public void testEmptyGraph() {
+        ContractionHierarchy<String> hierarchy = new ContractionHierarchy<>(new LabeledDGraph<>());
+        assertEquals(0, hierarchy.size());
+        assertNull(hierarchy.query("a", "b"));
+    }
+
+    @Test
+    public void testNoPathBetweenComponents() {
+        LabeledDGraph<String, Double> graph = new LabeledDGraph<>();
+        graph.addEdge("a", 1.0, "b");
+        graph.addEdge("c", 1.0, "d");
+        ContractionHierarchy<String> hierarchy = new ContractionHierarchy<>(graph);
+        assertNull(hierarchy.query("a", "d"));
+        assertNotNull(hierarchy.query("a", "b"));
+        assertNull(hierarchy.query("b", "a"));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  exception tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullGraph() {
+        new ContractionHierarchy<String>(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeEdge() {
+        LabeledDGraph<String, Double> graph = new LabeledDGraph<>();
+        graph.addEdge("a", -1.0, "b");
+        new ContractionHierarchy<>(graph);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullStart() {
+        new ContractionHierarchy<>(randomWholeCostGraph(10, 20, 7L)).query(null, 3);
+    }
+}
@@ -0,0 +1,124 @@
+package pathfinder.junitTests;
+
+import graph.LabeledDGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.CampusMap;
+import pathfinder.datastructures.PackedPath;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pathfinder.DijkstraAlg.kShortestPaths;
+import static pathfinder.testUtils.GraphFixtures.randomGraph;
+
+public class JUnitTestsKShortestPaths {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    // Adds the cost of every path from node to end that does not visit any node in visited
+    private static void allCosts(LabeledDGraph<Integer, Double> graph, int node, int end, double cost,
+                                 HashSet<Integer> visited, List<Double> costs) {
+        if (node == end) {
+            costs.add(cost);
+            return;
+        }
+        visited.add(node);
+        for (LabeledDGraph.Edge<Integer, Double> edge : graph.getChildren(node)) {
+            if (!visited.contains(edge.getChild())) {
+                allCosts(graph, edge.getChild(), end, cost + edge.getLabel(), visited, costs);
+            }
+        }
+        visited.remove(node);
+    }
+
+    private static void assertSimple(Path<Integer> path) {
+        HashSet<Integer> visited = new HashSet<>();
+        visited.add(path.getStart());
+        boolean first = true;
+        for (Path<Integer>.Segment segment : path) {
+            // Every path starts with a segment from the start to itself
+            if (first) {
+                first = false;
+                continue;
+            }
+            assertTrue(visited.add(segment.getEnd()));
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  k shortest paths tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testMatchesEnumeration() {
+        for (long seed = 0; seed < 20; seed++) {
+            LabeledDGraph<Integer, Double> graph = randomGraph(9, 24, seed);
+            List<Double> expected = new ArrayList<>();
+            allCosts(graph, 0, 8, 0, new HashSet<>(), expected);
+            Collections.sort(expected);
+            List<Path<Integer>> paths = kShortestPaths(0, 8, graph, 5);
+            assertEquals(Math.min(5, expected.size()), paths.size());
+            HashSet<String> distinct = new HashSet<>();
+            for (int i = 0; i < paths.size(); i++) {
+                assertEquals(expected.get(i), paths.get(i).getCost(), EPSILON);
+                assertEquals(Integer.valueOf(0), paths.get(i).getStart());
+                assertEquals(Integer.valueOf(8), paths.get(i).getEnd());
+                assertSimple(paths.get(i));
+                assertTrue(distinct.add(paths.get(i).toString()));
+            }
+        }
+    }
+
+    @Test
+    public void testFewerPathsThanAsked() {
+        LabeledDGraph<String, Double> graph = new LabeledDGraph<>();
+        graph.addEdge("a", 1.0, "b");
+        graph.addEdge("b", 1.0, "c");
+        graph.addEdge("a", 3.0, "c");
+        List<Path<String>> paths = kShortestPaths("a", "c", graph, 10);
+        assertEquals(2, paths.size());
+        assertEquals(2.0, paths.get(0).getCost(), EPSILON);
+        assertEquals(3.0, paths.get(1).getCost(), EPSILON);
+    }
+
+    @Test
+    public void testNoPath() {
+        LabeledDGraph<String, Double> graph = new LabeledDGraph<>();
+        graph.addEdge("a", 1.0, "b");
+        assertTrue(kShortestPaths("b", "a", graph, 3).isEmpty());
+        assertTrue(kShortestPaths("a", "z", graph, 3).isEmpty());
+    }
+
+    @Test
+    public void testCampusAlternatives() {
+        CampusMap map = new CampusMap(0);
+        List<PackedPath> paths = map.findKShortestPaths("CSE", "DEN", 3);
+        assertEquals(3, paths.size());
+        assertEquals(map.findShortestPath("CSE", "DEN").getCost(), paths.get(0).getCost(), EPSILON);
+        assertTrue(paths.get(0).getCost() <= paths.get(1).getCost());
+        assertTrue(paths.get(1).getCost() <= paths.get(2).getCost());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  exception tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveK() {
+        kShortestPaths("a", "b", new LabeledDGraph<>(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullStart() {
+        kShortestPaths(null, "b", new LabeledDGraph<>(), 1);
+    }
+}
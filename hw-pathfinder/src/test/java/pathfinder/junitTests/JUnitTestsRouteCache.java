@@ -0,0 +1,88 @@
+package pathfinder.junitTests;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.CampusMap;
+import pathfinder.datastructures.PackedPath;
+import pathfinder.textInterface.Directions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class JUnitTestsRouteCache {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    @Test
+    public void testRepeatedRouteIsCached() {
+        CampusMap map = new CampusMap(8);
+        PackedPath first = map.findShortestPath("BAG", "CSE");
+        assertSame(first, map.findShortestPath("BAG", "CSE"));
+        assertEquals(1, map.routeCache().hits());
+        assertEquals(1, map.routeCache().misses());
+        assertEquals(0.5, map.routeCache().hitRatio(), EPSILON);
+    }
+
+    @Test
+    public void testReverseRouteIsCached() {
+        CampusMap map = new CampusMap(8);
+        PackedPath there = map.findShortestPath("BAG", "CSE");
+        PackedPath back = map.findShortestPath("CSE", "BAG");
+        assertEquals(1, map.routeCache().hits());
+        assertEquals(2, map.routeCache().size());
+        assertEquals(there.getCost(), back.getCost(), EPSILON);
+        assertEquals(there.size(), back.size());
+        // The reverse is made of the same interned points, not copies of them
+        assertSame(there.getStart(), back.getEnd());
+        assertSame(there.getEnd(), back.getStart());
+        for (int i = 1; i <= back.size(); i++) {
+            assertSame(there.getPoint(there.size() + 1 - i), back.getPoint(i));
+        }
+        // Like every route, the reverse starts with a segment from its start to itself
+        assertEquals(back.getStart(), back.iterator().next().getEnd());
+        assertEquals(new CampusMap(0).findShortestPath("CSE", "BAG").getCost(), back.getCost(), EPSILON);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        CampusMap map = new CampusMap(2);
+        PackedPath kept = map.findShortestPath("BAG", "CSE");
+        map.findShortestPath("DEN", "CSE");
+        assertEquals(2, map.routeCache().evictions());
+        assertEquals(2, map.routeCache().size());
+        assertNotSame(kept, map.findShortestPath("BAG", "CSE"));
+        assertEquals(0, map.routeCache().hits());
+    }
+
+    @Test
+    public void testEmptyCacheRemembersNothing() {
+        CampusMap map = new CampusMap(0);
+        map.findShortestPath("BAG", "CSE");
+        map.findShortestPath("BAG", "CSE");
+        assertEquals(0, map.routeCache().size());
+        assertEquals(0, map.routeCache().hits());
+        assertEquals(2, map.routeCache().misses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCapacity() {
+        new CampusMap(-1);
+    }
+
+    @Test
+    public void testDirectionsAreCached() {
+        CampusMap map = new CampusMap(8);
+        Directions first = map.findDirections("BAG", "CSE");
+        assertSame(first, map.findDirections("BAG", "CSE"));
+        assertEquals(map.findShortestPath("BAG", "CSE").getCost(), first.getCost(), EPSILON);
+        double walked = 0.0D;
+        for(int i = 0; i < first.size(); i++) {
+            walked += first.getDistance(i);
+        }
+        assertEquals(first.getCost(), walked, EPSILON);
+    }
+}
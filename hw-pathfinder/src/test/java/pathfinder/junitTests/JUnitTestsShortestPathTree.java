@@ -0,0 +1,97 @@
+package pathfinder.junitTests;
+
+import graph.LabeledDGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.CampusMap;
+import pathfinder.ShortestPathTree;
+import pathfinder.datastructures.PackedPath;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static pathfinder.testUtils.GraphFixtures.allDistances;
+import static pathfinder.testUtils.GraphFixtures.randomGraph;
+
+public class JUnitTestsShortestPathTree {
+    @Rule
+    public Timeout timeout = Timeout.seconds(10);
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  tree tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testPathsMatchSingleQueries() {
+        LabeledDGraph<Integer, Double> graph = randomGraph(60, 180, 331L);
+        ShortestPathTree<Integer> tree = new ShortestPathTree<>(graph, 0);
+        double[][] expected = allDistances(graph, 60);
+        assertEquals(Integer.valueOf(0), tree.getStart());
+        for (int t = 0; t < 60; t++) {
+            Path<Integer> actual = tree.pathTo(t);
+            if (expected[0][t] == Double.POSITIVE_INFINITY) {
+                assertNull(actual);
+                assertEquals(Double.POSITIVE_INFINITY, tree.distanceTo(t), EPSILON);
+                continue;
+            }
+            assertEquals(expected[0][t], actual.getCost(), EPSILON);
+            assertEquals(expected[0][t], tree.distanceTo(t), EPSILON);
+            assertEquals(Integer.valueOf(t), actual.getEnd());
+        }
+    }
+
+    @Test
+    public void testPathToStart() {
+        ShortestPathTree<Integer> tree = new ShortestPathTree<>(randomGraph(10, 20, 7L), 4);
+        Path<Integer> path = tree.pathTo(4);
+        assertEquals(1, path.size());
+        assertEquals(0.0, path.getCost(), EPSILON);
+    }
+
+    @Test
+    public void testUnknownEnd() {
+        ShortestPathTree<Integer> tree = new ShortestPathTree<>(randomGraph(10, 20, 7L), 4);
+        assertNull(tree.pathTo(100));
+        assertEquals(Double.POSITIVE_INFINITY, tree.distanceTo(100), EPSILON);
+    }
+
+    @Test
+    public void testCampusTreeMatchesShortestPath() {
+        CampusMap map = new CampusMap(0);
+        ShortestPathTree<Point> tree = map.shortestPathTree("CSE");
+        for (String end : map.buildingNames().keySet()) {
+            PackedPath expected = map.findShortestPath("CSE", end);
+            PackedPath actual = map.findShortestPath(tree, end);
+            assertEquals(expected.getCost(), actual.getCost(), EPSILON);
+            assertEquals(expected.getEnd(), actual.getEnd());
+        }
+    }
+
+    @Test
+    public void testCampusTreeIsCached() {
+        CampusMap map = new CampusMap();
+        ShortestPathTree<Point> tree = map.shortestPathTree("CSE");
+        assertSame(tree, map.shortestPathTree("CSE"));
+        assertEquals(1, map.treeCache().hits());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  exception tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStartNotInGraph() {
+        new ShortestPathTree<>(randomGraph(10, 20, 7L), 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBuilding() {
+        new CampusMap().shortestPathTree("NOPE");
+    }
+}
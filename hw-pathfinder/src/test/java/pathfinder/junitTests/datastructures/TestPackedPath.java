@@ -0,0 +1,109 @@
+package pathfinder.junitTests.datastructures;
+
+import org.junit.Test;
+import pathfinder.datastructures.PackedPath;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestPackedPath {
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    private static Path<Point> threeSteps() {
+        Path<Point> path = new Path<>(new Point(0.0, 0.0));
+        path = path.extend(new Point(3.0, 0.0), 3.0D);
+        path = path.extend(new Point(3.0, 4.0), 4.0D);
+        return path.extend(new Point(0.0, 4.0), 3.0D);
+    }
+
+    @Test
+    public void testPackedEqualsOriginal() {
+        Path<Point> path = threeSteps();
+        PackedPath packed = PackedPath.of(path);
+        assertEquals(path, packed);
+        assertEquals(packed, path);
+        assertEquals(path.hashCode(), packed.hashCode());
+        assertEquals(path.toString(), packed.toString());
+        assertEquals(3, packed.size());
+        assertEquals(10.0D, packed.getCost(), EPSILON);
+        assertEquals(new Point(0.0, 0.0), packed.getStart());
+        assertEquals(new Point(0.0, 4.0), packed.getEnd());
+    }
+
+    @Test
+    public void testPackedPathKeepsOriginalPoints() {
+        Path<Point> path = threeSteps();
+        PackedPath packed = PackedPath.of(path);
+        assertSame(path.getStart(), packed.getStart());
+        assertSame(path.getEnd(), packed.getEnd());
+        assertSame(packed.getEnd(), packed.getEnd());
+        Iterator<Path<Point>.Segment> original = path.iterator();
+        int i = 0;
+        for(Path<Point>.Segment segment : packed) {
+            Path<Point>.Segment expected = original.next();
+            assertSame(expected.getStart(), segment.getStart());
+            assertSame(expected.getEnd(), segment.getEnd());
+            assertSame(packed.getPoint(i), segment.getStart());
+            assertSame(packed.getPoint(i + 1), segment.getEnd());
+            i++;
+        }
+    }
+
+    @Test
+    public void testPackEmptyPath() {
+        PackedPath packed = PackedPath.of(new Path<>(new Point(1.0, 2.0)));
+        assertEquals(0, packed.size());
+        assertEquals(new Point(1.0, 2.0), packed.getEnd());
+        assertEquals(new Path<>(new Point(1.0, 2.0)), packed);
+        assertFalse(packed.iterator().hasNext());
+        assertFalse(packed.cursor().next());
+    }
+
+    @Test
+    public void testPackIsIdempotent() {
+        PackedPath packed = PackedPath.of(threeSteps());
+        assertSame(packed, PackedPath.of(packed));
+    }
+
+    @Test
+    public void testCursorWalksSegments() {
+        Path<Point> path = threeSteps();
+        PackedPath.Cursor cursor = PackedPath.of(path).cursor();
+        for(int pass = 0; pass < 2; pass++) {
+            Iterator<Path<Point>.Segment> expected = path.iterator();
+            while(cursor.next()) {
+                Path<Point>.Segment segment = expected.next();
+                assertEquals(segment.getStart(), new Point(cursor.startX(), cursor.startY()));
+                assertEquals(segment.getEnd(), new Point(cursor.endX(), cursor.endY()));
+                assertEquals(segment.getCost(), cursor.cost(), EPSILON);
+            }
+            assertFalse(expected.hasNext());
+            cursor.reset();
+        }
+    }
+
+    @Test
+    public void testExtendPackedPath() {
+        PackedPath packed = PackedPath.of(threeSteps());
+        Path<Point> extended = packed.extend(new Point(0.0, 0.0), 4.0D);
+        Path<Point> expected = threeSteps().extend(new Point(0.0, 0.0), 4.0D);
+        assertEquals(4, extended.size());
+        assertEquals(14.0D, extended.getCost(), EPSILON);
+        assertEquals(expected, extended);
+        assertTrue(extended.iterator().hasNext());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIteratorUnsupportedRemove() {
+        Iterator<Path<Point>.Segment> iterator = PackedPath.of(threeSteps()).iterator();
+        iterator.next();
+        iterator.remove();
+    }
+}
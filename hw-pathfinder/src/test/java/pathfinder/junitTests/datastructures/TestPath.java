@@ -72,6 +72,40 @@ public class TestPath {
         assertEquals(path3, path3);
     }
 
+    @Test
+    public void testExtendSharedPrefixIsIndependent() {
+        Path<Point> prefix = new Path<>(new Point(0.0, 0.0));
+        prefix = prefix.extend(new Point(1.0, 0.0), 1.0D);
+        Path<Point> left = prefix.extend(new Point(1.0, 1.0), 1.0D);
+        Path<Point> right = prefix.extend(new Point(2.0, 0.0), 3.0D);
+        assertEquals(1, prefix.size());
+        assertEquals(2, left.size());
+        assertEquals(2, right.size());
+        assertEquals(new Point(1.0, 0.0), prefix.getEnd());
+        assertEquals(new Point(1.0, 1.0), left.getEnd());
+        assertEquals(new Point(2.0, 0.0), right.getEnd());
+        assertEquals(2.0D, left.getCost(), EPSILON);
+        assertEquals(4.0D, right.getCost(), EPSILON);
+        assertNotEquals(left, right);
+    }
+
+    @Test
+    public void testLongPathIteratesInOrder() {
+        Path<Point> path = new Path<>(new Point(0.0, 0.0));
+        for(int i = 1; i <= 1000; i++) {
+            path = path.extend(new Point(i, 0.0), 1.0D);
+        }
+        assertEquals(1000, path.size());
+        assertEquals(1000.0D, path.getCost(), EPSILON);
+        int expected = 0;
+        for(Path<Point>.Segment segment : path) {
+            assertEquals(new Point(expected, 0.0), segment.getStart());
+            assertEquals(new Point(expected + 1, 0.0), segment.getEnd());
+            expected++;
+        }
+        assertEquals(1000, expected);
+    }
+
     private static Path<Point> path1, path2, path3;
 
     @BeforeClass
@@ -0,0 +1,88 @@
+package pathfinder.junitTests.datastructures;
+
+import org.junit.Test;
+import pathfinder.datastructures.Point;
+import pathfinder.datastructures.PointIndex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestPointIndex {
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    private static List<Point> randomPoints(int count, long seed) {
+        Random random = new Random(seed);
+        List<Point> points = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            points.add(new Point(random.nextInt(400), random.nextInt(400)));
+        }
+        return points;
+    }
+
+    private static double distance(Point p, double x, double y) {
+        return Math.hypot(p.getX() - x, p.getY() - y);
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        PointIndex index = new PointIndex(new ArrayList<>());
+        assertEquals(0, index.size());
+        assertNull(index.nearest(1.0, 1.0));
+        assertTrue(index.within(1.0, 1.0, 100.0).isEmpty());
+    }
+
+    @Test
+    public void testDuplicatesKeptOnce() {
+        List<Point> points = List.of(new Point(1.0, 1.0), new Point(1.0, 1.0), new Point(2.0, 2.0));
+        assertEquals(2, new PointIndex(points).size());
+    }
+
+    @Test
+    public void testNearestMatchesBruteForce() {
+        List<Point> points = randomPoints(500, 331);
+        PointIndex index = new PointIndex(points);
+        Random random = new Random(7);
+        for(int i = 0; i < 200; i++) {
+            double x = random.nextDouble() * 450 - 25;
+            double y = random.nextDouble() * 450 - 25;
+            double best = Double.POSITIVE_INFINITY;
+            for(Point p : points) {
+                best = Math.min(best, distance(p, x, y));
+            }
+            assertEquals(best, distance(index.nearest(x, y), x, y), EPSILON);
+        }
+    }
+
+    @Test
+    public void testWithinMatchesBruteForce() {
+        List<Point> points = randomPoints(500, 332);
+        PointIndex index = new PointIndex(points);
+        Random random = new Random(8);
+        for(int i = 0; i < 100; i++) {
+            double x = random.nextDouble() * 400;
+            double y = random.nextDouble() * 400;
+            double r = random.nextDouble() * 60;
+            HashSet<Point> expected = new HashSet<>();
+            for(Point p : points) {
+                if(distance(p, x, y) <= r) {
+                    expected.add(p);
+                }
+            }
+            List<Point> found = index.within(x, y, r);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRadius() {
+        new PointIndex(randomPoints(10, 1)).within(0.0, 0.0, -1.0);
+    }
+}
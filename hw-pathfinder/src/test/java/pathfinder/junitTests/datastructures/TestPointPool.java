@@ -0,0 +1,43 @@
+package pathfinder.junitTests.datastructures;
+
+import org.junit.Test;
+import pathfinder.datastructures.Point;
+import pathfinder.datastructures.PointPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TestPointPool {
+
+    @Test
+    public void testInternReturnsSameInstance() {
+        PointPool pool = new PointPool();
+        Point first = pool.intern(1.0, 2.0);
+        assertSame(first, pool.intern(1.0, 2.0));
+        assertSame(first, pool.intern(new Point(1.0, 2.0)));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testInternKeepsFirstPoint() {
+        PointPool pool = new PointPool();
+        Point original = new Point(3.0, 4.0);
+        assertSame(original, pool.intern(original));
+        assertSame(original, pool.intern(3.0, 4.0));
+    }
+
+    @Test
+    public void testDistinctLocationsAreDistinct() {
+        PointPool pool = new PointPool();
+        Point a = pool.intern(1.0, 2.0);
+        Point b = pool.intern(2.0, 1.0);
+        assertNotSame(a, b);
+        assertEquals(2, pool.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInternNull() {
+        new PointPool().intern(null);
+    }
+}
@@ -0,0 +1,126 @@
+package pathfinder.junitTests.textInterface;
+
+import org.junit.Test;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+import pathfinder.textInterface.CoordinateProperties;
+import pathfinder.textInterface.Direction;
+import pathfinder.textInterface.Directions;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestDirections {
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D);
+
+    private static Path<Point> walk(double... coordinates) {
+        Point start = new Point(coordinates[0], coordinates[1]);
+        Path<Point> path = new Path<>(start).extend(start, 0.0D);
+        for(int i = 2; i < coordinates.length; i += 2) {
+            Point end = new Point(coordinates[i], coordinates[i + 1]);
+            path = path.extend(end, Math.hypot(end.getX() - path.getEnd().getX(),
+                                               end.getY() - path.getEnd().getY()));
+        }
+        return path;
+    }
+
+    /**
+     * The direction of (dx, dy) measured by its angle, as Direction.resolveDirection used to.
+     */
+    private static Direction byAngle(double dx, double dy) {
+        Direction[] byEighth = {Direction.W, Direction.SW, Direction.S, Direction.SE,
+                                Direction.E, Direction.NE, Direction.N, Direction.NW, Direction.W};
+        double theta = Math.atan2(dy, dx);
+        return byEighth[(int) Math.floor((theta + Math.PI) / (Math.PI / 4.0D) + 0.5D)];
+    }
+
+    @Test
+    public void testOctantMatchesAngle() {
+        Random random = new Random(331);
+        for(int i = 0; i < 10000; i++) {
+            double dx = random.nextInt(2001) - 1000;
+            double dy = random.nextInt(2001) - 1000;
+            if(dx == 0.0D && dy == 0.0D) {
+                continue;
+            }
+            assertEquals(dx + ", " + dy, byAngle(dx, dy), Direction.octant(dx, dy));
+        }
+    }
+
+    @Test
+    public void testOctantZeroVector() {
+        assertEquals(Direction.E, Direction.octant(0.0D, 0.0D));
+        assertEquals(Direction.E, Direction.octant(0.0D, -0.0D));
+        assertEquals(Direction.W, Direction.octant(-0.0D, 0.0D));
+        assertEquals(Direction.W, Direction.octant(-0.0D, -0.0D));
+    }
+
+    @Test
+    public void testMergesSameDirection() {
+        // East twice, then south twice in screen coordinates, then east again
+        Directions directions = Directions.of(walk(0, 0, 3, 0, 7, 0, 7, 5, 7, 9, 10, 9),
+                                              CoordinateProperties.INCREASING_DOWN_RIGHT);
+        assertEquals(3, directions.size());
+        assertEquals(Direction.E, directions.getDirection(0));
+        assertEquals(7.0D, directions.getDistance(0), EPSILON);
+        assertEquals(7.0D, directions.getEndX(0), EPSILON);
+        assertEquals(0.0D, directions.getEndY(0), EPSILON);
+        assertEquals(Direction.S, directions.getDirection(1));
+        assertEquals(9.0D, directions.getDistance(1), EPSILON);
+        assertEquals(Direction.E, directions.getDirection(2));
+        assertEquals(3.0D, directions.getDistance(2), EPSILON);
+        assertEquals(10.0D, directions.getEndX(2), EPSILON);
+        assertEquals(9.0D, directions.getEndY(2), EPSILON);
+        assertEquals(19.0D, directions.getCost(), EPSILON);
+    }
+
+    @Test
+    public void testStandingStillHasNoSteps() {
+        Directions directions = Directions.of(walk(4, 2),
+                                              CoordinateProperties.INCREASING_DOWN_RIGHT);
+        assertEquals(0, directions.size());
+        assertEquals("", directions.toString());
+    }
+
+    @Test
+    public void testStandingStillJoinsPreviousStep() {
+        Point a = new Point(0.0D, 0.0D);
+        Point b = new Point(0.0D, 2.0D);
+        Path<Point> path = new Path<>(a).extend(a, 1.0D).extend(b, 2.0D).extend(b, 0.5D);
+        Directions directions = Directions.of(path, CoordinateProperties.INCREASING_UP_RIGHT);
+        assertEquals(1, directions.size());
+        assertEquals(Direction.N, directions.getDirection(0));
+        assertEquals(3.5D, directions.getDistance(0), EPSILON);
+    }
+
+    @Test
+    public void testCoordinateTypes() {
+        Path<Point> path = walk(0, 0, 1, 1);
+        assertEquals(Direction.NE, Directions.of(path, CoordinateProperties.INCREASING_UP_RIGHT)
+                                             .getDirection(0));
+        assertEquals(Direction.NW, Directions.of(path, CoordinateProperties.INCREASING_UP_LEFT)
+                                             .getDirection(0));
+        assertEquals(Direction.SE, Directions.of(path, CoordinateProperties.INCREASING_DOWN_RIGHT)
+                                             .getDirection(0));
+        assertEquals(Direction.SW, Directions.of(path, CoordinateProperties.INCREASING_DOWN_LEFT)
+                                             .getDirection(0));
+    }
+
+    @Test
+    public void testToStringMatchesFormat() {
+        Path<Point> path = walk(0.4, 0.5, 2.5, 0.5, 2.5, -1.5);
+        String expected = String.format("Walk %.0f feet %s to (%.0f, %.0f)%n",
+                                        2.1D, Direction.E, 2.5D, 0.5D)
+                          + String.format("Walk %.0f feet %s to (%.0f, %.0f)%n",
+                                          2.0D, Direction.N, 2.5D, -1.5D);
+        assertEquals(expected.replace(System.lineSeparator(), "\n"),
+                     Directions.of(path, CoordinateProperties.INCREASING_DOWN_RIGHT).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPath() {
+        Directions.of(null, CoordinateProperties.INCREASING_UP_RIGHT);
+    }
+}
@@ -0,0 +1,88 @@
+package pathfinder.testUtils;
+
+import graph.LabeledDGraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random graphs, and the distances between all of their nodes, shared by the tests of the
+ * shortest path searches.
+ */
+public final class GraphFixtures {
+
+    // This class does not represent an ADT.
+
+    private GraphFixtures() {
+    }
+
+    /**
+     * Makes a random graph over the nodes 0 to nodes - 1, with costs between 1 and 21 in
+     * hundredths, so that ties between paths are rare.
+     *
+     * @param nodes the number of nodes
+     * @param edges the number of edges, which may repeat or be loops
+     * @param seed  the seed for choosing the edges
+     * @return a new random graph
+     */
+    public static LabeledDGraph<Integer, Double> randomGraph(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        LabeledDGraph<Integer, Double> graph = new LabeledDGraph<>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge(random.nextInt(nodes), 1 + random.nextInt(2000) / 100.0, random.nextInt(nodes));
+        }
+        return graph;
+    }
+
+    /**
+     * Makes a random graph over the nodes 0 to nodes - 1, with whole costs between 1 and 20, so
+     * that sums of costs are exact and ties between paths are common.
+     *
+     * @param nodes the number of nodes
+     * @param edges the number of edges, which may repeat or be loops
+     * @param seed  the seed for choosing the edges
+     * @return a new random graph
+     */
+    public static LabeledDGraph<Integer, Double> randomWholeCostGraph(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        LabeledDGraph<Integer, Double> graph = new LabeledDGraph<>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge(random.nextInt(nodes), (double) (1 + random.nextInt(20)), random.nextInt(nodes));
+        }
+        return graph;
+    }
+
+    /**
+     * Works out the distance between every pair of nodes by Floyd-Warshall, so the expected
+     * distances do not depend on any other search.
+     *
+     * @param graph a graph over the nodes 0 to nodes - 1
+     * @param nodes the number of nodes
+     * @return dist such that dist[s][t] is the cost of the cheapest path from s to t, or
+     * infinity if there is none
+     */
+    public static double[][] allDistances(LabeledDGraph<Integer, Double> graph, int nodes) {
+        double[][] dist = new double[nodes][nodes];
+        for (int i = 0; i < nodes; i++) {
+            Arrays.fill(dist[i], Double.POSITIVE_INFINITY);
+            dist[i][i] = 0;
+            for (LabeledDGraph.Edge<Integer, Double> edge : graph.getChildren(i)) {
+                dist[i][edge.getChild()] = Math.min(dist[i][edge.getChild()], edge.getLabel());
+            }
+        }
+        for (int k = 0; k < nodes; k++) {
+            for (int i = 0; i < nodes; i++) {
+                for (int j = 0; j < nodes; j++) {
+                    dist[i][j] = Math.min(dist[i][j], dist[i][k] + dist[k][j]);
+                }
+            }
+        }
+        return dist;
+    }
+}
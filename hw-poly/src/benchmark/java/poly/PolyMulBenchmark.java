@@ -0,0 +1,483 @@
+package poly;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.StringTokenizer;
+
+/**
+ * Times the ways RatPoly can multiply, divide, evaluate and parse, to find where each starts to
+ * pay. It reports these tables:
+ * <ul>
+ * <li>the time ModularMul takes to multiply two polynomials of the same length by the schoolbook
+ * method, by Karatsuba's method and with a number theoretic transform, which is what
+ * ModularMul.KARATSUBA_THRESHOLD and ModularMul.NTT_THRESHOLD are chosen from</li>
+ * <li>the time RatPoly takes to multiply two polynomials with the same number of terms term by
+ * term, with dense coefficient arrays and with ModularMul, for small integer, small fraction
+ * and 31-bit integer coefficients, which is what RatPoly.MODULAR_MIN_TERMS is chosen from</li>
+ * <li>the time RatPoly takes to divide a polynomial of twice the degree of the divisor by long
+ * division and by multiplying by the reciprocal of the divisor, which is what
+ * RatPoly.NEWTON_MIN_DEGREE is chosen from</li>
+ * <li>the time RatPoly takes to evaluate a polynomial at as many points as PolyGraph plots by
+ * summing its terms, by calling eval at each point and by calling evalMany once</li>
+ * <li>the time RatPoly takes to evaluate a polynomial exactly at rational points by Horner's
+ * rule in RatNums, by calling eval(RatNum) at each point and by calling evalMany(RatNum[])
+ * once, which is what ExactForm.SPLIT_LEAF_TERMS is chosen from</li>
+ * <li>the time RatPoly takes to parse a file's worth of polynomials by splitting them into
+ * tokens and substrings as valueOf used to, by calling valueOf on each line and by calling
+ * valueOfLines once</li>
+ * </ul>
+ * Every product and quotient is checked to be the same whichever way it is worked out, and every
+ * value to be close.
+ * <p>
+ * The run is configured with the following system properties, all of which are optional.
+ * <ul>
+ * <li>{@code poly.benchmark.rounds}: the number of times each product and quotient is timed</li>
+ * <li>{@code poly.benchmark.seed}: the seed for choosing coefficients</li>
+ * </ul>
+ */
+public class PolyMulBenchmark {
+
+    // This class does not represent an ADT.
+
+    /**
+     * The lengths the ModularMul methods are timed at
+     */
+    private static final int[] LENGTHS = {8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096};
+
+    /**
+     * The numbers of terms the RatPoly methods are timed at
+     */
+    private static final int[] TERM_COUNTS = {8, 16, 24, 32, 48, 64, 96, 128, 192, 256};
+
+    /**
+     * The kinds of coefficient the RatPoly multiplication methods are timed with, by the kind
+     * argument of randomPoly
+     */
+    private static final String[] COEFF_KINDS = {"small integer", "small fraction", "31-bit integer"};
+
+    /**
+     * The degrees of divisor the RatPoly division methods are timed at
+     */
+    private static final int[] DIVISOR_DEGREES = {32, 64, 128, 256, 384, 512, 1024};
+
+    /**
+     * The numbers of terms the RatPoly evaluation methods are timed at
+     */
+    private static final int[] EVAL_TERM_COUNTS = {2, 4, 8, 16, 64, 256};
+
+    /**
+     * The number of points every polynomial is evaluated at
+     */
+    private static final int EVAL_POINTS = 4096;
+
+    /**
+     * The degrees the RatPoly exact evaluation methods are timed at
+     */
+    private static final int[] EXACT_DEGREES = {8, 32, 128, 512, 2048};
+
+    /**
+     * The number of points every polynomial is evaluated at exactly
+     */
+    private static final int EXACT_POINTS = 64;
+
+    /**
+     * The highest degree at which exact evaluation by Horner's rule in RatNums is timed, as it
+     * takes minutes beyond
+     */
+    private static final int RATNUM_MAX_DEGREE = 512;
+
+    /**
+     * The numbers of terms the RatPoly parsing methods are timed at
+     */
+    private static final int[] PARSE_TERM_COUNTS = {4, 16, 64, 256};
+
+    /**
+     * The number of polynomials parsed at once
+     */
+    private static final int PARSE_LINES = 2000;
+
+    /**
+     * Times every table and prints them
+     *
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        int rounds = Integer.getInteger("poly.benchmark.rounds", 20);
+        long seed = Long.getLong("poly.benchmark.seed", 331L);
+        if(rounds <= 0) {
+            throw new IllegalArgumentException("Invalid benchmark settings");
+        }
+        Random random = new Random(seed);
+
+        System.out.println("ModularMul, median microseconds per product of two polynomials");
+        System.out.printf("%8s %12s %12s %12s%n", "length", "schoolbook", "karatsuba", "ntt");
+        for(int length : LENGTHS) {
+            BigInteger[] a = randomInts(random, length);
+            BigInteger[] b = randomInts(random, length);
+            BigInteger[][] products = new BigInteger[3][];
+            double[] micros = new double[3];
+            int[] methods = {ModularMul.SCHOOLBOOK, ModularMul.KARATSUBA, ModularMul.NTT};
+            for(int m = 0; m < methods.length; m++) {
+                long[] nanos = new long[rounds];
+                // The first rounds warm the method up and are timed again afterwards
+                for(int i = -rounds; i < rounds; i++) {
+                    long begin = System.nanoTime();
+                    products[m] = ModularMul.multiply(a, b, methods[m]);
+                    if(i >= 0) {
+                        nanos[i] = System.nanoTime() - begin;
+                    }
+                }
+                micros[m] = median(nanos) / 1e3;
+            }
+            if(!Arrays.equals(products[0], products[1]) || !Arrays.equals(products[0], products[2])) {
+                throw new AssertionError("Products differ at length " + length);
+            }
+            System.out.printf("%8d %12.1f %12.1f %12.1f%n", length, micros[0], micros[1], micros[2]);
+        }
+
+        for(int kind = 0; kind < COEFF_KINDS.length; kind++) {
+            System.out.println();
+            System.out.println("RatPoly, median microseconds per product of two polynomials with "
+                               + COEFF_KINDS[kind] + " coefficients");
+            System.out.printf("%8s %12s %12s %12s%n", "terms", "term", "dense", "modular");
+            for(int terms : TERM_COUNTS) {
+                RatPoly a = randomPoly(random, terms, kind);
+                RatPoly b = randomPoly(random, terms, kind);
+                RatPoly[] products = new RatPoly[3];
+                double[] micros = new double[3];
+                for(int m = 0; m < products.length; m++) {
+                    long[] nanos = new long[rounds];
+                    for(int i = -rounds; i < rounds; i++) {
+                        long begin = System.nanoTime();
+                        products[m] = m == 0 ? RatPoly.termMul(a, b)
+                                      : m == 1 ? RatPoly.denseMul(a, b) : RatPoly.modularMul(a, b);
+                        if(i >= 0) {
+                            nanos[i] = System.nanoTime() - begin;
+                        }
+                    }
+                    // A product too large to store densely is not timed
+                    micros[m] = products[m] == null ? Double.NaN : median(nanos) / 1e3;
+                }
+                for(int m = 1; m < products.length; m++) {
+                    if(products[m] != null && !products[0].equals(products[m])) {
+                        throw new AssertionError("Products differ at " + terms + " terms");
+                    }
+                }
+                System.out.printf("%8d %12.1f %12.1f %12.1f%n", terms, micros[0], micros[1], micros[2]);
+            }
+        }
+
+        System.out.println();
+        System.out.println("RatPoly, median microseconds per division");
+        System.out.printf("%8s %12s %12s%n", "degree", "long", "newton");
+        for(int degree : DIVISOR_DEGREES) {
+            // 1 + x + ... + x^degree, whose reciprocal has small coefficients
+            RatPoly divisor = RatPoly.valueOf("x^" + degree).add(
+                    RatPoly.valueOf("x^" + degree + "-1").div(RatPoly.valueOf("x-1")));
+            RatPoly dividend = randomPoly(random, degree + 1).mul(divisor)
+                                                              .add(randomPoly(random, degree));
+            RatPoly[][] results = new RatPoly[2][];
+            double[] micros = new double[2];
+            for(int m = 0; m < results.length; m++) {
+                long[] nanos = new long[rounds];
+                for(int i = -rounds; i < rounds; i++) {
+                    long begin = System.nanoTime();
+                    results[m] = m == 0 ? RatPoly.longDiv(dividend, divisor)
+                                 : RatPoly.newtonDiv(dividend, divisor);
+                    if(i >= 0) {
+                        nanos[i] = System.nanoTime() - begin;
+                    }
+                }
+                micros[m] = median(nanos) / 1e3;
+            }
+            if(results[1] == null || !Arrays.equals(results[0], results[1])) {
+                throw new AssertionError("Quotients differ at degree " + degree);
+            }
+            System.out.printf("%8d %12.1f %12.1f%n", degree, micros[0], micros[1]);
+        }
+
+        System.out.println();
+        System.out.println("RatPoly, median microseconds per " + EVAL_POINTS + " evaluations");
+        System.out.printf("%8s %12s %12s %12s%n", "terms", "term sum", "eval", "evalMany");
+        double[] xs = new double[EVAL_POINTS];
+        for(int i = 0; i < xs.length; i++) {
+            xs[i] = -1.0 + 2.0 * i / xs.length;
+        }
+        for(int terms : EVAL_TERM_COUNTS) {
+            RatPoly p = randomPoly(random, terms);
+            List<RatTerm> termList = new ArrayList<>();
+            for(int e = p.degree(); e >= 0; e--) {
+                termList.add(p.getTerm(e));
+            }
+            double[][] values = new double[3][xs.length];
+            double[] micros = new double[3];
+            for(int m = 0; m < values.length; m++) {
+                long[] nanos = new long[rounds];
+                for(int i = -rounds; i < rounds; i++) {
+                    long begin = System.nanoTime();
+                    if(m == 0) {
+                        for(int j = 0; j < xs.length; j++) {
+                            double sum = 0;
+                            for(RatTerm term : termList) {
+                                sum += term.eval(xs[j]);
+                            }
+                            values[m][j] = sum;
+                        }
+                    } else if(m == 1) {
+                        for(int j = 0; j < xs.length; j++) {
+                            values[m][j] = p.eval(xs[j]);
+                        }
+                    } else {
+                        p.evalMany(xs, values[m]);
+                    }
+                    if(i >= 0) {
+                        nanos[i] = System.nanoTime() - begin;
+                    }
+                }
+                micros[m] = median(nanos) / 1e3;
+            }
+            for(int j = 0; j < xs.length; j++) {
+                if(Math.abs(values[0][j] - values[1][j]) > 1e-9 * terms
+                   || values[1][j] != values[2][j]) {
+                    throw new AssertionError("Values differ at " + terms + " terms");
+                }
+            }
+            System.out.printf("%8d %12.1f %12.1f %12.1f%n", terms, micros[0], micros[1], micros[2]);
+        }
+
+        System.out.println();
+        System.out.println("RatPoly, median microseconds per exact evaluation at " + EXACT_POINTS
+                           + " points k/7");
+        System.out.printf("%8s %12s %12s %12s%n", "degree", "RatNum", "eval", "evalMany");
+        RatNum[] points = new RatNum[EXACT_POINTS];
+        for(int i = 0; i < points.length; i++) {
+            points[i] = RatNum.valueOf(i - EXACT_POINTS / 2, 7);
+        }
+        for(int degree : EXACT_DEGREES) {
+            RatPoly p = randomPoly(random, degree + 1);
+            RatNum[] coeffs = new RatNum[degree + 1];
+            for(int e = 0; e <= degree; e++) {
+                coeffs[e] = p.getTerm(e).getCoeff();
+            }
+            RatNum[][] values = new RatNum[3][points.length];
+            double[] micros = new double[3];
+            for(int m = 0; m < values.length; m++) {
+                if(m == 0 && degree > RATNUM_MAX_DEGREE) {
+                    micros[m] = Double.NaN;
+                    continue;
+                }
+                // Summing in RatNums is much slower, so it is timed fewer times
+                int timed = m == 0 ? Math.max(1, rounds / 10) : rounds;
+                long[] nanos = new long[timed];
+                for(int i = -timed; i < timed; i++) {
+                    long begin = System.nanoTime();
+                    if(m == 0) {
+                        for(int j = 0; j < points.length; j++) {
+                            RatNum sum = coeffs[degree];
+                            for(int e = degree - 1; e >= 0; e--) {
+                                sum = sum.mul(points[j]).add(coeffs[e]);
+                            }
+                            values[m][j] = sum;
+                        }
+                    } else if(m == 1) {
+                        for(int j = 0; j < points.length; j++) {
+                            values[m][j] = p.eval(points[j]);
+                        }
+                    } else {
+                        values[m] = p.evalMany(points);
+                    }
+                    if(i >= 0) {
+                        nanos[i] = System.nanoTime() - begin;
+                    }
+                }
+                micros[m] = median(nanos) / 1e3;
+            }
+            if((degree <= RATNUM_MAX_DEGREE && !Arrays.equals(values[0], values[1]))
+               || !Arrays.equals(values[1], values[2])) {
+                throw new AssertionError("Exact values differ at degree " + degree);
+            }
+            System.out.printf("%8d %12.1f %12.1f %12.1f%n", degree, micros[0], micros[1], micros[2]);
+        }
+
+        System.out.println();
+        System.out.println("RatPoly, median microseconds per parse of " + PARSE_LINES
+                           + " polynomials");
+        System.out.printf("%8s %12s %12s %12s%n", "terms", "tokenized", "valueOf", "valueOfLines");
+        for(int terms : PARSE_TERM_COUNTS) {
+            String[] lines = new String[PARSE_LINES];
+            for(int i = 0; i < lines.length; i++) {
+                lines[i] = randomPoly(random, terms).toString();
+            }
+            String text = String.join("\n", lines);
+            Object[][] values = new Object[3][];
+            double[] micros = new double[3];
+            for(int m = 0; m < values.length; m++) {
+                long[] nanos = new long[rounds];
+                for(int i = -rounds; i < rounds; i++) {
+                    long begin = System.nanoTime();
+                    if(m == 2) {
+                        values[m] = RatPoly.valueOfLines(text).toArray();
+                    } else {
+                        values[m] = new Object[lines.length];
+                        for(int j = 0; j < lines.length; j++) {
+                            values[m][j] = m == 0 ? tokenizedValueOf(lines[j])
+                                                  : RatPoly.valueOf(lines[j]);
+                        }
+                    }
+                    if(i >= 0) {
+                        nanos[i] = System.nanoTime() - begin;
+                    }
+                }
+                micros[m] = median(nanos) / 1e3;
+            }
+            if(!Arrays.equals(values[0], values[1]) || !Arrays.equals(values[1], values[2])) {
+                throw new AssertionError("Parsed polynomials differ at " + terms + " terms");
+            }
+            System.out.printf("%8d %12.1f %12.1f %12.1f%n", terms, micros[0], micros[1], micros[2]);
+        }
+    }
+
+    /**
+     * Parses a polynomial the way RatPoly.valueOf did before PolyParser: splitting it into terms
+     * with a StringTokenizer, each term into substrings, and inserting each term into a sorted list.
+     *
+     * @param polyStr a polynomial in the form written by RatPoly.toString, with coefficients that
+     *                fit in longs
+     * @return the polynomial written in polyStr
+     */
+    private static RatPoly tokenizedValueOf(String polyStr) {
+        List<RatTerm> terms = new ArrayList<>();
+        StringTokenizer tokens = new StringTokenizer(polyStr, "+-", true);
+        boolean negative = false;
+        while(tokens.hasMoreTokens()) {
+            String token = tokens.nextToken();
+            if(token.equals("-")) {
+                negative = true;
+            } else if(token.equals("+")) {
+                negative = false;
+            } else {
+                RatTerm term = tokenizedTerm(token);
+                if(negative) {
+                    term = term.negate();
+                }
+                int i = 0;
+                while(i < terms.size() && terms.get(i).getExpt() > term.getExpt()) {
+                    i++;
+                }
+                if(i < terms.size() && terms.get(i).getExpt() == term.getExpt()) {
+                    terms.set(i, terms.get(i).add(term));
+                    if(terms.get(i).isZero()) {
+                        terms.remove(i);
+                    }
+                } else if(!term.isZero()) {
+                    terms.add(i, term);
+                }
+            }
+        }
+        RatNum[] coeffs = new RatNum[terms.size()];
+        int[] expts = new int[terms.size()];
+        for(int i = 0; i < coeffs.length; i++) {
+            coeffs[i] = terms.get(i).getCoeff();
+            expts[i] = terms.get(i).getExpt();
+        }
+        return RatPoly.fromParsed(coeffs, expts, coeffs.length);
+    }
+
+    /**
+     * @param termStr a term without a sign, in the form written by RatTerm.toString
+     * @return the term written in termStr
+     */
+    private static RatTerm tokenizedTerm(String termStr) {
+        int multIndex = termStr.indexOf("*");
+        int xIndex = termStr.indexOf("x");
+        int powIndex = termStr.indexOf("^");
+        RatNum coeff;
+        if(multIndex != -1) {
+            coeff = tokenizedNum(termStr.substring(0, multIndex));
+        } else if(xIndex != -1) {
+            coeff = RatNum.valueOf(1, 1);
+        } else {
+            coeff = tokenizedNum(termStr);
+        }
+        int expt = powIndex != -1 ? Integer.parseInt(termStr.substring(powIndex + 1))
+                                  : xIndex != -1 ? 1 : 0;
+        return new RatTerm(coeff, expt);
+    }
+
+    /**
+     * @param ratStr a number in the form written by RatNum.toString, fitting in longs
+     * @return the number written in ratStr
+     */
+    private static RatNum tokenizedNum(String ratStr) {
+        int slashLoc = ratStr.indexOf('/');
+        if(slashLoc == -1) {
+            return RatNum.of(Long.parseLong(ratStr), 1);
+        }
+        return RatNum.of(Long.parseLong(ratStr.substring(0, slashLoc)),
+                         Long.parseLong(ratStr.substring(slashLoc + 1)));
+    }
+
+    /**
+     * @param random the source of coefficients
+     * @param length the number of coefficients
+     * @return a new array of length random integers of up to 31 bits, of either sign
+     */
+    private static BigInteger[] randomInts(Random random, int length) {
+        BigInteger[] values = new BigInteger[length];
+        for(int i = 0; i < length; i++) {
+            values[i] = BigInteger.valueOf(random.nextInt());
+        }
+        return values;
+    }
+
+    /**
+     * Makes a polynomial with every power of x up to terms - 1, with coefficients small enough
+     * that products of two of them can still be stored densely, so every way of multiplying
+     * applies
+     *
+     * @param random the source of coefficients
+     * @param terms  the number of terms
+     * @return a random polynomial of degree terms - 1 with terms terms
+     */
+    private static RatPoly randomPoly(Random random, int terms) {
+        return randomPoly(random, terms, 1);
+    }
+
+    /**
+     * Makes a polynomial with every power of x up to terms - 1, with coefficients of the given
+     * kind
+     *
+     * @param random the source of coefficients
+     * @param terms  the number of terms
+     * @param kind   the index in COEFF_KINDS of the kind of coefficients: integers up to 99,
+     *               fractions with numerators up to 99 and denominators up to 4, or integers of
+     *               up to 31 bits, all of either sign
+     * @return a random polynomial of degree terms - 1 with terms terms
+     */
+    private static RatPoly randomPoly(Random random, int terms, int kind) {
+        List<String> parts = new ArrayList<>();
+        for(int e = terms - 1; e >= 0; e--) {
+            int numer = kind == 2 ? random.nextInt() : random.nextInt(199) - 99;
+            if(numer == 0) {
+                numer = 1;
+            }
+            int denom = kind == 1 ? 1 << random.nextInt(3) : 1;
+            parts.add(numer + "/" + denom + "*x^" + e);
+        }
+        return RatPoly.valueOf(String.join("+", parts).replace("+-", "-"));
+    }
+
+    /**
+     * @param values the values to take the median of, which are put in order
+     * @return the median of values
+     * @spec.requires values.length > 0
+     * @spec.modifies values
+     */
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+}
@@ -0,0 +1,383 @@
+package poly;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <b>ExactForm</b> is a polynomial compiled for evaluating exactly at rational numbers: its
+ * coefficients over their least common denominator, so that the value at p/q can be worked out in
+ * integers as
+ * <pre>
+ *     sum(c_e * p^e * q^(d-e)) / (scale * q^d)
+ * </pre>
+ * where d is the degree, with a single gcd at the end rather than one for every arithmetic
+ * operation on RatNums.
+ * <p>
+ * The integer sum grows by the size of p or q with every power of x, so a polynomial with many
+ * terms is summed by binary splitting: each half of the terms is summed on its own and the two
+ * are combined with one multiplication of large numbers, which BigInteger does in less than
+ * quadratic time, where Horner's rule would make one pass over an ever larger number for every
+ * term. Evaluating at many points that share a denominator q multiplies every coefficient by its
+ * power of q once, rather than once per point.
+ * <p>
+ * While the sum and its denominator fit in a long, as they do for small polynomials at small
+ * points, Horner's rule is followed in longs instead, without allocating anything.
+ * <p>
+ * ExactForms are immutable and are made by RatPoly.
+ */
+final class ExactForm {
+
+    // Abstraction Function:
+    // An ExactForm represents the polynomial
+    //     sum (0 <= i < coeffs.length): coeffs[i] / scale * x^expts[i]
+    //
+    // Representation Invariant:
+    // coeffs != null && expts != null && scale != null && scale > 0 &&
+    // coeffs.length == expts.length &&
+    // forall i such that (0 <= i < coeffs.length), coeffs[i] != 0 && expts[i] >= 0 &&
+    // forall i such that (0 <= i < coeffs.length - 1), expts[i] > expts[i+1]
+
+    /**
+     * The most terms binary splitting sums by Horner's rule rather than by splitting them
+     * further, measured with PolyMulBenchmark.
+     */
+    static final int SPLIT_LEAF_TERMS = 64;
+
+    /**
+     * The integer coefficients, highest power of x first.
+     */
+    private final BigInteger[] coeffs;
+
+    /**
+     * The power of x of every coefficient.
+     */
+    private final int[] expts;
+
+    /**
+     * The common denominator of the coefficients.
+     */
+    private final BigInteger scale;
+
+    /**
+     * The integer coefficients as longs, or null if any of them or scale does not fit in a long.
+     */
+    private final long[] longCoeffs;
+
+    /**
+     * The number of bits in the larger of scale and the number of terms times the largest
+     * coefficient.
+     */
+    private final int longBits;
+
+    /**
+     * @param terms the terms of the polynomial
+     * @spec.requires terms satisfies the rep. invariant of RatPoly and has no NaN coefficient
+     * @spec.effects Constructs a new ExactForm equal to the sum of terms
+     */
+    ExactForm(List<RatTerm> terms) {
+        BigInteger lcm = BigInteger.ONE;
+        for(RatTerm term : terms) {
+            BigInteger d = term.getCoeff().bigDenominator();
+            lcm = lcm.divide(lcm.gcd(d)).multiply(d);
+        }
+        coeffs = new BigInteger[terms.size()];
+        expts = new int[terms.size()];
+        for(int i = 0; i < coeffs.length; i++) {
+            RatNum c = terms.get(i).getCoeff();
+            coeffs[i] = c.bigNumerator().multiply(lcm.divide(c.bigDenominator()));
+            expts[i] = terms.get(i).getExpt();
+        }
+        scale = lcm;
+        int coeffBits = 0;
+        for(BigInteger c : coeffs) {
+            coeffBits = Math.max(coeffBits, c.bitLength());
+        }
+        longBits = Math.max(scale.bitLength(),
+                            coeffBits + Integer.SIZE - Integer.numberOfLeadingZeros(coeffs.length));
+        if(longBits < Long.SIZE - 1) {
+            longCoeffs = new long[coeffs.length];
+            for(int i = 0; i < coeffs.length; i++) {
+                longCoeffs[i] = coeffs[i].longValue();
+            }
+        } else {
+            longCoeffs = null;
+        }
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert (coeffs != null && expts != null && scale != null) : "null field";
+        assert (scale.signum() > 0) : "non-positive scale";
+        assert (coeffs.length == expts.length) : "coeffs and expts differ in length";
+        for(int i = 0; i < coeffs.length; i++) {
+            assert (coeffs[i].signum() != 0) : "zero coefficient";
+            assert (i == 0 || expts[i - 1] > expts[i]) : "exponents out of order";
+        }
+    }
+
+    /**
+     * Returns the exact value of this polynomial at r.
+     *
+     * @param r the value at which to evaluate this polynomial
+     * @return the value of this polynomial at r
+     * @spec.requires r != null and !r.isNaN()
+     */
+    RatNum eval(RatNum r) {
+        if(coeffs.length == 0) {
+            return RatNum.ZERO;
+        }
+        RatNum value = evalLong(r);
+        if(value != null) {
+            return value;
+        }
+        BigInteger p = r.bigNumerator();
+        BigInteger q = r.bigDenominator();
+        Powers pPowers = new Powers(p);
+        BigInteger sum = split(coeffs, false, 0, coeffs.length, pPowers, new Powers(q))
+                .multiply(pPowers.get(expts[coeffs.length - 1]));
+        return quotient(sum, q, q.pow(expts[0]));
+    }
+
+    /**
+     * Returns the exact values of this polynomial at many points.
+     *
+     * @param xs the values at which to evaluate this polynomial
+     * @return a new array whose i-th element is eval(xs[i])
+     * @spec.requires xs != null and contains neither null nor NaN
+     */
+    RatNum[] evalMany(RatNum[] xs) {
+        RatNum[] out = new RatNum[xs.length];
+        if(coeffs.length == 0) {
+            Arrays.fill(out, RatNum.ZERO);
+            return out;
+        }
+        Map<BigInteger, List<Integer>> byDenominator = new LinkedHashMap<>();
+        for(int i = 0; i < xs.length; i++) {
+            out[i] = evalLong(xs[i]);
+            if(out[i] == null) {
+                byDenominator.computeIfAbsent(xs[i].bigDenominator(), k -> new ArrayList<>())
+                             .add(i);
+            }
+        }
+        for(Map.Entry<BigInteger, List<Integer>> group : byDenominator.entrySet()) {
+            BigInteger q = group.getKey();
+            List<Integer> points = group.getValue();
+            if(points.size() == 1) {
+                out[points.get(0)] = eval(xs[points.get(0)]);
+                continue;
+            }
+            // The powers of q, and the coefficients times them, are the same for every point
+            Powers qPowers = new Powers(q);
+            BigInteger[] scaled = coeffs;
+            if(!q.equals(BigInteger.ONE)) {
+                scaled = new BigInteger[coeffs.length];
+                scaleLeaves(scaled, 0, coeffs.length, qPowers);
+            }
+            for(int i : points) {
+                Powers pPowers = new Powers(xs[i].bigNumerator());
+                BigInteger sum = split(scaled, true, 0, coeffs.length, pPowers, qPowers)
+                        .multiply(pPowers.get(expts[coeffs.length - 1]));
+                out[i] = quotient(sum, q, qPowers.get(expts[0]));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the value of this polynomial at r worked out by Horner's rule in longs, if it can
+     * be.
+     *
+     * @param r the value at which to evaluate this polynomial
+     * @return the value of this polynomial at r, or null if a number along the way might not fit
+     * in a long
+     * @spec.requires r != null, !r.isNaN() and coeffs.length > 0
+     */
+    private RatNum evalLong(RatNum r) {
+        if(longCoeffs == null || !r.fitsLong()) {
+            return null;
+        }
+        long p = r.longNumerator();
+        long q = r.longDenominator();
+        // Every number below is at most the number of terms times the largest coefficient times
+        // max(|p|, q)^d, or else scale * q^d
+        long bits = longBits + (long) expts[0]
+                               * (Long.SIZE - Long.numberOfLeadingZeros(Math.max(Math.abs(p), q)));
+        if(bits >= Long.SIZE - 1) {
+            return null;
+        }
+        long sum = longCoeffs[0];
+        long qPower = 1;
+        for(int i = 1; i < longCoeffs.length; i++) {
+            int gap = expts[i - 1] - expts[i];
+            sum = sum * power(p, gap);
+            qPower = qPower * power(q, gap);
+            sum = sum + longCoeffs[i] * qPower;
+        }
+        int last = expts[longCoeffs.length - 1];
+        return RatNum.of(sum * power(p, last), scale.longValue() * qPower * power(q, last));
+    }
+
+    /**
+     * @param base     the base
+     * @param exponent the exponent
+     * @return base^exponent
+     * @spec.requires exponent >= 0 and base^exponent fits in a long
+     */
+    private static long power(long base, int exponent) {
+        long result = 1;
+        for(int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    /**
+     * Divides the sum worked out for a point p/q by its denominator. Every term of the sum but
+     * the one of the highest power of x is a multiple of q, so when the leading coefficient has no
+     * factor in common with q, neither has the sum, and only the much smaller gcd of the sum and
+     * scale is needed to put the value in lowest terms.
+     *
+     * @param sum    sum(c_e * p^e * q^(d-e))
+     * @param q      the denominator of the point
+     * @param qPower q^d
+     * @return sum / (scale * qPower)
+     * @spec.requires q > 0 and qPower = q^d
+     */
+    private RatNum quotient(BigInteger sum, BigInteger q, BigInteger qPower) {
+        if(sum.signum() == 0) {
+            return RatNum.ZERO;
+        }
+        if(!q.equals(BigInteger.ONE) && !coeffs[0].gcd(q).equals(BigInteger.ONE)) {
+            return RatNum.of(sum, scale.multiply(qPower));
+        }
+        BigInteger g = sum.gcd(scale);
+        return RatNum.ofReduced(sum.divide(g), scale.divide(g).multiply(qPower));
+    }
+
+    /**
+     * Sums a range of terms by binary splitting. With e_i = expts[i], the sum is
+     * <pre>
+     *     sum (lo <= i < hi): c[i] * p^(e_i - e_(hi-1)) * q^(e_lo - e_i)
+     * </pre>
+     * which for the two halves [lo, mid) and [mid, hi) of the range is the sum of the first
+     * half times p^(e_(mid-1) - e_(hi-1)) plus the sum of the second times q^(e_lo - e_mid).
+     *
+     * @param c       the coefficients of the terms
+     * @param scaled  whether the coefficients have been multiplied by their powers of q by
+     *                scaleLeaves
+     * @param lo      the first term of the range
+     * @param hi      one past the last term of the range
+     * @param pPowers the powers of p
+     * @param qPowers the powers of q
+     * @return the sum of the range of terms
+     * @spec.requires 0 <= lo < hi <= c.length == expts.length
+     */
+    private BigInteger split(BigInteger[] c, boolean scaled, int lo, int hi, Powers pPowers,
+                             Powers qPowers) {
+        boolean integral = qPowers.base.equals(BigInteger.ONE);
+        if(hi - lo <= SPLIT_LEAF_TERMS) {
+            // Horner's rule, keeping the power of q of the term just added
+            BigInteger sum = c[lo];
+            BigInteger qPower = BigInteger.ONE;
+            for(int i = lo + 1; i < hi; i++) {
+                int gap = expts[i - 1] - expts[i];
+                sum = sum.multiply(pPowers.get(gap));
+                if(scaled || integral) {
+                    sum = sum.add(c[i]);
+                } else {
+                    qPower = qPower.multiply(qPowers.get(gap));
+                    sum = sum.add(c[i].multiply(qPower));
+                }
+            }
+            return sum;
+        }
+        int mid = mid(lo, hi);
+        BigInteger high = split(c, scaled, lo, mid, pPowers, qPowers)
+                .multiply(pPowers.get(expts[mid - 1] - expts[hi - 1]));
+        BigInteger low = split(c, scaled, mid, hi, pPowers, qPowers);
+        if(!integral) {
+            low = low.multiply(qPowers.get(expts[lo] - expts[mid]));
+        }
+        return high.add(low);
+    }
+
+    /**
+     * Multiplies every coefficient by the power of q that split would multiply it by in Horner's
+     * rule at the bottom of the splitting. The powers of q the halves are combined with are left
+     * out, as putting them in would make every coefficient as large as the whole sum.
+     *
+     * @param out     the array to store the coefficients times their powers of q in
+     * @param lo      the first term of the range
+     * @param hi      one past the last term of the range
+     * @param qPowers the powers of q
+     * @spec.requires 0 <= lo < hi <= out.length == expts.length
+     * @spec.modifies out
+     */
+    private void scaleLeaves(BigInteger[] out, int lo, int hi, Powers qPowers) {
+        if(hi - lo <= SPLIT_LEAF_TERMS) {
+            out[lo] = coeffs[lo];
+            for(int i = lo + 1; i < hi; i++) {
+                out[i] = coeffs[i].multiply(qPowers.get(expts[lo] - expts[i]));
+            }
+            return;
+        }
+        int mid = mid(lo, hi);
+        scaleLeaves(out, lo, mid, qPowers);
+        scaleLeaves(out, mid, hi, qPowers);
+    }
+
+    /**
+     * @param lo the first term of a range
+     * @param hi one past the last term of the range
+     * @return where split divides the range in two
+     * @spec.requires hi - lo > 1
+     */
+    private static int mid(int lo, int hi) {
+        // Splitting at a power of two keeps the powers needed by a dense polynomial few
+        return lo + Integer.highestOneBit(hi - lo - 1);
+    }
+
+    /**
+     * The powers of one number, each worked out the first time it is needed.
+     */
+    private static final class Powers {
+
+        /**
+         * The number whose powers these are.
+         */
+        final BigInteger base;
+
+        /**
+         * The powers worked out so far, by exponent.
+         */
+        private final Map<Integer, BigInteger> known = new HashMap<>();
+
+        /**
+         * @param base the number whose powers these are
+         * @spec.effects Constructs the powers of base
+         */
+        Powers(BigInteger base) {
+            this.base = base;
+        }
+
+        /**
+         * @param exponent the exponent
+         * @return base^exponent
+         * @spec.requires exponent >= 0
+         */
+        BigInteger get(int exponent) {
+            if(exponent <= 1) {
+                return exponent == 0 ? BigInteger.ONE : base;
+            }
+            return known.computeIfAbsent(exponent, e -> base.pow(e));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package poly;
+
+import java.util.Arrays;
+
+/**
+ * <b>HornerForm</b> is a polynomial compiled for evaluating at doubles by Horner's rule: its
+ * coefficients as doubles, highest power of x first, so that evaluating takes one multiply and one
+ * add per coefficient instead of a call to Math.pow per term.
+ * <p>
+ * A polynomial with a coefficient for at least a quarter of the powers of x up to its degree is
+ * held with a coefficient for every power, zeros included, so that evaluating many points at once
+ * is a run of simple loops over arrays that the JIT can turn into vector instructions. A sparser
+ * polynomial is held with only its non-zero coefficients and the gaps between their exponents.
+ * <p>
+ * HornerForms are immutable and are made by RatPoly.
+ */
+final class HornerForm {
+
+    // Abstraction Function:
+    // If gaps == null, a HornerForm represents the polynomial
+    //     sum (0 <= i < coeffs.length): coeffs[i] * x^(coeffs.length - 1 - i)
+    // Otherwise it represents
+    //     sum (0 <= i < coeffs.length): coeffs[i] * x^(gaps[i] + gaps[i+1] + ... + gaps[n-1])
+    // where n = coeffs.length.
+    //
+    // Representation Invariant:
+    // coeffs != null &&
+    // (gaps == null || (gaps.length == coeffs.length && gaps.length > 0 && gaps[n-1] >= 0 &&
+    //     forall i such that (0 <= i < n - 1), gaps[i] > 0))
+
+    /**
+     * The number of points evalMany works through one coefficient at a time, small enough that
+     * they and their partial values stay in the first level cache between coefficients.
+     */
+    private static final int BLOCK = 512;
+
+    /**
+     * The form of the zero polynomial.
+     */
+    static final HornerForm ZERO = new HornerForm(new double[0], null);
+
+    /**
+     * The form of a polynomial with a NaN coefficient, which is NaN everywhere.
+     */
+    static final HornerForm NaN = new HornerForm(new double[]{Double.NaN}, null);
+
+    /**
+     * The coefficients, highest power of x first.
+     */
+    private final double[] coeffs;
+
+    /**
+     * If the form is sparse, gaps[i] is the exponent of coeffs[i] less the exponent of
+     * coeffs[i + 1], or the exponent of coeffs[i] itself for the last coefficient; otherwise null.
+     */
+    private final int[] gaps;
+
+    /**
+     * @param coeffs the coefficients, highest power of x first
+     * @param gaps   the gaps between the exponents of the coefficients, or null if coeffs has a
+     *               coefficient for every power of x
+     * @spec.requires coeffs and gaps satisfy the rep. invariant
+     * @spec.effects Constructs a new HornerForm holding coeffs and gaps, without copying them
+     */
+    HornerForm(double[] coeffs, int[] gaps) {
+        this.coeffs = coeffs;
+        this.gaps = gaps;
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert (coeffs != null) : "coeffs == null";
+        if(gaps != null) {
+            assert (gaps.length == coeffs.length && gaps.length > 0) : "bad gaps length";
+            for(int i = 0; i < gaps.length; i++) {
+                assert (gaps[i] > 0 || (i == gaps.length - 1 && gaps[i] == 0)) : "bad gap";
+            }
+        }
+    }
+
+    /**
+     * Returns the value of this polynomial at x.
+     *
+     * @param x the value at which to evaluate this polynomial
+     * @return the value of this polynomial at x, worked out by Horner's rule
+     */
+    double eval(double x) {
+        int n = coeffs.length;
+        if(n == 0) {
+            return 0;
+        }
+        // Starting from the leading coefficient rather than from 0 keeps 0 * infinity out
+        double res = coeffs[0];
+        if(gaps == null) {
+            for(int i = 1; i < n; i++) {
+                res = res * x + coeffs[i];
+            }
+            return res;
+        }
+        for(int i = 1; i < n; i++) {
+            res = res * power(x, gaps[i - 1]) + coeffs[i];
+        }
+        return res * power(x, gaps[n - 1]);
+    }
+
+    /**
+     * Evaluates this polynomial at every point of xs.
+     *
+     * @param xs  the values at which to evaluate this polynomial
+     * @param out the array to store the values in
+     * @spec.requires xs != null, out != null, out.length >= xs.length
+     * @spec.modifies out
+     * @spec.effects sets out[i] to eval(xs[i]) for every 0 <= i < xs.length
+     */
+    void evalMany(double[] xs, double[] out) {
+        int n = coeffs.length;
+        if(n == 0 || (gaps != null && n == 1 && gaps[0] == 0)) {
+            // A constant; fill does not read xs, so out may be xs
+            Arrays.fill(out, 0, xs.length, n == 0 ? 0 : coeffs[0]);
+            return;
+        }
+        if(out == xs) {
+            xs = xs.clone();
+        }
+        for(int from = 0; from < xs.length; from += BLOCK) {
+            int to = Math.min(from + BLOCK, xs.length);
+            double lead = coeffs[0];
+            for(int j = from; j < to; j++) {
+                out[j] = lead;
+            }
+            if(gaps == null) {
+                for(int i = 1; i < n; i++) {
+                    double c = coeffs[i];
+                    // The same multiply and add as eval, on every point of the block
+                    for(int j = from; j < to; j++) {
+                        out[j] = out[j] * xs[j] + c;
+                    }
+                }
+                continue;
+            }
+            for(int i = 1; i < n; i++) {
+                int gap = gaps[i - 1];
+                double c = coeffs[i];
+                if(gap == 1) {
+                    for(int j = from; j < to; j++) {
+                        out[j] = out[j] * xs[j] + c;
+                    }
+                } else {
+                    for(int j = from; j < to; j++) {
+                        out[j] = out[j] * power(xs[j], gap) + c;
+                    }
+                }
+            }
+            int last = gaps[n - 1];
+            if(last != 0) {
+                for(int j = from; j < to; j++) {
+                    out[j] = out[j] * power(xs[j], last);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param x   the base
+     * @param gap the exponent
+     * @return x^gap
+     * @spec.requires gap >= 0
+     */
+    private static double power(double x, int gap) {
+        return gap == 1 ? x : Math.pow(x, gap);
+    }
+}
@@ -0,0 +1,547 @@
+package poly;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <b>ModularMul</b> multiplies polynomials with integer coefficients exactly, for RatPoly to use
+ * on products too large for its schoolbook multiplication.
+ *
+ * <p>Rather than working with arbitrarily large integers throughout, the coefficients are reduced
+ * modulo several primes below 2^31, the polynomials are multiplied separately modulo each
+ * prime, where every number fits in a long, and each coefficient of the product is put back
+ * together from its remainders with the Chinese remainder theorem. Enough primes are used that
+ * their product is more than twice the largest coefficient the product can have, so the result
+ * is exact.
+ *
+ * <p>Modulo each prime, small products are multiplied by the schoolbook method, medium ones by
+ * Karatsuba's method, which trades one of the four half-size products for a few additions, and
+ * large ones with a number theoretic transform (an FFT over the integers modulo the prime),
+ * which takes O(n log n) time. Every prime used is of the form c*2^23+1, so that transforms of
+ * up to 2^23 points exist modulo all of them.
+ */
+final class ModularMul {
+
+    /**
+     * Multiplies by the schoolbook method, whatever the size.
+     */
+    static final int SCHOOLBOOK = 0;
+
+    /**
+     * Multiplies by Karatsuba's method down to KARATSUBA_THRESHOLD, whatever the size.
+     */
+    static final int KARATSUBA = 1;
+
+    /**
+     * Multiplies with a number theoretic transform, whatever the size.
+     */
+    static final int NTT = 2;
+
+    /**
+     * Picks the fastest method for the size of the product.
+     */
+    static final int AUTO = 3;
+
+    /**
+     * The length of the shorter polynomial below which Karatsuba's method falls back to the
+     * schoolbook method, measured with PolyMulBenchmark.
+     */
+    static final int KARATSUBA_THRESHOLD = 64;
+
+    /**
+     * The length of the shorter polynomial from which a transform beats Karatsuba's method,
+     * measured with PolyMulBenchmark.
+     */
+    static final int NTT_THRESHOLD = 256;
+
+    /**
+     * The largest power of 2 dividing p - 1 for every prime p used, so the longest transform.
+     */
+    private static final int MAX_NTT_LENGTH = 1 << 23;
+
+    /**
+     * The primes the products are worked out modulo, all of the form c*2^23+1 and below 2^31,
+     * from largest to smallest.
+     */
+    private static final long[] PRIMES;
+
+    /**
+     * BITS[k] is a lower bound on the base 2 logarithm of the product of the first k primes.
+     */
+    private static final int[] BITS;
+
+    /**
+     * ROOTS[i] is a primitive root modulo PRIMES[i].
+     */
+    private static final long[] ROOTS;
+
+    /**
+     * INVERSES[i][j] is the inverse of PRIMES[j] modulo PRIMES[i], for j < i.
+     */
+    private static final long[][] INVERSES;
+
+    /**
+     * RADIX[k] is the product of the first k primes.
+     */
+    private static final BigInteger[] RADIX;
+
+    static {
+        List<long[]> found = new ArrayList<>();
+        for(long c = (Integer.MAX_VALUE >> 23); c >= 1; c--) {
+            long p = (c << 23) + 1;
+            if(isPrime(p)) {
+                found.add(new long[]{p, primitiveRoot(p)});
+            }
+        }
+        PRIMES = new long[found.size()];
+        ROOTS = new long[found.size()];
+        BITS = new int[found.size() + 1];
+        INVERSES = new long[found.size()][];
+        RADIX = new BigInteger[found.size() + 1];
+        RADIX[0] = BigInteger.ONE;
+        for(int i = 0; i < found.size(); i++) {
+            PRIMES[i] = found.get(i)[0];
+            ROOTS[i] = found.get(i)[1];
+            BITS[i + 1] = BITS[i] + 63 - Long.numberOfLeadingZeros(PRIMES[i]);
+            INVERSES[i] = new long[i];
+            for(int j = 0; j < i; j++) {
+                INVERSES[i][j] = pow(PRIMES[j] % PRIMES[i], PRIMES[i] - 2, PRIMES[i]);
+            }
+            RADIX[i + 1] = RADIX[i].multiply(BigInteger.valueOf(PRIMES[i]));
+        }
+    }
+
+    /**
+     * This class only has static methods.
+     */
+    private ModularMul() {
+    }
+
+    /**
+     * Returns whether the product of two polynomials of the given lengths and coefficient sizes
+     * can be worked out by multiply.
+     *
+     * @param lengthA the number of coefficients of the first polynomial
+     * @param lengthB the number of coefficients of the second polynomial
+     * @param bitsA   the bit length of the largest coefficient of the first polynomial
+     * @param bitsB   the bit length of the largest coefficient of the second polynomial
+     * @return true iff there are transforms long enough and primes enough for the product
+     */
+    static boolean canMultiply(int lengthA, int lengthB, int bitsA, int bitsB) {
+        return (long) lengthA + lengthB - 1 <= MAX_NTT_LENGTH
+               && primesNeeded(Math.min(lengthA, lengthB), bitsA, bitsB) <= PRIMES.length;
+    }
+
+    /**
+     * Multiplies two polynomials with integer coefficients, picking the fastest method.
+     *
+     * @param a the coefficients of the first polynomial, where a[e] is the coefficient of x^e
+     * @param b the coefficients of the second polynomial
+     * @return the coefficients of a * b, which has a.length + b.length - 1 of them
+     * @spec.requires a and b are non-empty with no null elements, and canMultiply(a.length,
+     * b.length, bit length of the largest |a[e]|, bit length of the largest |b[e]|)
+     */
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        return multiply(a, b, AUTO);
+    }
+
+    /**
+     * Multiplies two polynomials with integer coefficients by the given method.
+     *
+     * @param a      the coefficients of the first polynomial, where a[e] is the coefficient of x^e
+     * @param b      the coefficients of the second polynomial
+     * @param method SCHOOLBOOK, KARATSUBA, NTT or AUTO
+     * @return the coefficients of a * b, which has a.length + b.length - 1 of them
+     * @spec.requires the same as multiply(a, b)
+     */
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b, int method) {
+        int k = primesNeeded(Math.min(a.length, b.length), maxBitLength(a), maxBitLength(b));
+        long[][] residues = new long[k][];
+        for(int i = 0; i < k; i++) {
+            long p = PRIMES[i];
+            residues[i] = multiplyMod(reduce(a, p), reduce(b, p), i, method);
+        }
+        return reconstruct(residues, k, a.length + b.length - 1);
+    }
+
+    /**
+     * Returns the number of primes whose product is more than twice any coefficient the product
+     * of two polynomials can have.
+     *
+     * @param shorter the number of coefficients of the shorter polynomial
+     * @param bitsA   the bit length of the largest coefficient of the first polynomial
+     * @param bitsB   the bit length of the largest coefficient of the second polynomial
+     * @return the number of primes to multiply modulo, or more than PRIMES.length if there are
+     * not enough
+     */
+    private static int primesNeeded(int shorter, int bitsA, int bitsB) {
+        // Every coefficient is a sum of at most 'shorter' products, and the sign takes a bit
+        long bits = (long) bitsA + bitsB + (32 - Integer.numberOfLeadingZeros(shorter)) + 1;
+        int k = 1;
+        while(k <= PRIMES.length && BITS[k] < bits) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * @param values the numbers to measure
+     * @return the largest bit length of the absolute value of any element of values
+     */
+    private static int maxBitLength(BigInteger[] values) {
+        int bits = 0;
+        for(BigInteger value : values) {
+            bits = Math.max(bits, value.abs().bitLength());
+        }
+        return bits;
+    }
+
+    /**
+     * @param values the numbers to reduce
+     * @param p      the modulus
+     * @return a new array of every element of values modulo p, from 0 to p - 1
+     */
+    private static long[] reduce(BigInteger[] values, long p) {
+        BigInteger modulus = BigInteger.valueOf(p);
+        long[] result = new long[values.length];
+        for(int i = 0; i < values.length; i++) {
+            result[i] = values[i].bitLength() < 64 ? Math.floorMod(values[i].longValue(), p)
+                        : values[i].mod(modulus).longValue();
+        }
+        return result;
+    }
+
+    /**
+     * Multiplies two polynomials modulo one of the primes by the given method.
+     *
+     * @param a      the coefficients of the first polynomial, reduced modulo the prime
+     * @param b      the coefficients of the second polynomial, reduced modulo the prime
+     * @param prime  the index of the prime in PRIMES
+     * @param method SCHOOLBOOK, KARATSUBA, NTT or AUTO
+     * @return the coefficients of a * b modulo the prime
+     */
+    private static long[] multiplyMod(long[] a, long[] b, int prime, int method) {
+        long p = PRIMES[prime];
+        int shorter = Math.min(a.length, b.length);
+        if(method == AUTO) {
+            method = shorter < KARATSUBA_THRESHOLD ? SCHOOLBOOK
+                     : shorter < NTT_THRESHOLD ? KARATSUBA : NTT;
+        }
+        long[] result = new long[a.length + b.length - 1];
+        if(method == NTT) {
+            ntt(a, b, result, prime);
+        } else if(method == KARATSUBA) {
+            // Karatsuba's method splits both in half, so the longer one is cut into pieces as
+            // long as the shorter one
+            long[] piece = new long[2 * shorter - 1];
+            long[] shortOne = a.length <= b.length ? a : b;
+            long[] longOne = a.length <= b.length ? b : a;
+            for(int start = 0; start < longOne.length; start += shorter) {
+                int length = Math.min(shorter, longOne.length - start);
+                long[] chunk = new long[shorter];
+                System.arraycopy(longOne, start, chunk, 0, length);
+                Arrays.fill(piece, 0);
+                karatsuba(shortOne, 0, chunk, 0, shorter, piece, p);
+                for(int i = 0; i < piece.length && start + i < result.length; i++) {
+                    result[start + i] = addMod(result[start + i], piece[i], p);
+                }
+            }
+        } else {
+            schoolbook(a, 0, a.length, b, 0, b.length, result, 0, p);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the schoolbook product of two slices of polynomials into a third, modulo p.
+     *
+     * @param a      the first polynomial
+     * @param aStart where its slice starts
+     * @param aLen   the length of its slice
+     * @param b      the second polynomial
+     * @param bStart where its slice starts
+     * @param bLen   the length of its slice
+     * @param out    the polynomial to add the product into
+     * @param oStart where the product is added in out
+     * @param p      the modulus
+     * @spec.modifies out
+     */
+    private static void schoolbook(long[] a, int aStart, int aLen, long[] b, int bStart, int bLen,
+                                   long[] out, int oStart, long p) {
+        for(int i = 0; i < aLen; i++) {
+            long ai = a[aStart + i];
+            if(ai != 0) {
+                for(int j = 0; j < bLen; j++) {
+                    int k = oStart + i + j;
+                    out[k] = (out[k] + ai * b[bStart + j]) % p;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the product of two slices of equal length into a third by Karatsuba's method, modulo
+     * p. With the slices split into low and high halves a = a0 + a1*x^h and b = b0 + b1*x^h,
+     * a*b = a0*b0 + ((a0+a1)*(b0+b1) - a0*b0 - a1*b1)*x^h + a1*b1*x^(2h), which takes three
+     * half-size products rather than four.
+     *
+     * @param a      the first polynomial
+     * @param aStart where its slice starts
+     * @param b      the second polynomial
+     * @param bStart where its slice starts
+     * @param n      the length of both slices
+     * @param out    the array to add the product into, from index 0
+     * @param p      the modulus
+     * @spec.requires out.length >= 2 * n - 1
+     * @spec.modifies out
+     */
+    private static void karatsuba(long[] a, int aStart, long[] b, int bStart, int n, long[] out,
+                                  long p) {
+        if(n < KARATSUBA_THRESHOLD) {
+            schoolbook(a, aStart, n, b, bStart, n, out, 0, p);
+            return;
+        }
+        int h = n / 2;
+        int hi = n - h;
+        long[] low = new long[2 * h - 1];
+        long[] high = new long[2 * hi - 1];
+        karatsuba(a, aStart, b, bStart, h, low, p);
+        karatsuba(a, aStart + h, b, bStart + h, hi, high, p);
+        long[] aSum = new long[hi];
+        long[] bSum = new long[hi];
+        for(int i = 0; i < hi; i++) {
+            aSum[i] = a[aStart + h + i];
+            bSum[i] = b[bStart + h + i];
+            if(i < h) {
+                aSum[i] = addMod(aSum[i], a[aStart + i], p);
+                bSum[i] = addMod(bSum[i], b[bStart + i], p);
+            }
+        }
+        long[] middle = new long[2 * hi - 1];
+        karatsuba(aSum, 0, bSum, 0, hi, middle, p);
+        for(int i = 0; i < low.length; i++) {
+            out[i] = addMod(out[i], low[i], p);
+            middle[i] = subMod(middle[i], low[i], p);
+        }
+        for(int i = 0; i < high.length; i++) {
+            out[2 * h + i] = addMod(out[2 * h + i], high[i], p);
+            middle[i] = subMod(middle[i], high[i], p);
+        }
+        for(int i = 0; i < middle.length; i++) {
+            out[h + i] = addMod(out[h + i], middle[i], p);
+        }
+    }
+
+    /**
+     * Multiplies two polynomials modulo a prime with a number theoretic transform: both are
+     * transformed, multiplied point by point and transformed back.
+     *
+     * @param a     the first polynomial, reduced modulo the prime
+     * @param b     the second polynomial, reduced modulo the prime
+     * @param out   the array to put the product in
+     * @param prime the index of the prime in PRIMES
+     * @spec.requires out.length == a.length + b.length - 1 <= MAX_NTT_LENGTH
+     * @spec.modifies out
+     */
+    private static void ntt(long[] a, long[] b, long[] out, int prime) {
+        long p = PRIMES[prime];
+        int n = Integer.highestOneBit(Math.max(1, out.length - 1)) << 1;
+        long[] fa = Arrays.copyOf(a, n);
+        long[] fb = Arrays.copyOf(b, n);
+        transform(fa, false, p, ROOTS[prime]);
+        transform(fb, false, p, ROOTS[prime]);
+        for(int i = 0; i < n; i++) {
+            fa[i] = fa[i] * fb[i] % p;
+        }
+        transform(fa, true, p, ROOTS[prime]);
+        long nInverse = pow(n, p - 2, p);
+        for(int i = 0; i < out.length; i++) {
+            out[i] = fa[i] * nInverse % p;
+        }
+    }
+
+    /**
+     * Transforms a polynomial in place with the iterative Cooley-Tukey method, evaluating it at
+     * every power of a primitive n-th root of unity modulo p, or undoing that without the final
+     * division by n.
+     *
+     * @param values  the coefficients to transform, whose length n is a power of 2
+     * @param inverse whether to use the inverse root of unity
+     * @param p       the modulus
+     * @param g       a primitive root modulo p
+     * @spec.requires (p - 1) is divisible by values.length
+     * @spec.modifies values
+     */
+    private static void transform(long[] values, boolean inverse, long p, long g) {
+        int n = values.length;
+        for(int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for(; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if(i < j) {
+                long tmp = values[i];
+                values[i] = values[j];
+                values[j] = tmp;
+            }
+        }
+        for(int length = 2; length <= n; length <<= 1) {
+            long root = pow(g, (p - 1) / length, p);
+            if(inverse) {
+                root = pow(root, p - 2, p);
+            }
+            int half = length >> 1;
+            long[] powers = new long[half];
+            powers[0] = 1;
+            for(int k = 1; k < half; k++) {
+                powers[k] = powers[k - 1] * root % p;
+            }
+            for(int start = 0; start < n; start += length) {
+                for(int k = 0; k < half; k++) {
+                    long u = values[start + k];
+                    long v = values[start + k + half] * powers[k] % p;
+                    values[start + k] = addMod(u, v, p);
+                    values[start + k + half] = subMod(u, v, p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts every coefficient of a product back together from its remainders modulo the primes,
+     * using Garner's algorithm to write it in mixed radix first, so that only the last step needs
+     * large integers.
+     *
+     * @param residues residues[i][e] is coefficient e of the product modulo PRIMES[i]
+     * @param k        the number of primes used
+     * @param length   the number of coefficients
+     * @return the coefficients, each taken between -M/2 and M/2, where M is the product of the
+     * primes used
+     */
+    private static BigInteger[] reconstruct(long[][] residues, int k, int length) {
+        BigInteger half = RADIX[k].shiftRight(1);
+        BigInteger[] result = new BigInteger[length];
+        long[] digits = new long[k];
+        for(int e = 0; e < length; e++) {
+            for(int i = 0; i < k; i++) {
+                long p = PRIMES[i];
+                long x = residues[i][e];
+                for(int j = 0; j < i; j++) {
+                    x = subMod(x, digits[j] % p, p) * INVERSES[i][j] % p;
+                }
+                digits[i] = x;
+            }
+            BigInteger value = BigInteger.valueOf(digits[k - 1]);
+            for(int i = k - 2; i >= 0; i--) {
+                value = value.multiply(BigInteger.valueOf(PRIMES[i])).add(BigInteger.valueOf(digits[i]));
+            }
+            result[e] = value.compareTo(half) > 0 ? value.subtract(RADIX[k]) : value;
+        }
+        return result;
+    }
+
+    /**
+     * @return (a + b) mod p
+     * @spec.requires 0 <= a, b < p
+     */
+    private static long addMod(long a, long b, long p) {
+        long sum = a + b;
+        return sum >= p ? sum - p : sum;
+    }
+
+    /**
+     * @return (a - b) mod p
+     * @spec.requires 0 <= a, b < p
+     */
+    private static long subMod(long a, long b, long p) {
+        long diff = a - b;
+        return diff < 0 ? diff + p : diff;
+    }
+
+    /**
+     * @return base^exp mod p
+     * @spec.requires 0 <= base < p < 2^31, exp >= 0
+     */
+    private static long pow(long base, long exp, long p) {
+        long result = 1;
+        base %= p;
+        while(exp > 0) {
+            if((exp & 1) != 0) {
+                result = result * base % p;
+            }
+            base = base * base % p;
+            exp >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Tests a number for primality with the Miller-Rabin test, using bases that are known to
+     * give no false positives below 4,759,123,141.
+     *
+     * @param n the number to test
+     * @return true iff n is prime
+     * @spec.requires 2 < n < 2^31 and n is odd
+     */
+    private static boolean isPrime(long n) {
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        for(long a : new long[]{2, 7, 61}) {
+            if(a % n == 0) {
+                continue;
+            }
+            long x = pow(a, d, n);
+            if(x == 1 || x == n - 1) {
+                continue;
+            }
+            boolean composite = true;
+            for(int r = 1; r < s && composite; r++) {
+                x = x * x % n;
+                composite = x != n - 1;
+            }
+            if(composite) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the smallest primitive root modulo a prime of the form c*2^23+1.
+     *
+     * @param p the prime
+     * @return the smallest g such that the powers of g modulo p take every non-zero value
+     * @spec.requires p is prime and p = c*2^23+1 for some c
+     */
+    private static long primitiveRoot(long p) {
+        List<Long> factors = new ArrayList<>();
+        long rest = p - 1;
+        for(long f = 2; f * f <= rest; f++) {
+            if(rest % f == 0) {
+                factors.add(f);
+                while(rest % f == 0) {
+                    rest /= f;
+                }
+            }
+        }
+        if(rest > 1) {
+            factors.add(rest);
+        }
+        for(long g = 2; ; g++) {
+            boolean primitive = true;
+            for(long f : factors) {
+                if(pow(g, (p - 1) / f, p) == 1) {
+                    primitive = false;
+                    break;
+                }
+            }
+            if(primitive) {
+                return g;
+            }
+        }
+    }
+}
@@ -224,20 +224,30 @@ public final class PolyGraph extends Canvas {
             RatPoly currentRatPoly) {
         float delta = (xMax - xMin) / numIncrements;
         float currentX = xMin;
-        boolean firstTime = true;
         int i;
         float yVal = 0;
         float yMin = 0;
         float yMax = 0;
 
+        // Every x sample is found first, so the polynomial can be evaluated at all of them at once
+        int samples = 0;
+        while(samples < numIncrements && currentX < xMax) {
+            xValBuffer[samples] = currentX;
+            samples++;
+            currentX += delta;
+        }
+        double[] ys = new double[samples];
+        for(i = 0; i < samples; ++i) {
+            ys[i] = xValBuffer[i];
+        }
+        currentRatPoly.evalMany(ys, ys);
+
         for(i = 0; i < numIncrements; ++i) {
-            if(currentX < xMax) {
-                xValBuffer[i] = currentX;
-                yVal = (float) currentRatPoly.eval(currentX);
+            if(i < samples) {
+                yVal = (float) ys[i];
                 yValBuffer[i] = yVal;
 
-                if(firstTime) {
-                    firstTime = false;
+                if(i == 0) {
                     yMin = yVal;
                     yMax = yVal;
                 } else {
@@ -249,8 +259,6 @@ public final class PolyGraph extends Canvas {
                         yMax = yVal;
                     }
                 }
-
-                currentX += delta;
             } else {
                 xValBuffer[i] = xValBuffer[i - 1];
                 yValBuffer[i] = yValBuffer[i - 1];
@@ -0,0 +1,349 @@
+package poly;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * <b>PolyParser</b> reads RatNums, RatTerms and RatPolys from text in a single pass over the
+ * characters, without splitting the text into tokens or substrings first. Numerators and
+ * denominators are read into longs digit by digit, and only numbers too large for a long are
+ * handed to BigInteger. A polynomial's terms are collected as coefficients and exponents and
+ * turned into a RatPoly in one step, so terms written highest power first, as toString writes
+ * them, need no sorting at all.
+ * <p>
+ * The text read is in the forms given by the toString methods of RatNum, RatTerm and RatPoly. A
+ * PolyParser reads one range of one piece of text, and is used by one thread at a time.
+ */
+final class PolyParser {
+
+    // Abstraction Function:
+    // A PolyParser is the text text.subSequence(pos, end) still to be read, out of
+    // text.subSequence(start, end).
+    //
+    // Representation Invariant:
+    // text != null && 0 <= start <= pos <= end <= text.length()
+
+    /**
+     * The text being read.
+     */
+    private final CharSequence text;
+
+    /**
+     * The index of the first character to read.
+     */
+    private final int start;
+
+    /**
+     * The index of the next character to read.
+     */
+    private int pos;
+
+    /**
+     * One past the index of the last character to read.
+     */
+    private final int end;
+
+    /**
+     * The coefficients of the terms read so far by readPoly.
+     */
+    private RatNum[] coeffs = new RatNum[8];
+
+    /**
+     * The exponents of the terms read so far by readPoly.
+     */
+    private int[] expts = new int[8];
+
+    /**
+     * The number of terms read so far by readPoly.
+     */
+    private int count;
+
+    /**
+     * The coefficient of the term last read by readTerm.
+     */
+    private RatNum termCoeff;
+
+    /**
+     * The exponent of the term last read by readTerm.
+     */
+    private int termExpt;
+
+    /**
+     * @param text the text to read
+     * @param from the index of the first character to read
+     * @param to   one past the index of the last character to read
+     * @spec.requires text != null and 0 <= from <= to <= text.length()
+     * @spec.effects Constructs a new PolyParser reading text from 'from' up to 'to'
+     */
+    private PolyParser(CharSequence text, int from, int to) {
+        this.text = text;
+        this.start = from;
+        this.pos = from;
+        this.end = to;
+    }
+
+    /**
+     * Reads a RatPoly.
+     *
+     * @param text the text to read
+     * @param from the index of the first character of the polynomial
+     * @param to   one past the index of the last character of the polynomial
+     * @return the RatPoly written in text from 'from' up to 'to'
+     * @throws IllegalArgumentException if that is not a polynomial in the form written by
+     *                                  RatPoly.toString
+     * @spec.requires text != null and 0 <= from <= to <= text.length()
+     */
+    static RatPoly parsePoly(CharSequence text, int from, int to) {
+        return new PolyParser(text, from, to).readPoly();
+    }
+
+    /**
+     * Reads a RatTerm.
+     *
+     * @param text the text to read
+     * @param from the index of the first character of the term
+     * @param to   one past the index of the last character of the term
+     * @return the RatTerm written in text from 'from' up to 'to'
+     * @throws IllegalArgumentException if that is not a term in the form written by
+     *                                  RatTerm.toString
+     * @spec.requires text != null and 0 <= from <= to <= text.length()
+     */
+    static RatTerm parseTerm(CharSequence text, int from, int to) {
+        PolyParser parser = new PolyParser(text, from, to);
+        parser.readTerm(parser.skip('-'));
+        parser.expectEnd();
+        return new RatTerm(parser.termCoeff, parser.termExpt);
+    }
+
+    /**
+     * Reads a RatNum.
+     *
+     * @param text the text to read
+     * @param from the index of the first character of the number
+     * @param to   one past the index of the last character of the number
+     * @return the RatNum written in text from 'from' up to 'to'
+     * @throws IllegalArgumentException if that is not a number in the form written by
+     *                                  RatNum.toString
+     * @spec.requires text != null and 0 <= from <= to <= text.length()
+     */
+    static RatNum parseNum(CharSequence text, int from, int to) {
+        PolyParser parser = new PolyParser(text, from, to);
+        boolean negative = parser.skip('-');
+        if(!negative) {
+            parser.skip('+');
+        }
+        RatNum num = parser.readNum(negative, true);
+        parser.expectEnd();
+        return num;
+    }
+
+    /**
+     * Reads the whole range as a polynomial: terms separated by signs, or NaN.
+     *
+     * @return the polynomial read
+     * @throws IllegalArgumentException if the range is not a polynomial
+     * @spec.modifies this
+     */
+    private RatPoly readPoly() {
+        boolean nan = false;
+        boolean negative = false;
+        // An optional sign before the first term, then a sign before every other one
+        if(pos < end && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            negative = text.charAt(pos++) == '-';
+        }
+        while(pos < end) {
+            readTerm(negative);
+            if(termCoeff.isNaN()) {
+                nan = true;
+            } else if(!termCoeff.equals(RatNum.ZERO)) {
+                add(termCoeff, termExpt);
+            }
+            if(pos < end) {
+                char sign = text.charAt(pos);
+                if(sign != '+' && sign != '-') {
+                    throw malformed("'+' or '-'");
+                }
+                negative = sign == '-';
+                pos++;
+                if(pos == end) {
+                    throw malformed("a term");
+                }
+            }
+        }
+        return nan ? RatPoly.NaN : RatPoly.fromParsed(coeffs, expts, count);
+    }
+
+    /**
+     * Records a term read by readPoly.
+     *
+     * @param coeff the coefficient of the term
+     * @param expt  the exponent of the term
+     * @spec.modifies this
+     */
+    private void add(RatNum coeff, int expt) {
+        if(count == coeffs.length) {
+            coeffs = Arrays.copyOf(coeffs, 2 * count);
+            expts = Arrays.copyOf(expts, 2 * count);
+        }
+        coeffs[count] = coeff;
+        expts[count] = expt;
+        count++;
+    }
+
+    /**
+     * Reads a term whose sign has already been read: "NaN", "C", "C*x", "C*x^E", "x" or "x^E",
+     * into termCoeff and termExpt.
+     *
+     * @param negative whether the term is negated
+     * @throws IllegalArgumentException if no term starts at pos
+     * @spec.modifies this
+     */
+    private void readTerm(boolean negative) {
+        if(pos < end && text.charAt(pos) == 'x') {
+            termCoeff = RatNum.valueOf(negative ? -1 : 1, 1);
+        } else {
+            termCoeff = readNum(negative, false);
+            if(!skip('*')) {
+                termExpt = 0;
+                return;
+            }
+            if(pos == end || text.charAt(pos) != 'x') {
+                throw malformed("'x'");
+            }
+        }
+        pos++;
+        int expt = 1;
+        if(skip('^')) {
+            int start = pos;
+            long value = 0;
+            while(pos < end && isDigit(text.charAt(pos))) {
+                value = 10 * value + (text.charAt(pos++) - '0');
+                if(value > Integer.MAX_VALUE) {
+                    throw malformed("an exponent that fits in an int");
+                }
+            }
+            if(pos == start) {
+                throw malformed("an exponent");
+            }
+            expt = (int) value;
+        }
+        termExpt = expt;
+    }
+
+    /**
+     * Reads a number whose sign has already been read: "NaN", "N" or "N/D", where N and D are
+     * unsigned integers in decimal notation.
+     *
+     * @param negative    whether the number is negated
+     * @param signedDenom whether D may start with a sign, which RatNum.toString never writes but
+     *                    RatNum.valueOf accepts
+     * @return the number read
+     * @throws IllegalArgumentException if no number starts at pos
+     * @spec.modifies this
+     */
+    private RatNum readNum(boolean negative, boolean signedDenom) {
+        if(end - pos >= 3 && text.charAt(pos) == 'N' && text.charAt(pos + 1) == 'a'
+           && text.charAt(pos + 2) == 'N') {
+            pos += 3;
+            return RatNum.NaN;
+        }
+        int numerStart = pos;
+        long numer = readInteger();
+        int numerEnd = pos;
+        long denom = 1;
+        int denomStart = pos;
+        if(skip('/')) {
+            if(signedDenom && skip('-')) {
+                negative = !negative;
+            } else if(signedDenom) {
+                skip('+');
+            }
+            denomStart = pos;
+            denom = readInteger();
+        }
+        if(numer >= 0 && denom >= 0) {
+            return RatNum.of(negative ? -numer : numer, denom);
+        }
+        // Too large for a long; only now are the digits copied out of the text
+        BigInteger bigNumer = bigInteger(numerStart, numerEnd);
+        BigInteger bigDenom = denomStart == numerEnd ? BigInteger.ONE
+                                                     : bigInteger(denomStart, pos);
+        return RatNum.of(negative ? bigNumer.negate() : bigNumer, bigDenom);
+    }
+
+    /**
+     * Reads an unsigned integer in decimal notation.
+     *
+     * @return the integer read, or -1 if it does not fit in a long, in which case it must be
+     * read again with bigInteger
+     * @throws IllegalArgumentException if no integer starts at pos
+     * @spec.modifies this
+     */
+    private long readInteger() {
+        int start = pos;
+        long value = 0;
+        while(pos < end && isDigit(text.charAt(pos))) {
+            int digit = text.charAt(pos++) - '0';
+            if(value >= 0 && value <= (Long.MAX_VALUE - digit) / 10) {
+                value = 10 * value + digit;
+            } else {
+                value = -1;
+            }
+        }
+        if(pos == start) {
+            throw malformed("a digit");
+        }
+        return value;
+    }
+
+    /**
+     * @param from the index of the first digit of an unsigned integer
+     * @param to   one past the index of its last digit
+     * @return the integer written in text from 'from' up to 'to'
+     * @spec.requires that range holds only digits, as checked by readInteger
+     */
+    private BigInteger bigInteger(int from, int to) {
+        return new BigInteger(text.subSequence(from, to).toString());
+    }
+
+    /**
+     * Moves past the next character if it is c.
+     *
+     * @param c the character to look for
+     * @return true iff the next character was c
+     * @spec.modifies this
+     */
+    private boolean skip(char c) {
+        if(pos < end && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is text left to read
+     */
+    private void expectEnd() {
+        if(pos != end) {
+            throw malformed("the end");
+        }
+    }
+
+    /**
+     * @param c a character
+     * @return true iff c is a decimal digit
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @param expected what should have been at pos
+     * @return an exception saying the text is malformed at pos
+     */
+    private IllegalArgumentException malformed(String expected) {
+        return new IllegalArgumentException("Expected " + expected + " at index " + (pos - start)
+                                            + " of \"" + text.subSequence(start, end) + "\"");
+    }
+}
@@ -11,6 +11,10 @@
 
 package poly;
 
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Objects;
+
 /**
  * <b>RatNum</b> represents an <b>immutable</b> rational number. It includes all of the elements in
  * the set of rationals, as well as the special "NaN" (not-a-number) element that results from
@@ -21,6 +25,10 @@ package poly;
  * "NaN" is considered equal to itself, and larger than all other rationals.
  *
  * <p>Examples of RatNums include "-1/13", "53/7", "4", "NaN", and "0".
+ *
+ * <p>Arithmetic on RatNums is exact, however large the numerators and denominators grow. They are
+ * kept as longs while they fit, which needs no more objects than the result, and only once an
+ * operation would overflow a long is it worked out again with BigIntegers.
  */
 
 // ("immutable" is a common term for which "Effective Java" (p. 63)
@@ -32,32 +40,69 @@ package poly;
 public final class RatNum extends Number implements Comparable<RatNum> {
 
     /**
-     * Numerator of the rational number.
+     * Numerator of the rational number, if it is small enough to be stored as a long.
+     */
+    private final long numer;
+
+    /**
+     * Denominator of the rational number, if it is small enough to be stored as a long.
+     */
+    private final long denom;
+
+    /**
+     * Numerator of the rational number, or null if it is small enough to be stored as a long.
      */
-    private final int numer;
+    private final BigInteger bigNumer;
 
     /**
-     * Denominator of the rational number.
+     * Denominator of the rational number, or null if it is small enough to be stored as a long.
      */
-    private final int denom;
+    private final BigInteger bigDenom;
 
     // Abstraction Function:
-    //   A RatNum r is NaN if r.denom = 0, (r.numer / r.denom) otherwise.
+    //   A RatNum r is (r.bigNumer / r.bigDenom) if r.bigNumer != null. Otherwise
+    //   r is NaN if r.denom = 0, (r.numer / r.denom) otherwise.
     // (An abstraction function explains what the state of the fields in a
     // RatNum represents.  In this case, a rational number can be
     // understood as the result of dividing two integers, or not-a-number
     // if we would be dividing by zero.)
 
     // Representation invariant for every RatNum r:
-    //   (r.denom >= 0) &&
-    //   (r.denom > 0 ==> there does not exist integer i > 1 such that
-    //                    r.numer mod i = 0 and r.denom mod i = 0;)
+    //   (r.bigNumer == null) == (r.bigDenom == null) &&
+    //   (r.bigNumer == null ==> (r.denom >= 0) && (r.numer != Long.MIN_VALUE) &&
+    //                           (r.denom > 0 ==> there does not exist integer i > 1 such that
+    //                                            r.numer mod i = 0 and r.denom mod i = 0)) &&
+    //   (r.bigNumer != null ==> (r.denom == 1) && (r.bigDenom > 0) &&
+    //                           r.bigNumer/r.bigDenom is in reduced form &&
+    //                           r.bigNumer or r.bigDenom is outside the range of a long
+    //                           other than Long.MIN_VALUE)
     //   In other words,
-    //     * r.denom is always non-negative.
-    //     * r.numer/r.denom is in reduced form (assuming r.denom is not zero).
+    //     * every rational number has exactly one representation: as two longs whenever it
+    //       fits, otherwise as two BigIntegers.
+    //     * the denominator is always non-negative.
+    //     * the numerator/denominator is in reduced form (assuming the denominator is not zero).
+    //     * a long numerator can always be negated without overflowing.
     // (A representation invariant tells us something that is true for all
     // instances of a RatNum)
 
+    /**
+     * The largest absolute value of numerator that instances are shared for.
+     */
+    private static final int CACHE_NUMER = 256;
+
+    /**
+     * The largest denominator that instances are shared for.
+     */
+    private static final int CACHE_DENOM = 16;
+
+    /**
+     * The shared instance of every n/d in lowest terms with |n| <= CACHE_NUMER and
+     * 1 <= d <= CACHE_DENOM, at index (n + CACHE_NUMER) * CACHE_DENOM + d - 1, made the first
+     * time it is needed. Since RatNums are immutable, a thread that does not yet see another's
+     * instance just makes an equal one.
+     */
+    private static final RatNum[] CACHE = new RatNum[(2 * CACHE_NUMER + 1) * CACHE_DENOM];
+
     /**
      * A constant holding a Not-a-Number (NaN) value of type RatNum.
      */
@@ -68,6 +113,10 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      */
     public static final RatNum ZERO = new RatNum(0);
 
+    static {
+        CACHE[CACHE_NUMER * CACHE_DENOM] = ZERO;
+    }
+
     /**
      * @param n the value of the new RatNum
      * @spec.effects Constructs a new RatNum = n.
@@ -75,6 +124,8 @@ public final class RatNum extends Number implements Comparable<RatNum> {
     public RatNum(int n) {
         numer = n;
         denom = 1;
+        bigNumer = null;
+        bigDenom = null;
         checkRep();
     }
 
@@ -91,34 +142,240 @@ public final class RatNum extends Number implements Comparable<RatNum> {
 
         } else {
 
-            // reduce ratio to lowest terms
-            int g = gcd(n, d);
-            n = n / g;
-            d = d / g;
+            // reduce ratio to lowest terms, in longs since -Integer.MIN_VALUE is not an int
+            long g = gcd(n, d);
+            long ln = n / g;
+            long ld = d / g;
 
-            if(d < 0) {
-                numer = -n;
-                denom = -d;
+            if(ld < 0) {
+                numer = -ln;
+                denom = -ld;
             } else {
-                numer = n;
-                denom = d;
+                numer = ln;
+                denom = ld;
             }
         }
+        bigNumer = null;
+        bigDenom = null;
+        checkRep();
+    }
+
+    /**
+     * Makes a RatNum from fields that already satisfy the representation invariant.
+     *
+     * @param numer    the long numerator, or 0 if bigNumer != null
+     * @param denom    the long denominator, or 1 if bigNumer != null
+     * @param bigNumer the numerator if it does not fit in a long, otherwise null
+     * @param bigDenom the denominator if it does not fit in a long, otherwise null
+     */
+    private RatNum(long numer, long denom, BigInteger bigNumer, BigInteger bigDenom) {
+        this.numer = numer;
+        this.denom = denom;
+        this.bigNumer = bigNumer;
+        this.bigDenom = bigDenom;
         checkRep();
     }
 
+    /**
+     * Returns a RatNum with the given value. Unlike the constructor, this shares one instance of
+     * every number with a small numerator and denominator, the way {@link Integer#valueOf(int)}
+     * does, so it should be used wherever a new instance is not needed.
+     *
+     * @param n the numerator of the RatNum
+     * @param d the denominator of the RatNum
+     * @return NaN if d = 0, (n / d) otherwise, which may not be a new instance
+     */
+    public static RatNum valueOf(int n, int d) {
+        return of(n, d);
+    }
+
+    /**
+     * Makes a RatNum from a numerator and denominator that are not necessarily in lowest terms,
+     * sharing instances as valueOf(int, int) does.
+     *
+     * @param n the numerator
+     * @param d the denominator
+     * @return NaN if d = 0, (n / d) otherwise
+     */
+    static RatNum of(long n, long d) {
+        if(d == 0) {
+            return NaN;
+        }
+        if(n == Long.MIN_VALUE || d == Long.MIN_VALUE) {
+            // Could not be negated if d were negative, or stored if it stayed the numerator
+            return of(BigInteger.valueOf(n), BigInteger.valueOf(d));
+        }
+        long g = gcd(n, d);
+        n /= g;
+        d /= g;
+        if(d < 0) {
+            n = -n;
+            d = -d;
+        }
+        return ofReduced(n, d);
+    }
+
+    /**
+     * Makes a RatNum from a numerator and denominator already in lowest terms, sharing instances
+     * as valueOf(int, int) does.
+     *
+     * @param n the numerator
+     * @param d the denominator
+     * @return (n / d)
+     * @spec.requires d > 0, n != Long.MIN_VALUE, and n/d is in lowest terms
+     */
+    static RatNum ofReduced(long n, long d) {
+        if(n < -CACHE_NUMER || n > CACHE_NUMER || d > CACHE_DENOM) {
+            return new RatNum(n, d, null, null);
+        }
+        int i = (int) (n + CACHE_NUMER) * CACHE_DENOM + (int) d - 1;
+        RatNum shared = CACHE[i];
+        if(shared == null) {
+            shared = new RatNum(n, d, null, null);
+            CACHE[i] = shared;
+        }
+        return shared;
+    }
+
+    /**
+     * Makes a RatNum from a numerator and denominator that are not necessarily in lowest terms.
+     *
+     * @param n the numerator
+     * @param d the denominator
+     * @return NaN if d = 0, (n / d) otherwise
+     * @spec.requires n != null, d != null
+     */
+    static RatNum of(BigInteger n, BigInteger d) {
+        if(d.signum() == 0) {
+            return NaN;
+        }
+        BigInteger g = n.gcd(d);
+        if(!g.equals(BigInteger.ONE)) {
+            n = n.divide(g);
+            d = d.divide(g);
+        }
+        if(d.signum() < 0) {
+            n = n.negate();
+            d = d.negate();
+        }
+        return ofReduced(n, d);
+    }
+
+    /**
+     * Makes a RatNum from a numerator and denominator that are already in lowest terms.
+     *
+     * @param n the numerator
+     * @param d the denominator
+     * @return (n / d)
+     * @spec.requires n != null, d > 0, and n / d is in lowest terms
+     */
+    static RatNum ofReduced(BigInteger n, BigInteger d) {
+        if(n.bitLength() < Long.SIZE && d.bitLength() < Long.SIZE
+           && n.longValue() != Long.MIN_VALUE) {
+            return ofReduced(n.longValue(), d.longValue());
+        }
+        return new RatNum(0, 1, n, d);
+    }
+
     /**
      * Throws an exception if the representation invariant is violated.
      */
     private void checkRep() {
-        assert (denom >= 0) : "Denominator of a RatNum cannot be less than zero";
+        assert ((bigNumer == null) == (bigDenom == null)) : "Only half of a RatNum is a BigInteger";
+
+        if(bigNumer == null) {
+            assert (denom >= 0) : "Denominator of a RatNum cannot be less than zero";
+            assert (numer != Long.MIN_VALUE) : "Numerator of a RatNum cannot be Long.MIN_VALUE";
 
-        if(denom > 0) {
-            int thisGcd = gcd(numer, denom);
-            assert (thisGcd == 1 || thisGcd == -1) : "RatNum not in lowest form";
+            // in the assertion, so that it costs nothing unless assertions are enabled
+            assert (denom == 0 || gcd(numer, denom) == 1) : "RatNum not in lowest form";
+        } else {
+            assert (denom == 1) : "RatNum stored two ways";
+            assert (bigDenom.signum() > 0) : "Denominator of a RatNum cannot be less than zero";
+            assert (bigNumer.gcd(bigDenom).equals(BigInteger.ONE)) : "RatNum not in lowest form";
+            assert (bigNumer.bitLength() >= Long.SIZE || bigDenom.bitLength() >= Long.SIZE
+                    || bigNumer.longValue() == Long.MIN_VALUE) : "RatNum small enough for longs";
         }
     }
 
+    /**
+     * Returns whether the numerator and denominator of this in lowest terms both fit in an int,
+     * for the classes of this package that store coefficients as primitives.
+     *
+     * @return true iff numerator() and denominator() give the numerator and denominator of this
+     */
+    boolean fitsInt() {
+        return bigNumer == null && numer == (int) numer && denom == (int) denom;
+    }
+
+    /**
+     * Returns the numerator of this in lowest terms.
+     *
+     * @return the numerator of this, which has the same sign as this
+     * @spec.requires fitsInt()
+     */
+    int numerator() {
+        return (int) numer;
+    }
+
+    /**
+     * Returns the denominator of this in lowest terms.
+     *
+     * @return the denominator of this, which is positive, or 0 if this is NaN
+     * @spec.requires fitsInt()
+     */
+    int denominator() {
+        return (int) denom;
+    }
+
+    /**
+     * Returns whether the numerator and denominator of this in lowest terms both fit in a long.
+     *
+     * @return true iff longNumerator() and longDenominator() give the numerator and denominator of
+     * this
+     */
+    boolean fitsLong() {
+        return bigNumer == null;
+    }
+
+    /**
+     * Returns the numerator of this in lowest terms.
+     *
+     * @return the numerator of this, which has the same sign as this
+     * @spec.requires fitsLong()
+     */
+    long longNumerator() {
+        return numer;
+    }
+
+    /**
+     * Returns the denominator of this in lowest terms.
+     *
+     * @return the denominator of this, which is positive, or 0 if this is NaN
+     * @spec.requires fitsLong()
+     */
+    long longDenominator() {
+        return denom;
+    }
+
+    /**
+     * Returns the numerator of this in lowest terms, however large.
+     *
+     * @return the numerator of this, which has the same sign as this
+     */
+    BigInteger bigNumerator() {
+        return bigNumer != null ? bigNumer : BigInteger.valueOf(numer);
+    }
+
+    /**
+     * Returns the denominator of this in lowest terms, however large.
+     *
+     * @return the denominator of this, which is positive, or 0 if this is NaN
+     */
+    BigInteger bigDenominator() {
+        return bigDenom != null ? bigDenom : BigInteger.valueOf(denom);
+    }
+
     /**
      * Returns true if this is NaN
      *
@@ -163,8 +420,17 @@ public final class RatNum extends Number implements Comparable<RatNum> {
         } else if(rn.isNaN()) {
             return -1;
         } else {
-            RatNum diff = this.sub(rn);
-            return diff.numer;
+            // a/b < x/y iff ay < xb, since b and y are positive
+            if(this.bigNumer == null && rn.bigNumer == null) {
+                try {
+                    return Long.compare(Math.multiplyExact(this.numer, rn.denom),
+                                        Math.multiplyExact(rn.numer, this.denom));
+                } catch(ArithmeticException overflow) {
+                    // compared as BigIntegers below
+                }
+            }
+            return this.bigNumerator().multiply(rn.bigDenominator())
+                       .compareTo(rn.bigNumerator().multiply(this.bigDenominator()));
         }
     }
 
@@ -181,30 +447,31 @@ public final class RatNum extends Number implements Comparable<RatNum> {
     public double doubleValue() {
         if(isNaN()) {
             return Double.NaN;
-        } else {
-            // convert int values to doubles before dividing.
+        } else if(bigNumer == null) {
+            // convert long values to doubles before dividing.
             return ((double) numer) / ((double) denom);
+        } else {
+            // Either part alone may be too large for a double, so the quotient is worked out in
+            // BigIntegers: scaled by 2^shift so that it has 56 or 57 bits, with a last bit set if
+            // anything was left over, it holds enough bits to round to a double correctly
+            BigInteger n = bigNumer.abs();
+            int shift = bigDenom.bitLength() - n.bitLength() + 56;
+            BigInteger[] qr = shift >= 0 ? n.shiftLeft(shift).divideAndRemainder(bigDenom)
+                                         : n.divideAndRemainder(bigDenom.shiftLeft(-shift));
+            long q = qr[0].longValue() | (qr[1].signum() == 0 ? 0 : 1);
+            double value = Math.scalb((double) q, -shift);
+            return bigNumer.signum() < 0 ? -value : value;
         }
     }
 
     /**
      * Returns an integer approximation for this. The rational number is rounded to the nearest
-     * integer.
+     * integer, and if that is outside the range of an int, only its low-order 32 bits are kept,
+     * as with {@link BigInteger#intValue()}.
      */
     @Override
     public int intValue() {
-        // Round to nearest integer by adding +/- .5 before truncating division.
-        // We expect the implementation to use "round half away from zero".
-        // For more info, see http://en.wikipedia.org/wiki/Rounding#Round_half_away_from_zero
-
-        // Note that even though the result is guaranteed to fit in an int,
-        // we need to use longs for the computation because the
-        // intermediate results might not fit in an int.
-        if(numer >= 0) {
-            return (int) (((long) numer + (denom / 2)) / denom);
-        } else {
-            return (int) (((long) numer - (denom / 2)) / denom);
-        }
+        return (int) longValue();
     }
 
     /**
@@ -217,18 +484,33 @@ public final class RatNum extends Number implements Comparable<RatNum> {
 
     /**
      * Returns a long approximation for this. This method is specified by our superclass, Number. The
-     * value returned is rounded to the nearest long.
+     * value returned is rounded to the nearest long, and if that is outside the range of a long,
+     * only its low-order 64 bits are kept, as with {@link BigInteger#longValue()}.
      */
     @Override
     public long longValue() {
-        // The approximation is guaranteed to be within the representable
-        // range of int values (because the numerator and denominators are
-        // represented as int, not long), so returning intValue is correct.
-        return intValue();
+        // Round to nearest integer, rounding halves away from zero.
+        // For more info, see http://en.wikipedia.org/wiki/Rounding#Round_half_away_from_zero
+        if(bigNumer == null) {
+            long whole = numer / denom;
+            long rest = Math.abs(numer % denom);
+            // rest >= denom - rest rather than 2 * rest >= denom, which could overflow
+            if(rest >= denom - rest) {
+                whole += Long.signum(numer);
+            }
+            return whole;
+        } else {
+            BigInteger[] qr = bigNumer.divideAndRemainder(bigDenom);
+            if(qr[1].abs().shiftLeft(1).compareTo(bigDenom) >= 0) {
+                return qr[0].add(BigInteger.valueOf(bigNumer.signum())).longValue();
+            }
+            return qr[0].longValue();
+        }
     }
 
     // in the implementation comments for the following methods, <this>
-    // is notated as "a/b" and <arg> likewise as "x/y"
+    // is notated as "a/b" and <arg> likewise as "x/y". Each works in longs,
+    // and only if that overflows works again in BigIntegers.
 
     /**
      * Returns the additive inverse of this RatNum.
@@ -236,7 +518,12 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      * @return a Rational equal to (0 - this)
      */
     public RatNum negate() {
-        return new RatNum(-this.numer, this.denom);
+        if(isNaN()) {
+            return NaN;
+        } else if(bigNumer == null) {
+            return ofReduced(-numer, denom);
+        }
+        return of(bigNumer.negate(), bigDenom);
     }
 
     /**
@@ -247,8 +534,20 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      * @spec.requires arg != null
      */
     public RatNum add(RatNum arg) {
+        if(this.isNaN() || arg.isNaN()) {
+            return NaN;
+        }
         // a/b + x/y = ay/by + bx/by = (ay + bx)/by
-        return new RatNum((this.numer * arg.denom) + (arg.numer * this.denom), this.denom * arg.denom);
+        if(this.bigNumer == null && arg.bigNumer == null) {
+            try {
+                return sum(this.numer, this.denom, arg.numer, arg.denom);
+            } catch(ArithmeticException overflow) {
+                // worked out in BigIntegers below
+            }
+        }
+        return of(this.bigNumerator().multiply(arg.bigDenominator())
+                      .add(arg.bigNumerator().multiply(this.bigDenominator())),
+                  this.bigDenominator().multiply(arg.bigDenominator()));
     }
 
     /**
@@ -259,8 +558,20 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      * @spec.requires arg != null
      */
     public RatNum sub(RatNum arg) {
+        if(this.isNaN() || arg.isNaN()) {
+            return NaN;
+        }
         // a/b - x/y = a/b + -x/y
-        return this.add(arg.negate());
+        if(this.bigNumer == null && arg.bigNumer == null) {
+            try {
+                return sum(this.numer, this.denom, -arg.numer, arg.denom);
+            } catch(ArithmeticException overflow) {
+                // worked out in BigIntegers below
+            }
+        }
+        return of(this.bigNumerator().multiply(arg.bigDenominator())
+                      .subtract(arg.bigNumerator().multiply(this.bigDenominator())),
+                  this.bigDenominator().multiply(arg.bigDenominator()));
     }
 
     /**
@@ -271,8 +582,19 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      * @spec.requires arg != null
      */
     public RatNum mul(RatNum arg) {
+        if(this.isNaN() || arg.isNaN()) {
+            return NaN;
+        }
         // (a/b) * (x/y) = ax/by
-        return new RatNum(this.numer * arg.numer, this.denom * arg.denom);
+        if(this.bigNumer == null && arg.bigNumer == null) {
+            try {
+                return product(this.numer, this.denom, arg.numer, arg.denom);
+            } catch(ArithmeticException overflow) {
+                // worked out in BigIntegers below
+            }
+        }
+        return of(this.bigNumerator().multiply(arg.bigNumerator()),
+                  this.bigDenominator().multiply(arg.bigDenominator()));
     }
 
     /**
@@ -284,32 +606,136 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      * @spec.requires arg != null
      */
     public RatNum div(RatNum arg) {
-        // (a/b) / (x/y) = ay/bx
-        if(arg.isNaN()) {
-            return arg;
-        } else {
-            return new RatNum(this.numer * arg.denom, this.denom * arg.numer);
+        if(this.isNaN() || arg.isNaN()) {
+            return NaN;
         }
+        // (a/b) / (x/y) = (a/b) * (y/x), with the sign of x moved to y
+        if(this.bigNumer == null && arg.bigNumer == null) {
+            if(arg.numer == 0) {
+                return NaN;
+            }
+            try {
+                return product(this.numer, this.denom,
+                               arg.numer < 0 ? -arg.denom : arg.denom, Math.abs(arg.numer));
+            } catch(ArithmeticException overflow) {
+                // worked out in BigIntegers below
+            }
+        }
+        return of(this.bigNumerator().multiply(arg.bigDenominator()),
+                  this.bigDenominator().multiply(arg.bigNumerator()));
+    }
+
+    /**
+     * Adds two fractions in lowest terms, keeping the numbers multiplied small and needing no
+     * reduction at the end. With g = gcd(b, y), a/b + x/y = (a(y/g) + x(b/g)) / ((b/g)y), and
+     * the only common factors that numerator and denominator can have are those of g, so only
+     * the numerator and g need to be reduced.
+     *
+     * @param a the numerator of the first fraction
+     * @param b the denominator of the first fraction
+     * @param x the numerator of the second fraction
+     * @param y the denominator of the second fraction
+     * @return a/b + x/y
+     * @throws ArithmeticException if a number worked out along the way does not fit in a long
+     * @spec.requires b, y > 0, a/b and x/y are in lowest terms, and a, x != Long.MIN_VALUE
+     */
+    private static RatNum sum(long a, long b, long x, long y) {
+        long g = b == 1 || y == 1 ? 1 : gcd(b, y);
+        if(g == 1) {
+            return reduced(Math.addExact(Math.multiplyExact(a, y), Math.multiplyExact(x, b)),
+                           Math.multiplyExact(b, y));
+        }
+        long t = Math.addExact(Math.multiplyExact(a, y / g), Math.multiplyExact(x, b / g));
+        if(t == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        long h = gcd(t, g);
+        return reduced(t / h, Math.multiplyExact(b / g, y / h));
+    }
+
+    /**
+     * Multiplies two fractions in lowest terms, cancelling common factors across them before
+     * multiplying, so the numbers multiplied are as small as they can be and the product needs
+     * no reduction: (a/b) * (x/y) = ((a/g)(x/h)) / ((b/h)(y/g)) with g = gcd(a, y) and
+     * h = gcd(x, b).
+     *
+     * @param a the numerator of the first fraction
+     * @param b the denominator of the first fraction
+     * @param x the numerator of the second fraction
+     * @param y the denominator of the second fraction
+     * @return a/b * x/y
+     * @throws ArithmeticException if the product does not fit in longs
+     * @spec.requires b, y > 0, a/b and x/y are in lowest terms, and a, x != Long.MIN_VALUE
+     */
+    private static RatNum product(long a, long b, long x, long y) {
+        // Whole numbers are common, and have nothing to cancel
+        long g = y == 1 ? 1 : gcd(a, y);
+        long h = b == 1 ? 1 : gcd(x, b);
+        return reduced(Math.multiplyExact(a / g, x / h), Math.multiplyExact(b / h, y / g));
+    }
+
+    /**
+     * @param n the numerator
+     * @param d the denominator
+     * @return (n / d)
+     * @spec.requires d > 0 and n/d is in lowest terms
+     */
+    private static RatNum reduced(long n, long d) {
+        if(n == Long.MIN_VALUE) {
+            return of(BigInteger.valueOf(n), BigInteger.valueOf(d));
+        }
+        return ofReduced(n, d);
     }
 
     /**
      * Returns the greatest common divisor of 'a' and 'b'.
      *
      * @param a, b The numbers for which to find the GCD
-     * @return d such that a % d = 0 and b % d = 0
-     * @spec.requires b != 0
+     * @return the largest d > 0 such that a % d = 0 and b % d = 0
+     * @spec.requires a != 0 or b != 0, and a, b != Long.MIN_VALUE
      */
-    private static int gcd(int a, int b) {
-        // Euclid's method
-        if(b == 0) {
-            return 0;
+    static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        if(a == 0 || b == 0) {
+            return a | b;
         }
-        while(b != 0) {
-            int tmp = b;
-            b = a % b;
-            a = tmp;
+        if((a | b) <= Integer.MAX_VALUE) {
+            return gcdInt((int) a, (int) b);
         }
-        return a;
+        // Stein's binary method, which takes out common factors of 2 with shifts rather than
+        // dividing: gcd(a, b) = gcd(a, b - a) for odd a and b, and b - a is even
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>= Long.numberOfTrailingZeros(b);
+            long diff = b - a;
+            a = Math.min(a, b);
+            b = Math.abs(diff);
+        } while(b != 0);
+        return a << shift;
+    }
+
+    /**
+     * Returns the greatest common divisor of 'a' and 'b', by the same method as gcd(long, long)
+     * but in ints, which is faster where both fit.
+     *
+     * @param a, b The numbers for which to find the GCD
+     * @return the largest d > 0 such that a % d = 0 and b % d = 0
+     * @spec.requires a, b > 0
+     */
+    private static int gcdInt(int a, int b) {
+        int shift = Integer.numberOfTrailingZeros(a | b);
+        a >>= Integer.numberOfTrailingZeros(a);
+        do {
+            b >>= Integer.numberOfTrailingZeros(b);
+            // min and abs rather than comparing and swapping, which the JIT compiles without
+            // branches that are hard to predict
+            int diff = b - a;
+            a = Math.min(a, b);
+            b = Math.abs(diff);
+        } while(b != 0);
+        return a << shift;
     }
 
     /**
@@ -323,7 +749,10 @@ public final class RatNum extends Number implements Comparable<RatNum> {
         if(this.isNaN()) {
             return 0;
         }
-        return (this.numer * 2) + (this.denom * 3);
+        if(bigNumer != null) {
+            return (bigNumer.hashCode() * 2) + (bigDenom.hashCode() * 3);
+        }
+        return Long.hashCode((this.numer * 2) + (this.denom * 3));
     }
 
     /**
@@ -342,7 +771,10 @@ public final class RatNum extends Number implements Comparable<RatNum> {
             if(this.isNaN() && rn.isNaN()) {
                 return true;
             } else {
-                return (this.numer == rn.numer) && (this.denom == rn.denom);
+                // every number has only one representation, so a long and a BigInteger differ
+                return (this.numer == rn.numer) && (this.denom == rn.denom)
+                       && Objects.equals(this.bigNumer, rn.bigNumer)
+                       && Objects.equals(this.bigDenom, rn.bigDenom);
             }
         } else {
             return false;
@@ -356,13 +788,93 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      */
     @Override
     public String toString() {
-        // using '+' as String concatenation operator in this method
         if(isNaN()) {
             return "NaN";
-        } else if(denom != 1) {
-            return numer + "/" + denom;
+        } else if(bigNumer == null && denom == 1) {
+            return Long.toString(numer);
+        }
+        StringBuilder output = new StringBuilder();
+        try {
+            appendTo(output, false);
+        } catch(IOException e) {
+            throw new AssertionError("StringBuilder threw an IOException", e);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Writes this as toString would return it, without making the string.
+     *
+     * @param out the buffer or stream to write to
+     * @throws IOException              if out throws one
+     * @throws IllegalArgumentException if out is null
+     * @spec.modifies out
+     * @spec.effects appends toString() to out
+     */
+    public void appendTo(Appendable out) throws IOException {
+        if(out == null) {
+            throw new IllegalArgumentException("out must not be null");
+        }
+        appendTo(out, false);
+    }
+
+    /**
+     * Writes this, or its absolute value, as toString would return it, without making the string.
+     *
+     * @param out       the buffer or stream to write to
+     * @param magnitude whether to leave out the sign of a negative number
+     * @throws IOException if out throws one
+     * @spec.requires out != null
+     * @spec.modifies out
+     * @spec.effects appends toString() to out, or negate().toString() if magnitude and this is
+     * negative
+     */
+    void appendTo(Appendable out, boolean magnitude) throws IOException {
+        if(isNaN()) {
+            out.append("NaN");
+        } else if(bigNumer != null) {
+            out.append((magnitude ? bigNumer.abs() : bigNumer).toString());
+            if(!bigDenom.equals(BigInteger.ONE)) {
+                out.append('/');
+                out.append(bigDenom.toString());
+            }
+        } else {
+            // numer is never Long.MIN_VALUE, so it can always be negated
+            appendLong(out, magnitude && numer < 0 ? -numer : numer);
+            if(denom != 1) {
+                out.append('/');
+                appendLong(out, denom);
+            }
+        }
+    }
+
+    /**
+     * Writes n in decimal notation, without making a string of it.
+     *
+     * @param out the buffer or stream to write to
+     * @param n   the number to write
+     * @throws IOException if out throws one
+     * @spec.requires out != null
+     * @spec.modifies out
+     * @spec.effects appends Long.toString(n) to out
+     */
+    static void appendLong(Appendable out, long n) throws IOException {
+        if(out instanceof StringBuilder) {
+            ((StringBuilder) out).append(n);
+            return;
+        }
+        // Worked in negative numbers, as Long.MIN_VALUE has no positive counterpart
+        if(n < 0) {
+            out.append('-');
         } else {
-            return Integer.toString(numer);
+            n = -n;
+        }
+        long power = 1;
+        while(n / power <= -10) {
+            power *= 10;
+        }
+        for(; power > 0; power /= 10) {
+            out.append((char) ('0' - n / power % 10));
         }
     }
 
@@ -371,7 +883,7 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      *
      * @param ratStr a string of the format described in the @spec.requires clause.
      * @return NaN if ratStr = "NaN". Else returns a RatNum r = ( N / M ), letting M be 1 in the case
-     * where only "N" is passed in.
+     * where only "N" is passed in. N and M may be any size.
      * @spec.requires 'ratStr' is an instance of a string, with no spaces, of the form:
      * <UL>
      * <LI>"NaN"
@@ -380,22 +892,11 @@ public final class RatNum extends Number implements Comparable<RatNum> {
      * </UL>
      */
     public static RatNum valueOf(String ratStr) {
-        int slashLoc = ratStr.indexOf('/');
-        if(ratStr.equals("NaN")) {
-            return new RatNum(1, 0);
-        } else if(slashLoc == -1) {
-            // not NaN, and no slash, must be an Integer
-            return new RatNum(Integer.parseInt(ratStr));
-        } else {
-            // slash, need to parse the two parts separately
-            int n = Integer.parseInt(ratStr.substring(0, slashLoc));
-            int d = Integer.parseInt(ratStr.substring(slashLoc + 1, ratStr.length()));
-            return new RatNum(n, d);
-        }
+        return PolyParser.parseNum(ratStr, 0, ratStr.length());
     }
 
     /**
      * Any class that implements Serializable needs this field. Change it if you remove/add fields.
      */
-    private static final long serialVersionUID = -8593953691277016262L;
+    private static final long serialVersionUID = 4426218932914352907L;
 }
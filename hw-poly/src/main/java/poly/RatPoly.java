@@ -11,9 +11,16 @@
 
 package poly;
 
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * <b>RatPoly</b> represents an immutable single-variate polynomial expression. RatPolys are sums of
@@ -25,10 +32,70 @@ import java.util.StringTokenizer;
 public final class RatPoly {
 
     /**
-     * Holds all the RatTerms in this RatPoly.
+     * Holds all the RatTerms in this RatPoly, or null if this is stored densely.
      */
     private final List<RatTerm> terms;
 
+    /**
+     * If this is stored densely, holds all the RatTerms in this RatPoly once they have first been
+     * needed, filled in from numers and denoms; otherwise null.
+     */
+    private List<RatTerm> denseTerms;
+
+    /**
+     * If this is stored densely, numers[e] is the numerator of the coefficient of x^e in lowest
+     * terms, or 0 if there is no such term; otherwise null.
+     */
+    private final int[] numers;
+
+    /**
+     * If this is stored densely, denoms[e] is the denominator of the coefficient of x^e in lowest
+     * terms, or 1 if there is no such term; otherwise null.
+     */
+    private final int[] denoms;
+
+    /**
+     * This RatPoly compiled for evaluating at doubles, once eval or evalMany has first needed it;
+     * otherwise null.
+     */
+    private HornerForm horner;
+
+    /**
+     * This RatPoly compiled for evaluating exactly, once eval or evalMany has first needed it;
+     * otherwise null.
+     */
+    private ExactForm exact;
+
+    /**
+     * The highest degree at which a RatPoly is stored densely.
+     */
+    private static final int DENSE_MAX_DEGREE = 256;
+
+    /**
+     * The fewest terms both factors of a product must have for mul to multiply them with
+     * ModularMul rather than term by term, when they cannot be multiplied densely, measured with
+     * PolyMulBenchmark.
+     */
+    static final int MODULAR_MIN_TERMS = 16;
+
+    /**
+     * The lowest degree of both the divisor and the quotient at which divideAndRemainder tries
+     * dividing by Newton's iteration, measured with PolyMulBenchmark.
+     */
+    static final int NEWTON_MIN_DEGREE = 128;
+
+    /**
+     * The degree of dividend from which divideAndRemainder does not hold a coefficient for every
+     * power of x while dividing.
+     */
+    private static final int LONG_DIV_MAX_DEGREE = 1 << 20;
+
+    /**
+     * The length of text from which valueOfLines parses its lines in parallel, below which
+     * starting parallel work costs more than parsing takes.
+     */
+    private static final int PARALLEL_MIN_LENGTH = 1 << 16;
+
     // Definitions:
     // For a RatPoly p, let C(p,i) be "p.terms.get(i).getCoeff()" and
     // E(p,i) be "p.terms.get(i).getExpt()"
@@ -62,6 +129,20 @@ public final class RatPoly {
     // (It is implied that 'terms' does not contain any null elements by the
     // above
     // invariant.)
+    //
+    // Dense representation:
+    // A RatPoly whose degree is at most DENSE_MAX_DEGREE and which has a
+    // non-zero coefficient for at least a quarter of the exponents up to its
+    // degree may instead be stored in numers and denoms, so that add, mul and
+    // eval can work on arrays of ints rather than on lists of objects. Then
+    // the RatPoly represents sum (0 <= e < numers.length): numers[e]/denoms[e]*x^e,
+    // terms is null, and denseTerms, once filled in, holds the terms as above.
+    // Representation Invariant when numers != null:
+    // denoms != null && numers.length == denoms.length && numers.length > 0 &&
+    // numers[numers.length - 1] != 0 &&
+    // forall e such that (0 <= e < numers.length), denoms[e] > 0 &&
+    //     numers[e]/denoms[e] is in lowest terms && (numers[e] == 0 ==> denoms[e] == 1)
+    // No dense RatPoly is NaN.
 
     /**
      * A constant holding a Not-a-Number (NaN) value of type RatPoly.
@@ -77,10 +158,19 @@ public final class RatPoly {
      * Throws an exception if the representation invariant is violated.
      */
     private void checkRep() {
+        if(numers != null) {
+            assert (denoms != null && numers.length == denoms.length) : "dense arrays differ";
+            assert (numers.length > 0 && numers[numers.length - 1] != 0) : "leading zero coefficient";
+            for(int e = 0; e < numers.length; e++) {
+                assert (denoms[e] > 0) : "non-positive denominator";
+                assert (numers[e] != 0 || denoms[e] == 1) : "zero coefficient not stored as 0/1";
+            }
+            return;
+        }
         assert (terms != null);
 
         for(int i = 0; i < terms.size(); i++) {
-            assert (!terms.get(i).getCoeff().equals(new RatNum(0))) : "zero coefficient";
+            assert (!terms.get(i).getCoeff().equals(RatNum.ZERO)) : "zero coefficient";
             assert (terms.get(i).getExpt() >= 0) : "negative exponent";
 
             if(i < terms.size() - 1)
@@ -93,6 +183,8 @@ public final class RatPoly {
      */
     public RatPoly() {
         terms = new ArrayList<RatTerm>();
+        numers = null;
+        denoms = null;
         checkRep();
     }
 
@@ -103,6 +195,8 @@ public final class RatPoly {
      */
     public RatPoly(RatTerm rt) {
         terms = new ArrayList<RatTerm>();
+        numers = null;
+        denoms = null;
         if (!rt.isZero()) {
             terms.add(rt);
         }
@@ -117,7 +211,7 @@ public final class RatPoly {
      * polynomial.
      */
     public RatPoly(int c, int e) {
-        this(new RatTerm(new RatNum(c), e));
+        this(new RatTerm(RatNum.valueOf(c, 1), e));
         checkRep();
     }
 
@@ -129,10 +223,223 @@ public final class RatPoly {
      */
     private RatPoly(List<RatTerm> rt) {
         terms = rt;
+        numers = null;
+        denoms = null;
         // The spec tells us that we don't need to make a copy of 'rt'
         checkRep();
     }
 
+    /**
+     * @param numers the numerator of the coefficient of every power of x
+     * @param denoms the denominator of the coefficient of every power of x
+     * @spec.requires 'numers' and 'denoms' satisfy the dense rep. invariant
+     * @spec.effects Constructs a new Poly stored densely in 'numers' and 'denoms', without copying
+     * them.
+     */
+    private RatPoly(int[] numers, int[] denoms) {
+        this.terms = null;
+        this.numers = numers;
+        this.denoms = denoms;
+        checkRep();
+    }
+
+    /**
+     * Makes a RatPoly from a list of terms, storing it densely if it is dense enough.
+     *
+     * @param rt a list of terms to be contained in the new RatPoly
+     * @return a RatPoly equal to the sum of the terms in 'rt'
+     * @spec.requires 'rt' satisfies clauses given in rep. invariant
+     */
+    private static RatPoly fromTerms(List<RatTerm> rt) {
+        if(rt.isEmpty() || !isDenseEnough(rt.size(), rt.get(0).getExpt())) {
+            return new RatPoly(rt);
+        }
+        int[] n = new int[rt.get(0).getExpt() + 1];
+        int[] d = new int[n.length];
+        Arrays.fill(d, 1);
+        for(RatTerm term : rt) {
+            if(term.isNaN() || !term.getCoeff().fitsInt()) {
+                return new RatPoly(rt);
+            }
+            n[term.getExpt()] = term.getCoeff().numerator();
+            d[term.getExpt()] = term.getCoeff().denominator();
+        }
+        RatPoly res = new RatPoly(n, d);
+        res.denseTerms = Collections.unmodifiableList(rt);
+        return res;
+    }
+
+    /**
+     * Makes a RatPoly from the coefficient of every power of x, storing it densely if it is dense
+     * enough.
+     *
+     * @param n the numerator of the coefficient of every power of x
+     * @param d the denominator of the coefficient of every power of x
+     * @return a RatPoly equal to sum (0 <= e < n.length): n[e]/d[e]*x^e
+     * @spec.requires n.length == d.length, and every n[e]/d[e] is in lowest terms with d[e] > 0
+     * and d[e] == 1 if n[e] == 0
+     */
+    private static RatPoly fromCoeffs(int[] n, int[] d) {
+        int length = n.length;
+        int count = 0;
+        while(length > 0 && n[length - 1] == 0) {
+            length--;
+        }
+        for(int e = 0; e < length; e++) {
+            if(n[e] != 0) {
+                count++;
+            }
+        }
+        if(count == 0) {
+            return new RatPoly();
+        }
+        if(isDenseEnough(count, length - 1)) {
+            if(length == n.length) {
+                return new RatPoly(n, d);
+            }
+            return new RatPoly(Arrays.copyOf(n, length), Arrays.copyOf(d, length));
+        }
+        List<RatTerm> rt = new ArrayList<>(count);
+        for(int e = length - 1; e >= 0; e--) {
+            if(n[e] != 0) {
+                rt.add(new RatTerm(RatNum.ofReduced(n[e], d[e]), e));
+            }
+        }
+        return new RatPoly(rt);
+    }
+
+    /**
+     * Makes a RatPoly from the terms read by PolyParser, in the order they were written. Terms
+     * written highest power first, as toString writes them, go straight into the coefficient
+     * arrays or the term list; others are sorted once and like terms added together.
+     *
+     * @param coeffs the coefficients of the terms
+     * @param expts  the exponents of the terms
+     * @param count  the number of terms
+     * @return a RatPoly equal to sum (0 <= i < count): coeffs[i]*x^expts[i]
+     * @spec.requires count <= coeffs.length, count <= expts.length, and no coeffs[i] for i < count
+     * is null, zero or NaN, and no expts[i] for i < count is negative
+     */
+    static RatPoly fromParsed(RatNum[] coeffs, int[] expts, int count) {
+        if(count == 0) {
+            return new RatPoly();
+        }
+        for(int i = 1; i < count; i++) {
+            if(expts[i] >= expts[i - 1]) {
+                return fromTerms(sortParsed(coeffs, expts, count));
+            }
+        }
+        if(isDenseEnough(count, expts[0])) {
+            int[] n = new int[expts[0] + 1];
+            int[] d = new int[n.length];
+            Arrays.fill(d, 1);
+            int i = 0;
+            while(i < count && coeffs[i].fitsInt()) {
+                n[expts[i]] = coeffs[i].numerator();
+                d[expts[i]] = coeffs[i].denominator();
+                i++;
+            }
+            if(i == count) {
+                return new RatPoly(n, d);
+            }
+        }
+        List<RatTerm> rt = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            rt.add(new RatTerm(coeffs[i], expts[i]));
+        }
+        return new RatPoly(rt);
+    }
+
+    /**
+     * Sorts terms read out of order by PolyParser, adding together terms with the same exponent.
+     *
+     * @param coeffs the coefficients of the terms
+     * @param expts  the exponents of the terms
+     * @param count  the number of terms
+     * @return a list of terms equal in sum to the given terms that satisfies the rep. invariant
+     * @spec.requires the arguments satisfy the spec.requires clause of fromParsed
+     */
+    private static List<RatTerm> sortParsed(RatNum[] coeffs, int[] expts, int count) {
+        // Each key holds an exponent above the index of its term, so that sorting the keys sorts
+        // the terms by exponent without boxing them
+        long[] keys = new long[count];
+        for(int i = 0; i < count; i++) {
+            keys[i] = (long) expts[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        List<RatTerm> rt = new ArrayList<>();
+        int j = count - 1;
+        while(j >= 0) {
+            int expt = (int) (keys[j] >>> 32);
+            RatNum sum = coeffs[(int) keys[j]];
+            j--;
+            while(j >= 0 && (int) (keys[j] >>> 32) == expt) {
+                sum = sum.add(coeffs[(int) keys[j]]);
+                j--;
+            }
+            if(!sum.equals(RatNum.ZERO)) {
+                rt.add(new RatTerm(sum, expt));
+            }
+        }
+        return rt;
+    }
+
+    /**
+     * Returns whether a polynomial is dense enough to be worth storing densely.
+     *
+     * @param count  the number of non-zero terms of the polynomial
+     * @param degree the degree of the polynomial
+     * @return true iff a polynomial with 'count' non-zero terms and degree 'degree' should be
+     * stored in coefficient arrays
+     */
+    private static boolean isDenseEnough(int count, int degree) {
+        return degree <= DENSE_MAX_DEGREE && 4 * count >= degree + 1;
+    }
+
+    /**
+     * Returns the terms of this RatPoly, filling them in from the coefficient arrays the first
+     * time they are needed if this is stored densely.
+     *
+     * @return the terms of this, sorted in descending exponent order with no zero coefficients
+     */
+    private List<RatTerm> terms() {
+        if(terms != null) {
+            return terms;
+        }
+        List<RatTerm> rt = denseTerms;
+        if(rt == null) {
+            List<RatTerm> built = new ArrayList<>();
+            for(int e = numers.length - 1; e >= 0; e--) {
+                if(numers[e] != 0) {
+                    built.add(new RatTerm(RatNum.ofReduced(numers[e], denoms[e]), e));
+                }
+            }
+            // Wrapped so that other threads only ever see the finished list
+            rt = Collections.unmodifiableList(built);
+            denseTerms = rt;
+        }
+        return rt;
+    }
+
+    /**
+     * Returns the number of terms of this RatPoly, without filling in the terms if this is
+     * stored densely.
+     *
+     * @return the number of terms of this with a non-zero coefficient
+     */
+    private int termCount() {
+        if(terms != null) {
+            return terms.size();
+        }
+        int count = 0;
+        for(int numer : numers) {
+            if(numer != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Returns the degree of this RatPoly.
      *
@@ -140,6 +447,9 @@ public final class RatPoly {
      * @spec.requires !this.isNaN()
      */
     public int degree() {
+        if (numers != null) {
+            return numers.length - 1;
+        }
         if (terms.isEmpty()) {
             return 0;
         }
@@ -155,6 +465,12 @@ public final class RatPoly {
      * @spec.requires !this.isNaN()
      */
     public RatTerm getTerm(int deg) {
+        if (numers != null) {
+            if (deg < 0 || deg >= numers.length || numers[deg] == 0) {
+                return RatTerm.ZERO;
+            }
+            return new RatTerm(RatNum.ofReduced(numers[deg], denoms[deg]), deg);
+        }
         for (RatTerm term : terms) {
             if (term.getExpt() == deg) {
                 return term;
@@ -169,6 +485,9 @@ public final class RatPoly {
      * @return true if and only if this has some coefficient = "NaN"
      */
     public boolean isNaN() {
+        if (numers != null) {
+            return false;
+        }
         for (RatTerm term : terms) {
             if (term.isNaN()) {
                 return true;
@@ -250,9 +569,21 @@ public final class RatPoly {
         if(this.isNaN()) {
             return RatPoly.NaN;
         }
-        List<RatTerm> newTerms = new ArrayList<RatTerm>(terms);
-        scaleCoeff(newTerms, new RatNum(-1));
-        RatPoly res = new RatPoly(newTerms);
+        if(numers != null) {
+            int[] n = new int[numers.length];
+            boolean negatable = true;
+            for(int e = 0; e < n.length; e++) {
+                n[e] = -numers[e];
+                // Integer.MIN_VALUE has no negation as an int
+                negatable &= numers[e] != Integer.MIN_VALUE;
+            }
+            if(negatable) {
+                return new RatPoly(n, denoms);
+            }
+        }
+        List<RatTerm> newTerms = new ArrayList<RatTerm>(terms());
+        scaleCoeff(newTerms, RatNum.valueOf(-1, 1));
+        RatPoly res = fromTerms(newTerms);
         checkRep();
         return res;
     }
@@ -272,15 +603,91 @@ public final class RatPoly {
         if (this.isNaN() || p.isNaN()) {
             return RatPoly.NaN;
         }
-        List<RatTerm> r = new ArrayList<>(p.terms);
+        if (this.numers != null && p.numers != null) {
+            RatPoly res = denseAdd(this, p);
+            if (res != null) {
+                return res;
+            }
+        }
+        List<RatTerm> r = new ArrayList<>(p.terms());
         // Inv: r = all the RatTerms in terms, in sorted order
-        for (RatTerm term : this.terms) {
+        for (RatTerm term : this.terms()) {
             sortedInsert(r, term);
         }
-        RatPoly res = new RatPoly(r);
+        RatPoly res = fromTerms(r);
         return res;
    }
 
+    /**
+     * Adds two densely stored polynomials coefficient by coefficient.
+     *
+     * @param a the first value to be added
+     * @param b the second value to be added
+     * @return a + b, or null if a coefficient of the sum does not fit in an int
+     * @spec.requires a.numers != null && b.numers != null
+     */
+    private static RatPoly denseAdd(RatPoly a, RatPoly b) {
+        int length = Math.max(a.numers.length, b.numers.length);
+        int[] n = new int[length];
+        int[] d = new int[length];
+        try {
+            for (int e = 0; e < length; e++) {
+                boolean inA = e < a.numers.length && a.numers[e] != 0;
+                boolean inB = e < b.numers.length && b.numers[e] != 0;
+                if (!inA && !inB) {
+                    d[e] = 1;
+                } else if (!inB) {
+                    n[e] = a.numers[e];
+                    d[e] = a.denoms[e];
+                } else if (!inA) {
+                    n[e] = b.numers[e];
+                    d[e] = b.denoms[e];
+                } else {
+                    long[] sum = {a.numers[e], a.denoms[e]};
+                    addTo(sum, 0, b.numers[e], b.denoms[e]);
+                    n[e] = Math.toIntExact(sum[0]);
+                    d[e] = Math.toIntExact(sum[1]);
+                }
+            }
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+        return fromCoeffs(n, d);
+    }
+
+    /**
+     * Adds a fraction to one of the fractions held in an array, keeping it in lowest terms.
+     *
+     * @param acc   the fractions, where acc[i] is the numerator and acc[i + 1] the denominator
+     *              of the one to add to
+     * @param i     the index of the numerator to add to
+     * @param numer the numerator of the fraction to add
+     * @param denom the denominator of the fraction to add
+     * @throws ArithmeticException if the sum does not fit in longs
+     * @spec.requires acc[i] / acc[i + 1] and numer / denom are in lowest terms and
+     * acc[i + 1], denom > 0
+     * @spec.modifies acc
+     * @spec.effects acc_post[i] / acc_post[i + 1] = acc[i] / acc[i + 1] + numer / denom, in lowest
+     * terms, with acc_post[i + 1] = 1 if the sum is 0
+     */
+    private static void addTo(long[] acc, int i, long numer, long denom) {
+        long n;
+        long d;
+        if (acc[i + 1] == denom) {
+            n = Math.addExact(acc[i], numer);
+            d = denom;
+        } else {
+            n = Math.addExact(Math.multiplyExact(acc[i], denom), Math.multiplyExact(numer, acc[i + 1]));
+            d = Math.multiplyExact(acc[i + 1], denom);
+        }
+        if (n == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        long g = RatNum.gcd(n, d);
+        acc[i] = n / g;
+        acc[i + 1] = d / g;
+    }
+
     /**
      * Subtraction operation.
      *
@@ -311,19 +718,205 @@ public final class RatPoly {
         if (this.isNaN() || p.isNaN()) {
             return RatPoly.NaN;
         }
+        if (this.numers != null && p.numers != null) {
+            RatPoly res = denseMul(this, p);
+            if (res != null) {
+                return res;
+            }
+        }
+        // Only products too large to store densely, or with a sparse factor, get this far
+        if (Math.min(this.termCount(), p.termCount()) >= MODULAR_MIN_TERMS) {
+            RatPoly res = modularMul(this, p);
+            if (res != null) {
+                return res;
+            }
+        }
+        return termMul(this, p);
+    }
+
+    /**
+     * Multiplies two polynomials term by term, adding every product of a term of one and a term
+     * of the other into the result. This is package-private so that PolyMulBenchmark can
+     * compare it with the other ways of multiplying.
+     *
+     * @param a the first value to be multiplied
+     * @param b the second value to be multiplied
+     * @return a * b
+     * @spec.requires a, b != null and neither is NaN
+     */
+    static RatPoly termMul(RatPoly a, RatPoly b) {
+        List<RatTerm> thisTerms = a.terms();
+        List<RatTerm> pTerms = b.terms();
         List<RatTerm> r = new ArrayList<>();
         //Inv: r = p*this(1) + p*this(2) + ... + p*this(i-1) where this(a) is the ath term
-        for (int i = 0; i < this.terms.size(); i++) {
+        for (int i = 0; i < thisTerms.size(); i++) {
             // Inv: r = p(1)*this(a) + p(2)*this(a) + ... p(j-1)*this(a) where p(b) is the bth term
-            for (int j = 0; j < p.terms.size(); j++) {
-                RatTerm term = this.terms.get(i).mul(p.terms.get(j));
+            for (int j = 0; j < pTerms.size(); j++) {
+                RatTerm term = thisTerms.get(i).mul(pTerms.get(j));
                 sortedInsert(r, term);
             }
         }
-        RatPoly res = new RatPoly(r);
+        RatPoly res = fromTerms(r);
         return res;
     }
 
+    /**
+     * Multiplies two densely stored polynomials, accumulating every coefficient of the product in
+     * longs. Each factor is first scaled by the least common multiple of its denominators, so
+     * only integers are multiplied, and each coefficient of the product is reduced just once.
+     *
+     * @param a the first value to be multiplied
+     * @param b the second value to be multiplied
+     * @return a * b, or null if a scaled factor or a coefficient of the product does not fit in
+     * an int
+     * @spec.requires a.numers != null && b.numers != null
+     */
+    static RatPoly denseMul(RatPoly a, RatPoly b) {
+        int length = a.numers.length + b.numers.length - 1;
+        int[] n = new int[length];
+        int[] d = new int[length];
+        try {
+            int aScale = lcm(a.denoms);
+            int bScale = lcm(b.denoms);
+            int[] aInts = scaleNumers(a.numers, a.denoms, aScale);
+            int[] bInts = scaleNumers(b.numers, b.denoms, bScale);
+            long[] acc = new long[length];
+            for (int i = 0; i < aInts.length; i++) {
+                if (aInts[i] != 0) {
+                    for (int j = 0; j < bInts.length; j++) {
+                        acc[i + j] = Math.addExact(acc[i + j], (long) aInts[i] * bInts[j]);
+                    }
+                }
+            }
+            long scale = (long) aScale * bScale;
+            for (int e = 0; e < length; e++) {
+                if (acc[e] == Long.MIN_VALUE) {
+                    throw new ArithmeticException("long overflow");
+                }
+                long g = scale == 1 ? 1 : RatNum.gcd(acc[e], scale);
+                n[e] = Math.toIntExact(acc[e] / g);
+                d[e] = Math.toIntExact(scale / g);
+            }
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+        return fromCoeffs(n, d);
+    }
+
+    /**
+     * @param denoms the denominators to take the least common multiple of, which are positive
+     * @return the least common multiple of every element of denoms
+     * @throws ArithmeticException if that does not fit in an int
+     */
+    private static int lcm(int[] denoms) {
+        int lcm = 1;
+        for (int denom : denoms) {
+            if (lcm % denom != 0) {
+                lcm = Math.multiplyExact(lcm / (int) RatNum.gcd(lcm, denom), denom);
+            }
+        }
+        return lcm;
+    }
+
+    /**
+     * @param numers the numerator of every coefficient of a polynomial
+     * @param denoms the denominator of every coefficient, which all divide scale
+     * @param scale  the number to scale the coefficients by
+     * @return the integer coefficients of the polynomial times scale, which is numers itself if
+     * scale is 1
+     * @throws ArithmeticException if a scaled coefficient does not fit in an int
+     */
+    private static int[] scaleNumers(int[] numers, int[] denoms, int scale) {
+        if (scale == 1) {
+            return numers;
+        }
+        int[] ints = new int[numers.length];
+        for (int e = 0; e < numers.length; e++) {
+            ints[e] = Math.multiplyExact(numers[e], scale / denoms[e]);
+        }
+        return ints;
+    }
+
+    /**
+     * Multiplies two polynomials exactly with ModularMul. Each is scaled by the least common
+     * multiple of its denominators to give a polynomial with integer coefficients, those are
+     * multiplied, and the product is divided by both scales again.
+     *
+     * @param a the first value to be multiplied
+     * @param b the second value to be multiplied
+     * @return a * b, or null if either is too sparse for this to pay, or the product is too large
+     * for ModularMul
+     * @spec.requires a, b != null and neither is NaN
+     */
+    static RatPoly modularMul(RatPoly a, RatPoly b) {
+        List<RatTerm> aTerms = a.terms();
+        List<RatTerm> bTerms = b.terms();
+        if (aTerms.isEmpty() || bTerms.isEmpty()) {
+            return new RatPoly();
+        }
+        int aLength = aTerms.get(0).getExpt() + 1;
+        int bLength = bTerms.get(0).getExpt() + 1;
+        // Mostly zeros would be multiplied otherwise
+        if (8L * aTerms.size() < aLength || 8L * bTerms.size() < bLength) {
+            return null;
+        }
+        BigInteger[] aScale = new BigInteger[1];
+        BigInteger[] bScale = new BigInteger[1];
+        BigInteger[] aInts = scaleToIntegers(aTerms, aLength, aScale);
+        BigInteger[] bInts = scaleToIntegers(bTerms, bLength, bScale);
+        if (!ModularMul.canMultiply(aLength, bLength, maxBitLength(aInts), maxBitLength(bInts))) {
+            return null;
+        }
+        BigInteger[] product = ModularMul.multiply(aInts, bInts);
+        BigInteger scale = aScale[0].multiply(bScale[0]);
+        List<RatTerm> r = new ArrayList<>();
+        for (int e = product.length - 1; e >= 0; e--) {
+            if (product[e].signum() != 0) {
+                r.add(new RatTerm(RatNum.of(product[e], scale), e));
+            }
+        }
+        return fromTerms(r);
+    }
+
+    /**
+     * Scales a polynomial by the least common multiple of its denominators.
+     *
+     * @param terms  the terms of the polynomial
+     * @param length one more than the degree of the polynomial
+     * @param scale  set to the least common multiple of the denominators
+     * @return the coefficients of the polynomial times scale[0], which are all integers, where
+     * element e is the coefficient of x^e
+     * @spec.requires terms satisfies the rep. invariant, is not NaN and is not empty
+     * @spec.modifies scale
+     */
+    private static BigInteger[] scaleToIntegers(List<RatTerm> terms, int length, BigInteger[] scale) {
+        BigInteger lcm = BigInteger.ONE;
+        for (RatTerm term : terms) {
+            BigInteger d = term.getCoeff().bigDenominator();
+            lcm = lcm.divide(lcm.gcd(d)).multiply(d);
+        }
+        BigInteger[] ints = new BigInteger[length];
+        Arrays.fill(ints, BigInteger.ZERO);
+        for (RatTerm term : terms) {
+            BigInteger d = term.getCoeff().bigDenominator();
+            ints[term.getExpt()] = term.getCoeff().bigNumerator().multiply(lcm.divide(d));
+        }
+        scale[0] = lcm;
+        return ints;
+    }
+
+    /**
+     * @param values the numbers to measure
+     * @return the largest bit length of the absolute value of any element of values
+     */
+    private static int maxBitLength(BigInteger[] values) {
+        int bits = 0;
+        for (BigInteger value : values) {
+            bits = Math.max(bits, value.abs().bitLength());
+        }
+        return bits;
+    }
+
     /**
      * Truncating division operation.
      *
@@ -358,21 +951,185 @@ public final class RatPoly {
      * @spec.requires p != null
      */
     public RatPoly div(RatPoly p) {
-        if (p.terms.isEmpty() || this.isNaN() || p.isNaN()) {
-            return RatPoly.NaN;
+        return divideAndRemainder(p)[0];
+    }
+
+    /**
+     * Truncating division that also returns the remainder. See {@link #div(RatPoly)} for how the
+     * quotient and remainder are defined.
+     *
+     * <p>Large divisors with a leading coefficient of 1 or -1 are divided by multiplying by their
+     * reciprocal as a power series, found by Newton's iteration, which makes the most of fast
+     * multiplication. Every other division is long division on a buffer holding one coefficient
+     * for every power of x.
+     *
+     * @param p the divisor
+     * @return a new array of the quotient {@code this / p} followed by the remainder. If p = 0 or
+     * this.isNaN() or p.isNaN(), both are some q such that q.isNaN().
+     * @spec.requires p != null
+     */
+    public RatPoly[] divideAndRemainder(RatPoly p) {
+        if (p.terms().isEmpty() || this.isNaN() || p.isNaN()) {
+            return new RatPoly[]{RatPoly.NaN, RatPoly.NaN};
         }
-        List<RatTerm> copy = new ArrayList<>(this.terms);
-        RatPoly r = new RatPoly(copy);
-        RatPoly q = new RatPoly();
-        // Inv: this = (q * p) + r
-        while (r.terms.size() != 0 && r.degree() >= p.degree()) {
-            RatTerm div = r.getTerm(r.degree()).div(p.getTerm(p.degree()));
-            int deg = r.degree() - p.degree();
-            RatPoly s = new RatPoly(new RatTerm(div.getCoeff(), deg));
-            q = q.add(s);
-            r = r.sub((s.mul(p)));
+        int n = this.degree();
+        int m = p.degree();
+        if (this.terms().isEmpty() || n < m) {
+            return new RatPoly[]{new RatPoly(), this};
         }
-        return q;
+        if (m >= NEWTON_MIN_DEGREE && n - m >= NEWTON_MIN_DEGREE) {
+            RatPoly[] qr = newtonDiv(this, p);
+            if (qr != null) {
+                return qr;
+            }
+        }
+        if (n >= LONG_DIV_MAX_DEGREE) {
+            return sparseDiv(this, p);
+        }
+        return longDiv(this, p);
+    }
+
+    /**
+     * Divides by long division, working on an array of the coefficients of the remainder that
+     * is changed in place, rather than building new polynomials at every step.
+     *
+     * @param u the dividend
+     * @param v the divisor
+     * @return a new array of the quotient and the remainder of u / v
+     * @spec.requires u, v are not NaN, v is not 0, and u.degree() >= v.degree()
+     */
+    static RatPoly[] longDiv(RatPoly u, RatPoly v) {
+        List<RatTerm> vTerms = v.terms();
+        int n = u.degree();
+        int m = v.degree();
+        RatNum[] r = new RatNum[n + 1];
+        Arrays.fill(r, RatNum.ZERO);
+        for (RatTerm term : u.terms()) {
+            r[term.getExpt()] = term.getCoeff();
+        }
+        RatNum lead = vTerms.get(0).getCoeff();
+        RatNum[] q = new RatNum[n - m + 1];
+        Arrays.fill(q, RatNum.ZERO);
+        // Inv: u = (q * v) + r, and r[e] = 0 for every e > d
+        for (int d = n; d >= m; d--) {
+            if (r[d].equals(RatNum.ZERO)) {
+                continue;
+            }
+            RatNum c = r[d].div(lead);
+            q[d - m] = c;
+            r[d] = RatNum.ZERO;
+            for (int j = 1; j < vTerms.size(); j++) {
+                RatTerm term = vTerms.get(j);
+                int e = term.getExpt() + d - m;
+                r[e] = r[e].sub(c.mul(term.getCoeff()));
+            }
+        }
+        return new RatPoly[]{fromArray(q, q.length), fromArray(r, m)};
+    }
+
+    /**
+     * Divides by long division, one new polynomial at a time, for dividends of too high a degree
+     * to hold a coefficient for every power of x.
+     *
+     * @param u the dividend
+     * @param v the divisor
+     * @return a new array of the quotient and the remainder of u / v
+     * @spec.requires u, v are not NaN and v is not 0
+     */
+    private static RatPoly[] sparseDiv(RatPoly u, RatPoly v) {
+        RatPoly r = u;
+        List<RatTerm> q = new ArrayList<>();
+        RatTerm lead = v.terms().get(0);
+        // Inv: u = (q * v) + r
+        while (r.terms().size() != 0 && r.degree() >= v.degree()) {
+            RatTerm div = r.terms().get(0).div(lead);
+            q.add(div);
+            r = r.sub(new RatPoly(div).mul(v));
+        }
+        return new RatPoly[]{fromTerms(q), r};
+    }
+
+    /**
+     * Divides by multiplying by the reciprocal of the divisor. Writing rev(f) for f with its
+     * coefficients in reverse order, the quotient of u / v is the reverse of
+     * rev(u) * rev(v)^-1 taken modulo x^(deg u - deg v + 1), and rev(v)^-1 is found to that many
+     * terms by Newton's iteration g = g + g * (1 - rev(v) * g), which doubles the number of
+     * correct terms every time.
+     *
+     * @param u the dividend
+     * @param v the divisor
+     * @return a new array of the quotient and the remainder of u / v, or null if the leading
+     * coefficient of v is not 1 or -1
+     * @spec.requires u, v are not NaN, v is not 0, and u.degree() >= v.degree()
+     */
+    static RatPoly[] newtonDiv(RatPoly u, RatPoly v) {
+        RatNum lead = v.terms().get(0).getCoeff();
+        if (!lead.equals(RatNum.valueOf(1, 1)) && !lead.equals(RatNum.valueOf(-1, 1))) {
+            return null;
+        }
+        int n = u.degree();
+        int m = v.degree();
+        int k = n - m + 1;
+        RatPoly revV = truncate(reverse(v, m), k);
+        RatPoly one = new RatPoly(1, 0);
+        RatPoly g = new RatPoly(new RatTerm(lead, 0));
+        for (int known = 1; known < k; ) {
+            known = Math.min(2 * known, k);
+            RatPoly error = one.sub(truncate(revV, known).mul(g));
+            g = g.add(truncate(g.mul(truncate(error, known)), known));
+        }
+        RatPoly q = reverse(truncate(truncate(reverse(u, n), k).mul(g), k), k - 1);
+        return new RatPoly[]{q, u.sub(q.mul(v))};
+    }
+
+    /**
+     * @param p   the polynomial to reverse
+     * @param deg the degree to reverse p about
+     * @return x^deg * p(1/x), whose coefficient of x^e is that of x^(deg - e) in p
+     * @spec.requires p is not NaN and p.degree() <= deg
+     */
+    private static RatPoly reverse(RatPoly p, int deg) {
+        List<RatTerm> pTerms = p.terms();
+        List<RatTerm> r = new ArrayList<>(pTerms.size());
+        for (int i = pTerms.size() - 1; i >= 0; i--) {
+            RatTerm term = pTerms.get(i);
+            r.add(new RatTerm(term.getCoeff(), deg - term.getExpt()));
+        }
+        return fromTerms(r);
+    }
+
+    /**
+     * @param p      the polynomial to truncate
+     * @param length the number of powers of x to keep
+     * @return p modulo x^length, which is p without its terms of degree length or more
+     * @spec.requires p is not NaN
+     */
+    private static RatPoly truncate(RatPoly p, int length) {
+        List<RatTerm> pTerms = p.terms();
+        int first = 0;
+        while (first < pTerms.size() && pTerms.get(first).getExpt() >= length) {
+            first++;
+        }
+        if (first == 0) {
+            return p;
+        }
+        return fromTerms(new ArrayList<>(pTerms.subList(first, pTerms.size())));
+    }
+
+    /**
+     * @param coeffs coeffs[e] is the coefficient of x^e
+     * @param length the number of elements of coeffs to use
+     * @return a RatPoly equal to sum (0 <= e < length): coeffs[e]*x^e
+     * @spec.requires no element of coeffs is null or NaN, and length <= coeffs.length
+     */
+    private static RatPoly fromArray(RatNum[] coeffs, int length) {
+        List<RatTerm> r = new ArrayList<>();
+        for (int e = length - 1; e >= 0; e--) {
+            if (!coeffs[e].equals(RatNum.ZERO)) {
+                r.add(new RatTerm(coeffs[e], e));
+            }
+        }
+        return fromTerms(r);
     }
 
     /**
@@ -389,13 +1146,13 @@ public final class RatPoly {
         }
         List<RatTerm> res = new ArrayList<>();
         //{Inv: [t_0.differentiate() + t_1.differentiate() + ... + t_i-1.differentiate()], where t_j is the jth term in terms}
-        for (RatTerm term : terms){
+        for (RatTerm term : terms()){
             if (!term.differentiate().isZero()) {
                 res.add(term.differentiate());
             }
         }
         checkRep();
-        return new RatPoly(res);
+        return fromTerms(res);
     }
 
     /**
@@ -419,13 +1176,13 @@ public final class RatPoly {
         }
         List<RatTerm> result = new ArrayList<RatTerm>();
         // {Inv: [t_0.antiDifferentiate() + t_1.antiDifferentiate() + ... + t_i-1.antiDifferentiate()], where t_j is the jth term in terms}
-        for (RatTerm term : terms){
+        for (RatTerm term : terms()){
             result.add(term.antiDifferentiate());
         }
         // constant has exponential of 0
         sortedInsert(result, new RatTerm(integrationConstant, 0));
         checkRep();
-        return new RatPoly(result);
+        return fromTerms(result);
     }
 
     /**
@@ -453,24 +1210,153 @@ public final class RatPoly {
     }
 
     /**
-     * Returns the value of this RatPoly, evaluated at d.
+     * Returns the value of this RatPoly, evaluated at d by Horner's rule.
      *
      * @param d the value at which to evaluate this polynomial
      * @return the value of this polynomial when evaluated at 'd'. For example, "x+2" evaluated at 3
      * is 5, and "x^2-x" evaluated at 3 is 6. If (this.isNaN() == true), return Double.NaN.
      */
     public double eval(double d) {
-        checkRep();
-        if (this.isNaN()){
-            return Double.NaN;
+        return horner().eval(d);
+    }
+
+    /**
+     * Evaluates this RatPoly at many values at once, which is much faster than calling eval for
+     * each of them.
+     *
+     * @param xs  the values at which to evaluate this polynomial
+     * @param out the array to store the values in, which may be xs itself
+     * @spec.modifies out
+     * @spec.effects sets out[i] to this.eval(xs[i]) for every 0 <= i < xs.length, leaving the
+     * rest of out unchanged
+     * @throws IllegalArgumentException if xs or out is null, or out is shorter than xs
+     */
+    public void evalMany(double[] xs, double[] out) {
+        if(xs == null || out == null || out.length < xs.length) {
+            throw new IllegalArgumentException("out must be at least as long as xs");
         }
-        double res = 0;
-        //{inv: result = t_0.eval(d) + ... + t_(i-1).eval(d), where t_j is the jth term in terms}
-        for (RatTerm term: terms){
-            res += term.eval(d);
+        horner().evalMany(xs, out);
+    }
+
+    /**
+     * Returns the exact value of this RatPoly at r.
+     *
+     * @param r the value at which to evaluate this polynomial
+     * @return the value of this polynomial at 'r', worked out without rounding. For example,
+     * "x^2+1/2" evaluated at 1/3 is 11/18. If this.isNaN() or r.isNaN(), returns NaN.
+     * @throws IllegalArgumentException if r is null
+     */
+    public RatNum eval(RatNum r) {
+        if(r == null) {
+            throw new IllegalArgumentException("r cannot be null");
         }
-        checkRep();
-        return res;
+        if(r.isNaN() || isNaN()) {
+            return RatNum.NaN;
+        }
+        return exact().eval(r);
+    }
+
+    /**
+     * Returns the exact values of this RatPoly at many values at once, which is faster than
+     * calling eval for each of them, above all when many of them have the same denominator.
+     *
+     * @param xs the values at which to evaluate this polynomial
+     * @return a new array whose i-th element is this.eval(xs[i])
+     * @throws IllegalArgumentException if xs or any of its elements is null
+     */
+    public RatNum[] evalMany(RatNum[] xs) {
+        if(xs == null) {
+            throw new IllegalArgumentException("xs cannot be null");
+        }
+        List<RatNum> points = new ArrayList<>();
+        for(RatNum x : xs) {
+            if(x == null) {
+                throw new IllegalArgumentException("xs cannot contain null");
+            }
+            if(!x.isNaN()) {
+                points.add(x);
+            }
+        }
+        RatNum[] out = new RatNum[xs.length];
+        if(isNaN()) {
+            Arrays.fill(out, RatNum.NaN);
+            return out;
+        }
+        RatNum[] values = exact().evalMany(points.toArray(new RatNum[0]));
+        int j = 0;
+        for(int i = 0; i < xs.length; i++) {
+            out[i] = xs[i].isNaN() ? RatNum.NaN : values[j++];
+        }
+        return out;
+    }
+
+    /**
+     * Returns this RatPoly compiled for evaluating exactly, compiling it the first time it is
+     * needed.
+     *
+     * @return the ExactForm of this
+     * @spec.requires !this.isNaN()
+     */
+    private ExactForm exact() {
+        ExactForm f = exact;
+        if(f == null) {
+            // ExactForm's fields are final, so other threads only ever see a finished one
+            f = new ExactForm(terms());
+            exact = f;
+        }
+        return f;
+    }
+
+    /**
+     * Returns this RatPoly compiled for evaluating at doubles, compiling it the first time it is
+     * needed.
+     *
+     * @return the HornerForm of this
+     */
+    private HornerForm horner() {
+        HornerForm h = horner;
+        if(h == null) {
+            // HornerForm's fields are final, so other threads only ever see a finished one
+            h = compile();
+            horner = h;
+        }
+        return h;
+    }
+
+    /**
+     * @return a new HornerForm equal to this, or HornerForm.NaN if this.isNaN()
+     */
+    private HornerForm compile() {
+        if(numers != null) {
+            double[] coeffs = new double[numers.length];
+            for(int e = 0; e < numers.length; e++) {
+                coeffs[numers.length - 1 - e] = (double) numers[e] / (double) denoms[e];
+            }
+            return new HornerForm(coeffs, null);
+        }
+        if(terms.isEmpty()) {
+            return HornerForm.ZERO;
+        }
+        if(isNaN()) {
+            return HornerForm.NaN;
+        }
+        int count = terms.size();
+        int degree = terms.get(0).getExpt();
+        if(4L * count >= degree + 1L) {
+            double[] coeffs = new double[degree + 1];
+            for(RatTerm term : terms) {
+                coeffs[degree - term.getExpt()] = term.getCoeff().doubleValue();
+            }
+            return new HornerForm(coeffs, null);
+        }
+        double[] coeffs = new double[count];
+        int[] gaps = new int[count];
+        for(int i = 0; i < count; i++) {
+            RatTerm term = terms.get(i);
+            coeffs[i] = term.getCoeff().doubleValue();
+            gaps[i] = term.getExpt() - (i + 1 < count ? terms.get(i + 1).getExpt() : 0);
+        }
+        return new HornerForm(coeffs, gaps);
     }
 
     /**
@@ -491,28 +1377,56 @@ public final class RatPoly {
      */
     @Override
     public String toString() {
-        
-        if(terms.size() == 0) {
-            return "0";
+        StringBuilder output = new StringBuilder();
+        try {
+            appendTo(output);
+        } catch(IOException e) {
+            throw new AssertionError("StringBuilder threw an IOException", e);
         }
-        if(isNaN()) {
-            return "NaN";
+        return output.toString();
+    }
+
+    /**
+     * Writes this as toString would return it, without making the string or, if this is stored
+     * densely, its terms.
+     *
+     * @param out the buffer or stream to write to
+     * @throws IOException              if out throws one
+     * @throws IllegalArgumentException if out is null
+     * @spec.modifies out
+     * @spec.effects appends toString() to out
+     */
+    public void appendTo(Appendable out) throws IOException {
+        if(out == null) {
+            throw new IllegalArgumentException("out must not be null");
         }
-        StringBuilder output = new StringBuilder();
-        boolean isFirst = true;
-        for(RatTerm rt : terms) {
-            if(isFirst) {
-                isFirst = false;
-                output.append(rt.toString());
-            } else {
-                if(rt.getCoeff().isNegative()) {
-                    output.append(rt.toString());
-                } else {
-                    output.append("+" + rt.toString());
+        if(numers != null) {
+            // The leading coefficient is never zero, so every later term needs a sign
+            for(int e = numers.length - 1; e >= 0; e--) {
+                if(numers[e] != 0) {
+                    if(e < numers.length - 1 && numers[e] > 0) {
+                        out.append('+');
+                    }
+                    RatTerm.appendTo(out, RatNum.ofReduced(numers[e], denoms[e]), e);
                 }
             }
+            return;
+        }
+        if(terms.isEmpty()) {
+            out.append('0');
+            return;
+        }
+        if(isNaN()) {
+            out.append("NaN");
+            return;
+        }
+        for(int i = 0; i < terms.size(); i++) {
+            RatTerm rt = terms.get(i);
+            if(i > 0 && !rt.getCoeff().isNegative()) {
+                out.append('+');
+            }
+            rt.appendTo(out);
         }
-        return output.toString();
     }
 
     /**
@@ -525,36 +1439,91 @@ public final class RatPoly {
      * <p>Valid inputs include "0", "x-10", and "x^3-2*x^2+5/3*x+3", and "NaN".
      */
     public static RatPoly valueOf(String polyStr) {
+        return PolyParser.parsePoly(polyStr, 0, polyStr.length());
+    }
 
-        List<RatTerm> parsedTerms = new ArrayList<>();
-
-        // First we decompose the polyStr into its component terms;
-        // third arg orders "+" and "-" to be returned as tokens.
-        StringTokenizer termStrings = new StringTokenizer(polyStr, "+-", true);
-
-        boolean nextTermIsNegative = false;
-        while(termStrings.hasMoreTokens()) {
-            String termToken = termStrings.nextToken();
-
-            if(termToken.equals("-")) {
-                nextTermIsNegative = true;
-            } else if(termToken.equals("+")) {
-                nextTermIsNegative = false;
-            } else {
-                // Not "+" or "-"; must be a term
-                RatTerm term = RatTerm.valueOf(termToken);
+    /**
+     * Reads a file of polynomials, one to a line, parsing the lines in parallel.
+     *
+     * @param file the file to read, encoded in UTF-8
+     * @return the polynomials written in the file, in the order they are written, with blank lines
+     * skipped
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if file is null or a line of the file is not a polynomial in
+     *                                  the form defined in the toString() method, apart from
+     *                                  whitespace at either end of the line
+     */
+    public static List<RatPoly> readAll(Path file) throws IOException {
+        if(file == null) {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        return valueOfLines(Files.readString(file));
+    }
 
-                // at this point, coeff and expt are initialized.
-                // Need to fix coeff if it was preceeded by a '-'
-                if(nextTermIsNegative) {
-                    term = term.negate();
+    /**
+     * Parses text holding polynomials one to a line, parsing the lines in parallel.
+     *
+     * @param text the polynomials, each in the form defined in the toString() method, separated
+     *             by line breaks
+     * @return the polynomials written in text, in the order they are written, with blank lines
+     * skipped
+     * @throws IllegalArgumentException if a line of text is not a polynomial, apart from whitespace
+     *                                  at either end of the line
+     * @spec.requires text != null
+     */
+    static List<RatPoly> valueOfLines(CharSequence text) {
+        // One pass to find where the lines are; only the parsing is worth sharing out
+        int[] from = new int[16];
+        int[] to = new int[16];
+        int[] lineNumbers = new int[16];
+        int lines = 0;
+        int lineNumber = 0;
+        int length = text.length();
+        int lineStart = 0;
+        while(lineStart < length) {
+            int lineEnd = lineStart;
+            while(lineEnd < length && text.charAt(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            lineNumber++;
+            int a = lineStart;
+            int b = lineEnd;
+            while(a < b && Character.isWhitespace(text.charAt(a))) {
+                a++;
+            }
+            while(b > a && Character.isWhitespace(text.charAt(b - 1))) {
+                b--;
+            }
+            if(a < b) {
+                if(lines == from.length) {
+                    from = Arrays.copyOf(from, 2 * lines);
+                    to = Arrays.copyOf(to, 2 * lines);
+                    lineNumbers = Arrays.copyOf(lineNumbers, 2 * lines);
                 }
-
-                // accumulate terms of polynomial in 'parsedTerms'
-                sortedInsert(parsedTerms, term);
+                from[lines] = a;
+                to[lines] = b;
+                lineNumbers[lines] = lineNumber;
+                lines++;
             }
+            lineStart = lineEnd + 1;
         }
-        return new RatPoly(parsedTerms);
+        int[] starts = from;
+        int[] ends = to;
+        int[] numbers = lineNumbers;
+        RatPoly[] polys = new RatPoly[lines];
+        IntStream indices = IntStream.range(0, lines);
+        if(length >= PARALLEL_MIN_LENGTH && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            indices = indices.parallel();
+        }
+        // Each line is parsed into its own element, so the workers need not share anything
+        indices.forEach(i -> {
+            try {
+                polys[i] = PolyParser.parsePoly(text, starts[i], ends[i]);
+            } catch(IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + numbers[i] + ": " + e.getMessage(), e);
+            }
+        });
+        return Arrays.asList(polys);
     }
 
     /**
@@ -568,7 +1537,7 @@ public final class RatPoly {
         if(this.isNaN()) {
             return 0;
         }
-        return terms.hashCode();
+        return terms().hashCode();
     }
 
     /**
@@ -586,8 +1555,10 @@ public final class RatPoly {
             // special case: check if both are NaN
             if(this.isNaN() && rp.isNaN()) {
                 return true;
+            } else if(this.numers != null && rp.numers != null) {
+                return Arrays.equals(numers, rp.numers) && Arrays.equals(denoms, rp.denoms);
             } else {
-                return terms.equals(rp.terms);
+                return terms().equals(rp.terms());
             }
         } else {
             return false;
@@ -11,6 +11,8 @@
 
 package poly;
 
+import java.io.IOException;
+
 /**
  * <b>RatTerm</b> is an immutable representation of a term in a single-variable polynomial
  * expression. The term has the form C*x^E where C is a rational number and E is an integer.
@@ -63,7 +65,12 @@ public final class RatTerm {
     /**
      * A constant holding the value {@code 1}, of type RatNum.
      */
-    private static final RatNum ONE = new RatNum(1);
+    private static final RatNum ONE = RatNum.valueOf(1, 1);
+
+    /**
+     * The RatNum -1.
+     */
+    private static final RatNum MINUS_ONE = RatNum.valueOf(-1, 1);
 
     /**
      * Throws an exception if the representation invariant is violated.
@@ -228,7 +235,7 @@ public final class RatTerm {
         if(this.isNaN()) {
             return RatTerm.NaN;
         }
-        return new RatTerm(this.coeff.mul(new RatNum(this.expt)), this.expt - 1);
+        return new RatTerm(this.coeff.mul(RatNum.valueOf(this.expt, 1)), this.expt - 1);
     }
 
     /**
@@ -245,7 +252,7 @@ public final class RatTerm {
         if(this.isNaN()) {
             return RatTerm.NaN;
         }
-        return new RatTerm(this.coeff.div(new RatNum(this.expt + 1)), this.expt + 1);
+        return new RatTerm(this.coeff.div(RatNum.valueOf(this.expt + 1, 1)), this.expt + 1);
     }
 
     /**
@@ -268,24 +275,65 @@ public final class RatTerm {
             return "NaN";
         }
         StringBuilder output = new StringBuilder();
-        RatNum c = coeff;
-        int e = expt;
+        try {
+            appendTo(output, coeff, expt);
+        } catch(IOException e) {
+            throw new AssertionError("StringBuilder threw an IOException", e);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Writes this as toString would return it, without making the string.
+     *
+     * @param out the buffer or stream to write to
+     * @throws IOException              if out throws one
+     * @throws IllegalArgumentException if out is null
+     * @spec.modifies out
+     * @spec.effects appends toString() to out
+     */
+    public void appendTo(Appendable out) throws IOException {
+        if(out == null) {
+            throw new IllegalArgumentException("out must not be null");
+        }
+        appendTo(out, coeff, expt);
+    }
+
+    /**
+     * Writes the term c*x^e as toString would return it, without making the string or the
+     * RatTerm.
+     *
+     * @param out the buffer or stream to write to
+     * @param c   the coefficient of the term
+     * @param e   the exponent of the term
+     * @throws IOException if out throws one
+     * @spec.requires out != null, c != null, e >= 0, and e == 0 if c is zero or NaN
+     * @spec.modifies out
+     * @spec.effects appends new RatTerm(c, e).toString() to out
+     */
+    static void appendTo(Appendable out, RatNum c, int e) throws IOException {
+        if(c.isNaN()) {
+            out.append("NaN");
+            return;
+        }
         if(c.isNegative()) {
-            output.append("-");
-            c = c.negate();
+            out.append('-');
         }
-        if(c.equals(ONE) && (e == 1)) {
-            output.append("x");
+        boolean unit = c.equals(ONE) || c.equals(MINUS_ONE);
+        if(unit && e == 1) {
+            out.append('x');
         } else if(e == 0) {
-            output.append(c.toString());
-        } else if(c.equals(ONE)) {
-            output.append("x^" + e);
-        } else if(e == 1) {
-            output.append(c.toString() + "*x");
+            c.appendTo(out, true);
+        } else if(unit) {
+            out.append("x^");
+            RatNum.appendLong(out, e);
         } else {
-            output.append(c.toString() + "*x^" + e);
+            c.appendTo(out, true);
+            out.append(e == 1 ? "*x" : "*x^");
+            if(e != 1) {
+                RatNum.appendLong(out, e);
+            }
         }
-        return output.toString();
     }
 
     /**
@@ -298,60 +346,7 @@ public final class RatTerm {
      * <p>Valid inputs include "0", "x", and "-5/3*x^3", and "NaN".
      */
     public static RatTerm valueOf(String termStr) {
-
-        if(termStr.equals("NaN")) {
-            return NaN;
-        }
-
-        // Term is: "R" or "R*x" or "R*x^N" or "x^N" or "x",
-        // where R is a rational num and N is an integer.
-
-        // First we parse the coefficient
-        int multIndex = termStr.indexOf("*");
-        RatNum coeff = null;
-        if(multIndex == -1) {
-            // "R" or "x^N" or "x"
-            int xIndex = termStr.indexOf("x");
-            if(xIndex == -1) {
-                // "R"
-                coeff = RatNum.valueOf(termStr);
-            } else {
-                int negIndex = termStr.indexOf("-");
-                // "x^N" or "x" ==> coeff = 1
-                if(negIndex == -1) {
-                    coeff = new RatNum(1);
-                }
-                // "-x^N" or "-x" ==> coeff = -1
-                else if(negIndex == 0) {
-                    coeff = new RatNum(-1);
-                } else {
-                    throw new RuntimeException(
-                            "Minus sign, '-', not allowed in the middle of input string: " + termStr);
-                }
-            }
-        } else {
-            // "R*x" or "R*x^N"
-            coeff = RatNum.valueOf(termStr.substring(0, multIndex));
-        }
-
-        // Second we parse the exponent
-        int powIndex = termStr.indexOf("^");
-        int expt;
-        if(powIndex == -1) {
-            // "R" or "R*x" or "x"
-            int xIndex = termStr.indexOf("x");
-            if(xIndex == -1) {
-                // "R"
-                expt = 0;
-            } else {
-                // "R*x" or "x"
-                expt = 1;
-            }
-        } else {
-            // "R*x^N" or "x^N"
-            expt = Integer.parseInt(termStr.substring(powIndex + 1));
-        }
-        return new RatTerm(coeff, expt);
+        return PolyParser.parseTerm(termStr, 0, termStr.length());
     }
 
     /**
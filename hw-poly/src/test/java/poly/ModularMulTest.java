@@ -0,0 +1,113 @@
+package poly;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class contains a set of test cases that can be used to test the implementation of the
+ * ModularMul class, by comparing every way it multiplies with multiplying the coefficients out
+ * directly.
+ */
+public final class ModularMulTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    private static final int[] METHODS = {ModularMul.SCHOOLBOOK, ModularMul.KARATSUBA,
+                                          ModularMul.NTT, ModularMul.AUTO};
+
+    private static BigInteger[] ints(long... values) {
+        BigInteger[] result = new BigInteger[values.length];
+        for(int i = 0; i < values.length; i++) {
+            result[i] = BigInteger.valueOf(values[i]);
+        }
+        return result;
+    }
+
+    private static BigInteger[] random(Random random, int length, int bits) {
+        BigInteger[] result = new BigInteger[length];
+        for(int i = 0; i < length; i++) {
+            result[i] = new BigInteger(bits, random);
+            if(random.nextBoolean()) {
+                result[i] = result[i].negate();
+            }
+        }
+        return result;
+    }
+
+    private static BigInteger[] naive(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] result = new BigInteger[a.length + b.length - 1];
+        Arrays.fill(result, BigInteger.ZERO);
+        for(int i = 0; i < a.length; i++) {
+            for(int j = 0; j < b.length; j++) {
+                result[i + j] = result[i + j].add(a[i].multiply(b[j]));
+            }
+        }
+        return result;
+    }
+
+    private static void checkAllMethods(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] expected = naive(a, b);
+        for(int method : METHODS) {
+            assertArrayEquals("method " + method, expected, ModularMul.multiply(a, b, method));
+        }
+    }
+
+    @Test
+    public void testSmallProducts() {
+        checkAllMethods(ints(1, 1), ints(1, 1));
+        checkAllMethods(ints(-3), ints(5, 0, 2));
+        checkAllMethods(ints(0, 0, 7), ints(0));
+        checkAllMethods(ints(1, -1), ints(1, 1, 1, 1));
+    }
+
+    @Test
+    public void testLongCancellingCoefficients() {
+        // (1 - x) * (1 + x + ... + x^199) = 1 - x^200
+        long[] ones = new long[200];
+        Arrays.fill(ones, 1);
+        BigInteger[] product = ModularMul.multiply(ints(1, -1), ints(ones));
+        assertEquals(BigInteger.ONE, product[0]);
+        assertEquals(BigInteger.ONE.negate(), product[200]);
+        for(int e = 1; e < 200; e++) {
+            assertEquals(BigInteger.ZERO, product[e]);
+        }
+    }
+
+    @Test
+    public void testRandomEqualLengths() {
+        Random random = new Random(331);
+        for(int length : new int[]{1, 2, 31, 64, 65, 130, 300}) {
+            checkAllMethods(random(random, length, 31), random(random, length, 31));
+        }
+    }
+
+    @Test
+    public void testRandomUnequalLengths() {
+        Random random = new Random(332);
+        checkAllMethods(random(random, 3, 20), random(random, 500, 20));
+        checkAllMethods(random(random, 257, 10), random(random, 70, 10));
+        checkAllMethods(random(random, 100, 31), random(random, 333, 31));
+    }
+
+    @Test
+    public void testLargeCoefficientsNeedMorePrimes() {
+        Random random = new Random(333);
+        checkAllMethods(random(random, 40, 200), random(random, 300, 150));
+    }
+
+    @Test
+    public void testCanMultiply() {
+        assertTrue(ModularMul.canMultiply(1000, 1000, 31, 31));
+        assertTrue(ModularMul.canMultiply(1, 1, 200, 200));
+        assertFalse(ModularMul.canMultiply(1 << 23, 2, 1, 1));
+        assertFalse(ModularMul.canMultiply(10, 10, 400, 400));
+    }
+}
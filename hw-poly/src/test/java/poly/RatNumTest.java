@@ -15,6 +15,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.*;
 
@@ -395,18 +401,13 @@ public final class RatNumTest {
     ///////////////////////////////////////////////////////////////////////////////////////
 
     @Test
-    public void testIntValueUnsupported() {
-        if(false) {
-            // Note that these tests fail because our RatNum implementation
-            // can't represent the fractions in question. Can you think of
-            // a tweak to the representation invariant which would allow us
-            // to represent these values?
-            assertEquals(
-                    "(MIN_VALUE+1)/MIN_VALUE should round to 1",
-                    1,
-                    new RatNum(Integer.MIN_VALUE + 1, Integer.MIN_VALUE).intValue());
-            assertEquals("1/MIN_VALUE should round to 0", 0, new RatNum(1, Integer.MIN_VALUE).intValue());
-        }
+    public void testIntValueMinValueDenominator() {
+        // These need the numerator and denominator stored wider than an int
+        assertEquals(
+                "(MIN_VALUE+1)/MIN_VALUE should round to 1",
+                1,
+                new RatNum(Integer.MIN_VALUE + 1, Integer.MIN_VALUE).intValue());
+        assertEquals("1/MIN_VALUE should round to 0", 0, new RatNum(1, Integer.MIN_VALUE).intValue());
     }
 
     @Test
@@ -1159,4 +1160,185 @@ public final class RatNumTest {
             }
         }
     }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Overflow
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testAddPastInt() {
+        RatNum big = new RatNum(Integer.MAX_VALUE);
+        eq(big.add(big), "4294967294");
+        eq(new RatNum(1, 65536).add(new RatNum(1, 131072)), "3/131072");
+        eq(new RatNum(1, Integer.MAX_VALUE).sub(new RatNum(1, Integer.MAX_VALUE - 1)),
+           "-1/4611686011984936962");
+    }
+
+    @Test
+    public void testMulPastLong() {
+        RatNum x = new RatNum(Integer.MAX_VALUE);
+        RatNum power = one;
+        for(int i = 0; i < 5; i++) {
+            power = power.mul(x);
+        }
+        eq(power, "45671926060252476630107084286792841360213803007");
+        eq(power.div(x).div(x).div(x), "4611686014132420609");
+        eq(power.div(x).div(x).div(x).div(x).div(x), "1");
+        assertEquals(one, power.div(power));
+        assertEquals(zero, power.sub(power));
+    }
+
+    @Test
+    public void testBigValuesCompareAndEqual() {
+        RatNum big = RatNum.valueOf("123456789012345678901234567890/7");
+        assertEquals(big, RatNum.valueOf("246913578024691357802469135780/14"));
+        assertEquals(big.hashCode(),
+                     RatNum.valueOf("246913578024691357802469135780/14").hashCode());
+        assertGreater(big, two);
+        assertGreater(big, big.sub(new RatNum(1, 1000)));
+        assertGreater(big.negate(), RatNum.valueOf("-123456789012345678901234567891/7"));
+        assertPos(big);
+        assertNeg(big.negate());
+        assertEquals(1.7636684144620811e28, big.doubleValue(), 1e13);
+        assertEquals(Long.MAX_VALUE, RatNum.valueOf("9223372036854775807").longValue());
+    }
+
+    @Test
+    public void testBackToLongs() {
+        // Long.MIN_VALUE is kept as a BigInteger, so it must compare equal either way
+        RatNum min = RatNum.valueOf("-9223372036854775808");
+        eq(min, "-9223372036854775808");
+        eq(min.negate(), "9223372036854775808");
+        assertEquals(min, min.negate().negate());
+        assertEquals(RatNum.valueOf("9223372036854775807"), min.negate().sub(one));
+        assertEquals(new RatNum(3), RatNum.valueOf("300000000000000000000/100000000000000000000"));
+        assertEquals(new RatNum(3).hashCode(),
+                     RatNum.valueOf("300000000000000000000/100000000000000000000").hashCode());
+    }
+
+    @Test
+    public void testBigDoubleValueIsCorrectlyRounded() {
+        assertEquals(4.9480491215313726E-5, RatNum.valueOf(
+                "229502482663314756581390153343/4638241800483298352398661979842974").doubleValue(), 0.0);
+        assertEquals(-4.9480491215313726E-5, RatNum.valueOf(
+                "-229502482663314756581390153343/4638241800483298352398661979842974").doubleValue(), 0.0);
+        assertEquals(1e300, RatNum.valueOf("1" + "0".repeat(300)).doubleValue(), 0.0);
+        Random random = new Random(44);
+        for(int i = 0; i < 1000; i++) {
+            BigInteger n = new BigInteger(100, random).add(BigInteger.ONE);
+            BigInteger d = new BigInteger(110, random).add(BigInteger.ONE);
+            double value = exact(n, d).doubleValue();
+            // n/d is within half an ulp of value exactly when |n - value*d| * 2 <= ulp(value) * d
+            BigDecimal error = new BigDecimal(n)
+                    .subtract(new BigDecimal(value).multiply(new BigDecimal(d)))
+                    .abs().multiply(BigDecimal.valueOf(2));
+            assertTrue(n + "/" + d, error.compareTo(
+                    new BigDecimal(Math.ulp(value)).multiply(new BigDecimal(d))) <= 0);
+        }
+    }
+
+    @Test
+    public void testBigNaN() {
+        RatNum big = RatNum.valueOf("123456789012345678901234567890");
+        assertTrue(big.div(zero).isNaN());
+        assertTrue(big.mul(one_I_zero).isNaN());
+        assertTrue(one_I_zero.add(big).isNaN());
+    }
+
+    // The value of n/d in lowest terms, worked out with BigIntegers
+    private RatNum exact(BigInteger n, BigInteger d) {
+        BigInteger g = n.gcd(d);
+        if(d.signum() < 0) {
+            g = g.negate();
+        }
+        return RatNum.valueOf(n.divide(g) + "/" + d.divide(g));
+    }
+
+    @Test
+    public void testArithmeticMatchesBigIntegers() {
+        Random random = new Random(331);
+        // Numbers of up to 20, 40 and 62 bits, so that the fast path, overflow, and results
+        // that cancel back down into longs are all covered
+        for(int bits : new int[]{20, 40, 62}) {
+            for(int i = 0; i < 2000; i++) {
+                long a = random.nextLong() >> (64 - bits);
+                long b = (random.nextLong() >>> (64 - bits)) + 1;
+                long x = random.nextLong() >> (64 - bits);
+                long y = (random.nextLong() >>> (64 - bits)) + 1;
+                if(i % 3 == 0) {
+                    // share factors between the two fractions
+                    x = a * 6 / 5;
+                    y = b * 4 / 3 + 1;
+                }
+                RatNum r = RatNum.valueOf(a + "/" + b);
+                RatNum s = RatNum.valueOf(x + "/" + y);
+                BigInteger ba = r.bigNumerator();
+                BigInteger bb = r.bigDenominator();
+                BigInteger bx = s.bigNumerator();
+                BigInteger by = s.bigDenominator();
+                assertEquals(exact(ba.multiply(by).add(bx.multiply(bb)), bb.multiply(by)), r.add(s));
+                assertEquals(exact(ba.multiply(by).subtract(bx.multiply(bb)), bb.multiply(by)),
+                             r.sub(s));
+                assertEquals(exact(ba.multiply(bx), bb.multiply(by)), r.mul(s));
+                if(bx.signum() != 0) {
+                    assertEquals(exact(ba.multiply(by), bb.multiply(bx)), r.div(s));
+                }
+                assertEquals(Integer.signum(ba.multiply(by).compareTo(bx.multiply(bb))),
+                             Integer.signum(r.compareTo(s)));
+            }
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Shared Instances
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testValueOfEqualsConstructor() {
+        for(int n = -300; n <= 300; n += 7) {
+            for(int d = -20; d <= 20; d++) {
+                assertEquals(new RatNum(n, d), RatNum.valueOf(n, d));
+            }
+        }
+        assertEquals(new RatNum(Integer.MIN_VALUE, -1), RatNum.valueOf(Integer.MIN_VALUE, -1));
+    }
+
+    @Test
+    public void testValueOfSharesSmallValues() {
+        assertSame(RatNum.valueOf(1, 2), RatNum.valueOf(1, 2));
+        assertSame(RatNum.valueOf(1, 2), RatNum.valueOf(-3, -6));
+        assertSame(RatNum.ZERO, RatNum.valueOf(0, 5));
+        assertSame(RatNum.NaN, RatNum.valueOf(3, 0));
+        assertSame(RatNum.valueOf(-1, 1), one.negate());
+        assertSame(RatNum.valueOf(5, 6), one_I_two.add(one_I_three));
+    }
+
+    @Test
+    public void testValueOfLargeValues() {
+        assertEquals(new RatNum(1000000, 3), RatNum.valueOf(1000000, 3));
+        assertEquals(new RatNum(1, 1000000), RatNum.valueOf(1, 1000000));
+        assertEquals(new RatNum(Integer.MAX_VALUE, Integer.MIN_VALUE),
+                     RatNum.valueOf(Integer.MAX_VALUE, Integer.MIN_VALUE));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Append To
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testAppendToMatchesToString() throws IOException {
+        for(String s : new String[]{"0", "7", "-7", "3/2", "-3/2", "NaN", "-9223372036854775807",
+                                    "9223372036854775807/2", "-9223372036854775808",
+                                    "-123456789012345678901234567891/7"}) {
+            RatNum r = RatNum.valueOf(s);
+            assertEquals(s, r.toString());
+            StringBuilder builder = new StringBuilder("r=");
+            r.appendTo(builder);
+            assertEquals("r=" + s, builder.toString());
+            // A Writer is not a StringBuilder, so it is written a character at a time
+            StringWriter writer = new StringWriter();
+            r.appendTo(writer);
+            assertEquals(s, writer.toString());
+        }
+    }
 }
@@ -866,6 +866,65 @@ public final class RatPolyTest {
         assertEquals(" x^2-2*x at 3 ", 3.0, _XSq_minus_2X.eval(3.0), JUNIT_DOUBLE_DELTA);
     }
 
+    @Test
+    public void testEvalSparseAndNaN() {
+        RatPoly sparse = valueOf("1/2*x^1000-3*x^10+x");
+        assertEquals(-1.5, sparse.eval(1.0), JUNIT_DOUBLE_DELTA);
+        assertEquals(-3.5, sparse.eval(-1.0), JUNIT_DOUBLE_DELTA);
+        assertEquals(0.0, sparse.eval(0.0), 0.0);
+        assertEquals(-3.0 * 1024 + 2, valueOf("-3*x^10+x").eval(2.0), 0.0);
+        assertTrue(Double.isNaN(RatPoly.NaN.eval(1.0)));
+        assertEquals(0.0, new RatPoly().eval(Double.POSITIVE_INFINITY), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, valueOf("x^2+1").eval(Double.NEGATIVE_INFINITY), 0.0);
+    }
+
+    @Test
+    public void testEvalMatchesTermSum() {
+        java.util.Random random = new java.util.Random(331);
+        for(String p : new String[]{"1/2*x^3-x+4", "x^300-1/3*x^150+7", "5/7*x^40+x^2-2/9*x",
+                                    "3*x^6-2*x^5+x^4-x^3+2*x^2-3*x+1", "-1/5"}) {
+            RatPoly poly = valueOf(p);
+            for(int i = 0; i < 100; i++) {
+                double x = random.nextDouble() * 2.2 - 1.1;
+                double sum = 0;
+                for(int e = poly.degree(); e >= 0; e--) {
+                    sum += poly.getTerm(e).eval(x);
+                }
+                assertEquals(p + " at " + x, sum, poly.eval(x), 1e-12 * Math.max(1, Math.abs(sum)));
+            }
+        }
+    }
+
+    @Test
+    public void testEvalManyMatchesEval() {
+        double[] xs = new double[1500];
+        for(int i = 0; i < xs.length; i++) {
+            xs[i] = -3.0 + i * 0.004;
+        }
+        xs[7] = Double.NaN;
+        xs[8] = Double.POSITIVE_INFINITY;
+        xs[9] = -0.0;
+        for(String p : new String[]{"0", "2", "x", "1/2*x^3-x+4", "x^20-x^19+1/3",
+                                    "1/2*x^1000-3*x^10+x", "x^100+1", "NaN"}) {
+            RatPoly poly = valueOf(p);
+            double[] out = new double[xs.length + 2];
+            out[xs.length] = 5.0;
+            poly.evalMany(xs, out);
+            for(int i = 0; i < xs.length; i++) {
+                assertEquals(p + " at " + xs[i], poly.eval(xs[i]), out[i], 0.0);
+            }
+            assertEquals("evalMany wrote past xs.length", 5.0, out[xs.length], 0.0);
+            double[] inPlace = xs.clone();
+            poly.evalMany(inPlace, inPlace);
+            assertArrayEquals(p, java.util.Arrays.copyOf(out, xs.length), inPlace, 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvalManyShortOut() {
+        valueOf("x+1").evalMany(new double[3], new double[2]);
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////
     ////  Get Term Test
     ///////////////////////////////////////////////////////////////////////////////////////
@@ -1126,4 +1185,392 @@ public final class RatPolyTest {
     public void testIntegrateNaN() {
         assertEquals("NaN", RatPoly.valueOf("NaN").integrate(0, 1), Double.NaN, JUNIT_DOUBLE_DELTA);
     }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Dense representation Tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testDenseMulPowers() {
+        RatPoly p = valueOf("x+1");
+        RatPoly power = p;
+        for(int i = 1; i < 10; i++) {
+            power = power.mul(p);
+        }
+        eq(power, "x^10+10*x^9+45*x^8+120*x^7+210*x^6+252*x^5+210*x^4+120*x^3+45*x^2+10*x+1");
+    }
+
+    @Test
+    public void testDenseMulFractions() {
+        eq(valueOf("1/2*x^2+1/3*x+1/6").mul(valueOf("2/3*x-1/2")), "1/3*x^3-1/36*x^2-1/18*x-1/12");
+    }
+
+    @Test
+    public void testDenseAddCancelsLeadingTerms() {
+        RatPoly sum = valueOf("x^3+1/2*x").add(valueOf("-x^3+1/2*x+2"));
+        eq(sum, "x+2");
+        assertEquals(1, sum.degree());
+        eq(valueOf("x^2+x").sub(valueOf("x^2+x")), "0");
+    }
+
+    @Test
+    public void testDenseAndSparseMix() {
+        RatPoly sparse = valueOf("x^200+1");
+        RatPoly dense = valueOf("x^2+2*x+1");
+        eq(sparse.add(dense), "x^200+x^2+2*x+2");
+        eq(sparse.mul(dense), "x^202+2*x^201+x^200+x^2+2*x+1");
+        eq(sparse.add(dense).sub(sparse), "x^2+2*x+1");
+    }
+
+    @Test
+    public void testDenseEqualsSparse() {
+        // Built one term at a time, then parsed in one go
+        RatPoly built = poly(3, 2).add(poly(1, 0));
+        RatPoly parsed = valueOf("3*x^2+1");
+        assertEquals(parsed, built);
+        assertEquals(built, new RatPoly(3, 2).add(new RatPoly(1, 0)));
+        assertEquals(parsed.hashCode(), built.hashCode());
+        assertEquals(new RatPoly(1, 1), valueOf("x^2+x").sub(valueOf("x^2")));
+        assertEquals(new RatPoly(1, 1).hashCode(), valueOf("x^2+x").sub(valueOf("x^2")).hashCode());
+    }
+
+    @Test
+    public void testDenseGetTermAndEval() {
+        RatPoly p = valueOf("1/2*x^3-x+4");
+        assertEquals(new RatTerm(new RatNum(1, 2), 3), p.getTerm(3));
+        assertEquals(RatTerm.ZERO, p.getTerm(2));
+        assertEquals(RatTerm.ZERO, p.getTerm(7));
+        assertEquals(new RatTerm(new RatNum(-1), 1), p.getTerm(1));
+        assertEquals(4.0 + 2.0, p.eval(2.0), JUNIT_DOUBLE_DELTA);
+        eq(p.negate(), "-1/2*x^3+x-4");
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Large Multiplication Tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    private RatPoly bigPoly(int terms, int seed) {
+        java.util.Random random = new java.util.Random(seed);
+        RatPoly p = new RatPoly();
+        for(int e = 0; e < terms; e++) {
+            p = p.add(new RatPoly(new RatTerm(new RatNum(random.nextInt(41) - 20,
+                                                         1 + random.nextInt(3)), e)));
+        }
+        return p;
+    }
+
+    @Test
+    public void testLargeMulMatchesTermByTerm() {
+        for(int terms : new int[]{RatPoly.MODULAR_MIN_TERMS, 100, 300}) {
+            RatPoly a = bigPoly(terms, terms);
+            RatPoly b = bigPoly(terms + 7, terms + 1);
+            assertEquals(RatPoly.termMul(a, b), a.mul(b));
+            assertEquals(RatPoly.termMul(a, b), RatPoly.modularMul(a, b));
+        }
+    }
+
+    @Test
+    public void testLargeMulCancels() {
+        // (x - 1) * (x^99 + ... + x + 1) = x^100 - 1
+        RatPoly sum = new RatPoly();
+        for(int e = 0; e < 100; e++) {
+            sum = sum.add(poly(1, e));
+        }
+        RatPoly product = valueOf("x-1").mul(sum).mul(valueOf("x^100+1"));
+        eq(product, "x^200-1");
+        eq(sum.mul(sum.negate()).add(RatPoly.termMul(sum, sum)), "0");
+    }
+
+    @Test
+    public void testDenseMulOverCommonDenominator() {
+        RatPoly a = bigPoly(RatPoly.MODULAR_MIN_TERMS + 5, 3);
+        RatPoly b = bigPoly(RatPoly.MODULAR_MIN_TERMS + 9, 4);
+        assertEquals(RatPoly.termMul(a, b), RatPoly.denseMul(a, b));
+        eq(RatPoly.denseMul(valueOf("1/2*x+1/3"), valueOf("1/2*x-1/3")), "1/4*x^2-1/9");
+    }
+
+    @Test
+    public void testDenseMulOverflowFallsBack() {
+        // Coefficients of the product too large for an int
+        RatPoly a = new RatPoly();
+        for(int e = 0; e < 2 * RatPoly.MODULAR_MIN_TERMS; e++) {
+            a = a.add(poly(1 << 20, e));
+        }
+        assertNull(RatPoly.denseMul(a, a));
+        assertEquals(RatPoly.termMul(a, a), a.mul(a));
+        // Denominators whose least common multiple is too large for an int
+        RatPoly b = valueOf("1/65521*x^2+1/65519*x+1/65497");
+        assertNull(RatPoly.denseMul(b, b));
+        assertEquals(RatPoly.termMul(b, b), b.mul(b));
+    }
+
+    @Test
+    public void testModularMulLeavesSparseToOthers() {
+        assertNull(RatPoly.modularMul(valueOf("x^1000+1"), bigPoly(60, 1)));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Division with Remainder Tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    private void checkDivision(RatPoly u, RatPoly v) {
+        RatPoly[] qr = u.divideAndRemainder(v);
+        assertEquals(u, qr[0].mul(v).add(qr[1]));
+        assertTrue(qr[1].equals(zero()) || qr[1].degree() < v.degree());
+        assertEquals(qr[0], u.div(v));
+    }
+
+    @Test
+    public void testDivideAndRemainderExamples() {
+        RatPoly[] qr = valueOf("x^3-2*x+3").divideAndRemainder(valueOf("3*x^2"));
+        eq(qr[0], "1/3*x");
+        eq(qr[1], "-2*x+3");
+        qr = valueOf("x^2+2*x+15").divideAndRemainder(valueOf("2*x^3"));
+        eq(qr[0], "0");
+        eq(qr[1], "x^2+2*x+15");
+        qr = valueOf("x^3+x-1").divideAndRemainder(valueOf("x+1"));
+        eq(qr[0], "x^2-x+2");
+        eq(qr[1], "-3");
+    }
+
+    @Test
+    public void testDivideAndRemainderNaN() {
+        for(RatPoly r : valueOf("x+1").divideAndRemainder(zero())) {
+            assertTrue(r.isNaN());
+        }
+        for(RatPoly r : RatPoly.NaN.divideAndRemainder(valueOf("x"))) {
+            assertTrue(r.isNaN());
+        }
+    }
+
+    @Test
+    public void testDivideAndRemainderSparse() {
+        checkDivision(valueOf("x^300+1"), valueOf("x^2-1"));
+        checkDivision(valueOf("1/2*x^50-x^7+3"), valueOf("-x^4+2*x"));
+        checkDivision(zero(), valueOf("x-1"));
+    }
+
+    @Test
+    public void testNewtonDivisionMatchesLongDivision() {
+        // 1 + x + ... + x^m has a reciprocal with small coefficients
+        for(int m : new int[]{RatPoly.NEWTON_MIN_DEGREE, 200}) {
+            RatPoly v = poly(1, 0);
+            for(int e = 1; e <= m; e++) {
+                v = v.add(poly(1, e));
+            }
+            RatPoly u = bigPoly(m + 30, m).mul(v).add(bigPoly(m, m + 1));
+            RatPoly[] newton = RatPoly.newtonDiv(u, v);
+            assertNotNull(newton);
+            assertArrayEquals(RatPoly.longDiv(u, v), newton);
+            checkDivision(u, v);
+            checkDivision(u, v.negate());
+        }
+    }
+
+    @Test
+    public void testArithmeticPastInt() {
+        // Each used to overflow the int numerators and denominators of RatNum
+        eq(valueOf("-1/65536*x^4+1/2*x^3-1/131072*x").mul(valueOf("-2*x^4+x")),
+           "1/32768*x^8-x^7+1/2*x^4-1/131072*x^2");
+        checkDivision(valueOf("x^300+1"), valueOf("x^2-1/2"));
+        checkDivision(valueOf("1/2*x^50-x^7+3"), valueOf("-2/3*x^4+x"));
+        RatPoly big = valueOf("3000000000*x^2+1");
+        eq(big, "3000000000*x^2+1");
+        eq(big.mul(big), "9000000000000000000*x^4+6000000000*x^2+1");
+        eq(big.mul(big).mul(big), "27000000000000000000000000000*x^6+27000000000000000000*x^4"
+                                  + "+9000000000*x^2+1");
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Exact Evaluation Tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    // The value of p at r by summing its terms in RatNums
+    private RatNum sumTerms(RatPoly p, RatNum r) {
+        RatNum sum = RatNum.ZERO;
+        for(int e = p.degree(); e >= 0; e--) {
+            RatNum c = p.getTerm(e).getCoeff();
+            if(!c.equals(RatNum.ZERO)) {
+                RatNum power = new RatNum(1);
+                for(int i = 0; i < e; i++) {
+                    power = power.mul(r);
+                }
+                sum = sum.add(c.mul(power));
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    public void testEvalRatNumExamples() {
+        assertEquals(new RatNum(11, 18), valueOf("x^2+1/2").eval(new RatNum(1, 3)));
+        assertEquals(new RatNum(5), valueOf("x+2").eval(new RatNum(3)));
+        assertEquals(new RatNum(0), valueOf("x^2-2*x").eval(new RatNum(2)));
+        assertEquals(new RatNum(0), new RatPoly().eval(new RatNum(7, 3)));
+        assertEquals(new RatNum(-1), valueOf("x^100-1").eval(new RatNum(0)));
+        assertEquals(new RatNum(0), valueOf("x^100-1").eval(new RatNum(-1)));
+        assertTrue(RatPoly.NaN.eval(new RatNum(1)).isNaN());
+        assertTrue(valueOf("x+1").eval(RatNum.NaN).isNaN());
+    }
+
+    @Test
+    public void testEvalRatNumMatchesSumOfTerms() {
+        java.util.Random random = new java.util.Random(331);
+        // A leading coefficient of 2 shares a factor with the even denominators below
+        // Some values of the first two fit in longs and some do not
+        for(RatPoly p : new RatPoly[]{valueOf("2*x^3-1/3*x+5"), valueOf("3*x^39-x^20+1/5"),
+                                      valueOf("x^300-1/3*x^150+7/2"),
+                                      bigPoly(20, 1), bigPoly(200, 2),
+                                      bigPoly(300, 3).mul(poly(2, 0))}) {
+            for(int i = 0; i < 10; i++) {
+                RatNum r = new RatNum(random.nextInt(41) - 20, 1 + random.nextInt(8));
+                assertEquals(p + " at " + r, sumTerms(p, r), p.eval(r));
+            }
+        }
+    }
+
+    @Test
+    public void testEvalManyRatNum() {
+        java.util.Random random = new java.util.Random(332);
+        RatNum[] xs = new RatNum[60];
+        for(int i = 0; i < xs.length; i++) {
+            xs[i] = new RatNum(random.nextInt(21) - 10, 1 + random.nextInt(4));
+        }
+        xs[13] = RatNum.NaN;
+        for(RatPoly p : new RatPoly[]{new RatPoly(), valueOf("4*x^2-x"), valueOf("x^30-2"),
+                                      bigPoly(150, 4),
+                                      valueOf("1/6*x^90-2*x^3"), RatPoly.NaN}) {
+            RatNum[] values = p.evalMany(xs);
+            assertEquals(xs.length, values.length);
+            for(int i = 0; i < xs.length; i++) {
+                assertEquals(p + " at " + xs[i], p.eval(xs[i]), values[i]);
+            }
+        }
+        assertEquals(0, valueOf("x").evalMany(new RatNum[0]).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvalNullRatNum() {
+        valueOf("x+1").eval((RatNum) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEvalManyNullRatNum() {
+        valueOf("x+1").evalMany(new RatNum[]{new RatNum(1), null});
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Parsing Tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testValueOfUnsortedAndLikeTerms() {
+        eq(valueOf("x+x^3"), "x^3+x");
+        eq(valueOf("1+x^2-x^2+3*x+x"), "4*x+1");
+        eq(valueOf("x-x"), "0");
+        eq(valueOf("1/2*x^300+x^2+1/2*x^300"), "x^300+x^2");
+        eq(valueOf("0*x^5+0"), "0");
+        assertTrue(valueOf("x+NaN*x^2").isNaN());
+    }
+
+    @Test
+    public void testValueOfRoundTrip() {
+        for(RatPoly p : new RatPoly[]{bigPoly(30, 5), bigPoly(300, 6), valueOf("x^1000-1/3*x"),
+                                      bigPoly(40, 7).mul(valueOf("3000000000*x^2+1"))}) {
+            RatPoly q = valueOf(p.toString());
+            assertEquals(p, q);
+            assertEquals(p.toString(), q.toString());
+        }
+    }
+
+    @Test
+    public void testValueOfBigCoefficients() {
+        RatPoly p = valueOf("-123456789012345678901234567891/7*x^2+9223372036854775808*x+1");
+        assertEquals(RatNum.valueOf("-123456789012345678901234567891/7"), p.getTerm(2).getCoeff());
+        assertEquals(RatNum.valueOf("9223372036854775808"), p.getTerm(1).getCoeff());
+        eq(p, "-123456789012345678901234567891/7*x^2+9223372036854775808*x+1");
+    }
+
+    @Test
+    public void testValueOfMalformed() {
+        for(String s : new String[]{"x^", "2*", "x+", "3y", "x^2x", "2*y", "1/", "--x", "x^-1"}) {
+            try {
+                RatPoly.valueOf(s);
+                fail("parsed " + s);
+            } catch(IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testValueOfLines() {
+        java.util.List<RatPoly> polys = RatPoly.valueOfLines("x+1\n\n  x^2-1/2 \r\nNaN\n3");
+        assertEquals(4, polys.size());
+        eq(polys.get(0), "x+1");
+        eq(polys.get(1), "x^2-1/2");
+        assertTrue(polys.get(2).isNaN());
+        eq(polys.get(3), "3");
+        assertEquals(0, RatPoly.valueOfLines("").size());
+    }
+
+    @Test
+    public void testValueOfLinesManyLines() {
+        StringBuilder text = new StringBuilder();
+        RatPoly[] expected = new RatPoly[500];
+        for(int i = 0; i < expected.length; i++) {
+            expected[i] = bigPoly(1 + i % 40, i);
+            text.append(expected[i]).append('\n');
+        }
+        assertArrayEquals(expected, RatPoly.valueOfLines(text).toArray());
+    }
+
+    @Test
+    public void testValueOfLinesReportsLine() {
+        try {
+            RatPoly.valueOfLines("x\n\nx^2+\nx");
+            fail("parsed a malformed line");
+        } catch(IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Line 3"));
+        }
+    }
+
+    @Test
+    public void testReadAll() throws java.io.IOException {
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("polys", ".txt");
+        try {
+            java.nio.file.Files.writeString(file, "x^3-2*x\n1/3\n");
+            java.util.List<RatPoly> polys = RatPoly.readAll(file);
+            assertEquals(2, polys.size());
+            eq(polys.get(0), "x^3-2*x");
+            eq(polys.get(1), "1/3");
+        } finally {
+            java.nio.file.Files.delete(file);
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Append To Tests
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testAppendToMatchesToString() throws java.io.IOException {
+        // Dense and sparse, small and big coefficients
+        for(RatPoly p : new RatPoly[]{new RatPoly(), RatPoly.NaN, valueOf("-x+1"),
+                                      valueOf("x^17-3/2*x^2+1"), valueOf("-1/2"), bigPoly(50, 8),
+                                      valueOf("x^1000-x"), valueOf("3000000000*x^2-x")}) {
+            StringBuilder builder = new StringBuilder("p=");
+            p.appendTo(builder);
+            assertEquals("p=" + p.toString(), builder.toString());
+            java.io.StringWriter writer = new java.io.StringWriter();
+            p.appendTo(writer);
+            assertEquals(p.toString(), writer.toString());
+        }
+        eq(valueOf("x^17-3/2*x^2+1"), "x^17-3/2*x^2+1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAppendToNull() throws java.io.IOException {
+        valueOf("x+1").appendTo(null);
+    }
 }
@@ -15,6 +15,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.*;
 
@@ -759,4 +762,23 @@ public final class RatTermTest {
         RatTerm t2 = term(23, 45);
         assertEquals(t.hashCode(), t2.hashCode());
     }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Append To Test
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testAppendToMatchesToString() throws IOException {
+        for(String s : new String[]{"0", "1", "-1", "x", "-x", "x^3", "-x^12", "3/2*x", "-3/2*x",
+                                    "5*x^40", "-1/2", "NaN", "123456789012345678901*x^2"}) {
+            RatTerm t = RatTerm.valueOf(s);
+            assertEquals(s, t.toString());
+            StringBuilder builder = new StringBuilder("t=");
+            t.appendTo(builder);
+            assertEquals("t=" + s, builder.toString());
+            StringWriter writer = new StringWriter();
+            t.appendTo(writer);
+            assertEquals(s, writer.toString());
+        }
+    }
 }